@@ -3,6 +3,7 @@ import extensions.writeVersion
 plugins {
     id("impactor.base-conventions")
     id("impactor.publishing-conventions")
+    id("me.champeau.jmh") version "0.7.1"
 }
 
 repositories {
@@ -47,6 +48,7 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter-api:5.9.2")
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.9.2")
     testImplementation("org.mockito:mockito-core:5.2.0")
+    testImplementation("de.flapdoodle.embed:de.flapdoodle.embed.mongo:4.9.2")
     testRuntimeOnly("org.apache.logging.log4j:log4j-core:2.20.0")
 }
 
@@ -58,6 +60,12 @@ tasks.withType(Test::class) {
     jvmArgs("-Djunit.jupiter.extensions.autodetection.enabled=true")
 }
 
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+}
+
 sourceSets {
     test {
         resources {
@@ -0,0 +1,103 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.benchmarks.economy;
+
+import net.impactdev.impactor.core.economy.accounts.ScaledBalance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a deposit followed by a withdrawal, each verified against the configured balance
+ * restrictions, when performed against a BigDecimal balance and against a fixed-point balance.
+ *
+ * <p>Run with <code>./gradlew :impactor:jmh</code>, adding <code>-prof gc</code> to the JMH arguments to
+ * observe the allocation rate of each path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BalanceArithmeticBenchmark {
+
+    private static final int SCALE = 2;
+
+    private final BigDecimal minimum = new BigDecimal("0.0");
+    private final BigDecimal maximum = new BigDecimal("100000000000.0");
+    private final BigDecimal amount = new BigDecimal("12.50");
+
+    private BigDecimal decimal;
+    private long scaled;
+    private long scaledMinimum;
+    private long scaledMaximum;
+    private long scaledAmount;
+
+    @Setup
+    public void setup() {
+        this.decimal = new BigDecimal("500.00");
+        this.scaled = ScaledBalance.scale(this.decimal, SCALE);
+        this.scaledMinimum = ScaledBalance.bound(this.minimum, SCALE);
+        this.scaledMaximum = ScaledBalance.bound(this.maximum, SCALE);
+        this.scaledAmount = ScaledBalance.scale(this.amount, SCALE);
+    }
+
+    @Benchmark
+    public BigDecimal decimal() {
+        BigDecimal deposit = this.decimal.add(this.amount);
+        if(this.maximum.compareTo(deposit) >= 0) {
+            this.decimal = deposit;
+        }
+
+        BigDecimal withdraw = this.decimal.subtract(this.amount);
+        if(this.minimum.compareTo(withdraw) <= 0) {
+            this.decimal = withdraw;
+        }
+
+        return this.decimal;
+    }
+
+    @Benchmark
+    public long scaled() {
+        long deposit = Math.addExact(this.scaled, this.scaledAmount);
+        if(deposit <= this.scaledMaximum) {
+            this.scaled = deposit;
+        }
+
+        long withdraw = Math.subtractExact(this.scaled, this.scaledAmount);
+        if(withdraw >= this.scaledMinimum) {
+            this.scaled = withdraw;
+        }
+
+        return this.scaled;
+    }
+
+}
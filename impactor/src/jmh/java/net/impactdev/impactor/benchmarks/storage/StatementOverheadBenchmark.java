@@ -0,0 +1,155 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.benchmarks.storage;
+
+import com.google.common.collect.ImmutableMap;
+import net.impactdev.impactor.api.storage.StorageCredentials;
+import net.impactdev.impactor.core.economy.storage.implementations.SQLProvider;
+import net.impactdev.impactor.core.storage.sql.H2ConnectionImpl;
+import net.impactdev.impactor.core.storage.sql.StatementTemplates;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures the per-call overhead of an account lookup against an in-process H2 database, comparing the
+ * former path, where the statement template was processed and the owner encoded through a ByteBuffer on
+ * every call, against precomputed templates and direct encoding. The UUID encodings are additionally
+ * measured in isolation.
+ *
+ * <p>Run with <code>./gradlew :impactor:jmh</code>, adding <code>-prof gc</code> to the JMH arguments to
+ * observe the allocation rate of each path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StatementOverheadBenchmark {
+
+    private static final String PREFIX = "economy_";
+    private static final String CURRENCY = "impactor:dollars";
+
+    private final UUID owner = UUID.randomUUID();
+
+    private Path directory;
+    private H2ConnectionImpl connection;
+    private Function<String, String> processor;
+    private StatementTemplates templates;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.directory = Files.createTempDirectory("impactor-jmh");
+        StorageCredentials credentials = new StorageCredentials("localhost", "minecraft", "root", "", 2, 2, 1800000, 0, 5000, ImmutableMap.of());
+        this.connection = new H2ConnectionImpl(credentials, this.directory.resolve("economy"));
+        this.connection.init();
+
+        this.processor = this.connection.statementProcessor().compose(s -> s.replace("{prefix}", PREFIX));
+        this.templates = new StatementTemplates(this.processor, List.of(SQLProvider.HAS_ACCOUNT));
+
+        try(Connection connection = this.connection.connection()) {
+            try(Statement statement = connection.createStatement()) {
+                statement.execute(this.processor.apply("CREATE TABLE '{prefix}accounts' (uuid BINARY(16) NOT NULL, currency VARCHAR(100) NOT NULL, 'virtual' BOOLEAN NOT NULL DEFAULT false, balance DOUBLE NOT NULL, updated BIGINT NOT NULL DEFAULT 0, PRIMARY KEY (uuid, currency))"));
+            }
+
+            try(PreparedStatement ps = connection.prepareStatement(this.processor.apply(SQLProvider.UPDATE_OR_INSERT_ACCOUNT))) {
+                ps.setBytes(1, SQLProvider.uuidToBytes(this.owner));
+                ps.setString(2, CURRENCY);
+                ps.setBoolean(3, false);
+                ps.setDouble(4, 500);
+                ps.setLong(5, System.currentTimeMillis());
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        this.connection.shutdown();
+        FileUtils.deleteDirectory(this.directory.toFile());
+    }
+
+    @Benchmark
+    public boolean processedPerCall() throws Exception {
+        return this.lookup(this.processor.apply(SQLProvider.HAS_ACCOUNT), buffered(this.owner));
+    }
+
+    @Benchmark
+    public boolean precomputed() throws Exception {
+        return this.lookup(this.templates.get(SQLProvider.HAS_ACCOUNT), SQLProvider.uuidToBytes(this.owner));
+    }
+
+    @Benchmark
+    public byte[] uuidThroughBuffer() {
+        return buffered(this.owner);
+    }
+
+    @Benchmark
+    public byte[] uuidDirect() {
+        return SQLProvider.uuidToBytes(this.owner);
+    }
+
+    private boolean lookup(String sql, byte[] owner) throws Exception {
+        try(Connection connection = this.connection.connection()) {
+            try(PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setBytes(1, owner);
+                ps.setString(2, CURRENCY);
+                try(ResultSet results = ps.executeQuery()) {
+                    return results.next();
+                }
+            }
+        }
+    }
+
+    private static byte[] buffered(UUID uuid) {
+        byte[] bytes = new byte[16];
+        ByteBuffer.wrap(bytes)
+                .order(ByteOrder.BIG_ENDIAN)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits());
+
+        return bytes;
+    }
+
+}
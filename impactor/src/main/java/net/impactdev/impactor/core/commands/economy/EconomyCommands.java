@@ -48,11 +48,18 @@ import net.impactdev.impactor.api.platform.players.PlatformPlayer;
 import net.impactdev.impactor.api.platform.sources.PlatformSource;
 import net.impactdev.impactor.api.services.permissions.PermissionsService;
 import net.impactdev.impactor.api.utility.Context;
+import net.impactdev.impactor.api.utility.ExceptionPrinter;
+import net.impactdev.impactor.api.utility.printing.PrettyPrinter;
 import net.impactdev.impactor.core.economy.EconomyConfig;
 import net.impactdev.impactor.core.economy.ImpactorEconomyService;
 import net.impactdev.impactor.core.economy.context.TransactionContext;
 import net.impactdev.impactor.core.economy.context.TransferTransactionContext;
+import net.impactdev.impactor.core.economy.storage.EconomyStorage;
+import net.impactdev.impactor.core.economy.storage.migration.StorageBackend;
+import net.impactdev.impactor.core.economy.storage.migration.StorageMigration;
+import net.impactdev.impactor.core.plugin.BaseImpactorPlugin;
 import net.impactdev.impactor.core.translations.internal.ImpactorTranslations;
+import net.impactdev.impactor.core.utility.future.MainThreadExecutor;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.util.TriState;
 import org.jetbrains.annotations.NotNull;
@@ -60,8 +67,14 @@ import org.jetbrains.annotations.Nullable;
 
 import java.math.BigDecimal;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 @SuppressWarnings({"DuplicatedCode", "unused"})
 @CommandContainer
@@ -77,12 +90,12 @@ public final class EconomyCommands {
         Currency c = currency != null ? currency : service.currencies().primary();
         PlatformSource focus = target != null ? target : source.source();
 
-        Account account = service.account(c, focus.uuid()).join();
-
-        Context context = Context.empty();
-        context.append(Currency.class, c);
-        context.append(Account.class, account);
-        ImpactorTranslations.ECONOMY_BALANCE.send(source, context);
+        this.report(source, service.account(c, focus.uuid()).thenAcceptAsync(account -> {
+            Context context = Context.empty();
+            context.append(Currency.class, c);
+            context.append(Account.class, account);
+            ImpactorTranslations.ECONOMY_BALANCE.send(source, context);
+        }, MainThreadExecutor.sync(MainThreadExecutor.Priority.HIGH)));
     }
 
     @ProxiedBy("withdraw")
@@ -98,22 +111,7 @@ public final class EconomyCommands {
         Currency c = currency != null ? currency : service.currencies().primary();
         PlatformSource focus = target != null ? target : source.source();
 
-        service.account(c, focus.uuid()).thenAccept(account -> {
-            BigDecimal before = account.balance();
-
-            EconomyTransaction transaction = account.withdraw(new BigDecimal(amount));
-            Context context = Context.empty();
-            context.append(TransactionContext.class, new TransactionContext(EconomyTransactionType.WITHDRAW, before, account.balance(), transaction.result()));
-            context.append(Currency.class, c);
-            context.append(Account.class, account);
-
-            if(!transaction.successful()) {
-                ImpactorTranslations.ECONOMY_TRANSACTION_FAILED.send(source, context);
-            } else {
-                ImpactorTranslations.ECONOMY_TRANSACTION.send(source, context);
-            }
-        });
-
+        this.transact(source, c, focus, EconomyTransactionType.WITHDRAW, account -> account.withdraw(new BigDecimal(amount)));
     }
 
     @ProxiedBy("deposit")
@@ -129,21 +127,7 @@ public final class EconomyCommands {
         Currency c = currency != null ? currency : service.currencies().primary();
         PlatformSource focus = target != null ? target : source.source();
 
-        service.account(c, focus.uuid()).thenAccept(account -> {
-            BigDecimal before = account.balance();
-
-            EconomyTransaction transaction = account.deposit(new BigDecimal(amount));
-            Context context = Context.empty();
-            context.append(TransactionContext.class, new TransactionContext(EconomyTransactionType.DEPOSIT, before, account.balance(), transaction.result()));
-            context.append(Currency.class, c);
-            context.append(Account.class, account);
-
-            if(!transaction.successful()) {
-                ImpactorTranslations.ECONOMY_TRANSACTION_FAILED.send(source, context);
-            } else {
-                ImpactorTranslations.ECONOMY_TRANSACTION.send(source, context);
-            }
-        });
+        this.transact(source, c, focus, EconomyTransactionType.DEPOSIT, account -> account.deposit(new BigDecimal(amount)));
     }
 
     @CommandMethod("economy|eco set <amount> [currency] [target]")
@@ -158,22 +142,7 @@ public final class EconomyCommands {
         Currency c = currency != null ? currency : service.currencies().primary();
         PlatformSource focus = target != null ? target : source.source();
 
-        service.account(c, focus.uuid()).thenAccept(account -> {
-            BigDecimal before = account.balance();
-
-            EconomyTransaction transaction = account.set(new BigDecimal(amount));
-            Context context = Context.empty();
-            context.append(TransactionContext.class, new TransactionContext(EconomyTransactionType.SET, before, account.balance(), transaction.result()));
-            context.append(Currency.class, c);
-            context.append(Account.class, account);
-
-            if(!transaction.successful()) {
-                ImpactorTranslations.ECONOMY_TRANSACTION_FAILED.send(source, context);
-            } else {
-                ImpactorTranslations.ECONOMY_TRANSACTION.send(source, context);
-            }
-        });
-
+        this.transact(source, c, focus, EconomyTransactionType.SET, account -> account.set(new BigDecimal(amount)));
     }
 
     @CommandMethod("economy|eco reset [currency] [target]")
@@ -187,21 +156,7 @@ public final class EconomyCommands {
         Currency c = currency != null ? currency : service.currencies().primary();
         PlatformSource focus = target != null ? target : source.source();
 
-        service.account(c, focus.uuid()).thenAccept(account -> {
-            BigDecimal before = account.balance();
-
-            EconomyTransaction transaction = account.reset();
-            Context context = Context.empty();
-            context.append(TransactionContext.class, new TransactionContext(EconomyTransactionType.RESET, before, account.balance(), transaction.result()));
-            context.append(Currency.class, c);
-            context.append(Account.class, account);
-
-            if(!transaction.successful()) {
-                ImpactorTranslations.ECONOMY_TRANSACTION_FAILED.send(source, context);
-            } else {
-                ImpactorTranslations.ECONOMY_TRANSACTION.send(source, context);
-            }
-        });
+        this.transact(source, c, focus, EconomyTransactionType.RESET, Account::reset);
     }
 
     @ProxiedBy("pay")
@@ -245,12 +200,10 @@ public final class EconomyCommands {
             }
         }
 
-        service.account(c, focus.uuid()).thenAccept(s -> {
-            Account to = service.account(c, target.uuid()).join();
-
+        BigDecimal total = new BigDecimal(amount);
+        this.report(source, service.account(c, focus.uuid()).thenCombineAsync(service.account(c, target.uuid()), (s, to) -> {
             BigDecimal sb = s.balance();
             BigDecimal tb = to.balance();
-            BigDecimal total = new BigDecimal(amount);
 
             EconomyTransferTransaction transaction = EconomyTransferTransaction.compose()
                     .to(to)
@@ -268,6 +221,8 @@ public final class EconomyCommands {
                     transaction.result()
             ));
 
+            return transaction;
+        }, Impactor.instance().scheduler().async()).thenAcceptAsync(transaction -> {
             transaction.inform(source);
             if(!target.equals(focus) && transaction.successful()) {
                 context.append(PlatformSource.class, source.source());
@@ -275,7 +230,7 @@ public final class EconomyCommands {
 
                 ImpactorTranslations.ECONOMY_RECEIVE_PAYMENT.send(target, context);
             }
-        });
+        }, MainThreadExecutor.sync(MainThreadExecutor.Priority.HIGH)));
     }
 
     @ProxiedBy("baltop")
@@ -292,23 +247,175 @@ public final class EconomyCommands {
         }
 
         ImpactorTranslations.ECONOMY_BALTOP_CALCULATING.send(source, Context.empty());
-        service.accounts(target).thenAccept(accounts -> {
+        CompletableFuture<List<Account>> top;
+        if(service instanceof ImpactorEconomyService) {
+            top = ((ImpactorEconomyService) service).storage().top(target, max.get(), nonPlayers);
+        } else {
+            top = service.accounts(target).thenApply(accounts -> accounts.stream()
+                    .sorted(Comparator.<Account, BigDecimal>comparing(Account::balance).reversed())
+                    .filter(account -> !account.virtual() || nonPlayers)
+                    .limit(max.get())
+                    .toList()
+            );
+        }
+
+        this.report(source, top.thenAcceptAsync(accounts -> {
             Context context = Context.empty().append(Currency.class, target);
             ImpactorTranslations.ECONOMY_BALTOP_HEADER.send(source, context);
 
             AtomicInteger ranking = new AtomicInteger(1);
-            accounts.stream()
-                    .sorted(Comparator.<Account, BigDecimal>comparing(Account::balance).reversed())
-                    .filter(account -> !account.virtual() || nonPlayers)
-                    .limit(max.get())
-                    .forEach(account -> {
-                        Context relative = Context.empty().with(context)
-                                .append(Account.class, account)
-                                .append(Integer.class, ranking.getAndIncrement());
-                        ImpactorTranslations.ECONOMY_BALTOP_ENTRY.send(source, relative);
-                    });
+            accounts.forEach(account -> {
+                Context relative = Context.empty().with(context)
+                        .append(Account.class, account)
+                        .append(Integer.class, ranking.getAndIncrement());
+                ImpactorTranslations.ECONOMY_BALTOP_ENTRY.send(source, relative);
+            });
 
             ImpactorTranslations.ECONOMY_BALTOP_FOOTER.send(source, context);
-        });
+        }, MainThreadExecutor.sync(MainThreadExecutor.Priority.HIGH)));
+    }
+
+    @CommandMethod("economy|eco ledger replay [currency]")
+    @CommandPermission("impactor.commands.economy.ledger.replay")
+    @CommandDescription("Restores the balance of every account of a currency from the transaction ledger")
+    public void replay(final @NotNull CommandSource source, @Nullable @Argument("currency") Currency currency) {
+        EconomyService service = EconomyService.instance();
+        if(!(service instanceof ImpactorEconomyService impactor)) {
+            return;
+        }
+
+        Currency target = currency != null ? currency : service.currencies().primary();
+        Context context = Context.empty().append(Currency.class, target);
+
+        ImpactorTranslations.ECONOMY_LEDGER_REPLAYING.send(source, context);
+        impactor.storage().ledger().replay(target)
+                .thenCompose(balances -> impactor.storage().restore(target, balances))
+                .whenCompleteAsync((restoration, error) -> {
+                    if(error != null) {
+                        ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), error);
+                        ImpactorTranslations.ECONOMY_LEDGER_FAILED.send(source, context);
+                        return;
+                    }
+
+                    if(restoration.failed() > 0) {
+                        context.append(EconomyStorage.Restoration.class, restoration);
+                        ImpactorTranslations.ECONOMY_LEDGER_INCOMPLETE.send(source, context);
+                    } else {
+                        ImpactorTranslations.ECONOMY_LEDGER_REPLAYED.send(source, context);
+                    }
+                }, MainThreadExecutor.sync(MainThreadExecutor.Priority.HIGH));
+    }
+
+    @CommandMethod("impactor economy migrate <from> <to>")
+    @CommandPermission("impactor.commands.economy.migrate")
+    @CommandDescription("Copies every account from one storage type, or the journal, to another, verifying the copy once complete")
+    public void migrate(final @NotNull CommandSource source, @Argument("from") String from, @Argument("to") String to) {
+        EconomyService service = EconomyService.instance();
+        if(!(service instanceof ImpactorEconomyService impactor)) {
+            return;
+        }
+
+        Optional<StorageBackend> origin = StorageBackend.parse(from);
+        Optional<StorageBackend> destination = StorageBackend.parse(to);
+        if(origin.isEmpty() || destination.isEmpty()) {
+            ImpactorTranslations.ECONOMY_MIGRATION_UNKNOWN.send(source, Context.empty());
+            return;
+        }
+
+        StorageMigration migration = new StorageMigration(origin.get(), destination.get(), impactor.config().get(EconomyConfig.WRITE_BEHIND_BATCH_SIZE));
+        Context context = Context.empty().append(StorageMigration.class, migration);
+        if(!StorageMigration.supported(origin.get(), destination.get())) {
+            ImpactorTranslations.ECONOMY_MIGRATION_UNSUPPORTED.send(source, context);
+            return;
+        }
+
+        Executor sync = MainThreadExecutor.sync(MainThreadExecutor.Priority.HIGH);
+        AtomicLong reported = new AtomicLong(System.nanoTime());
+        ImpactorTranslations.ECONOMY_MIGRATION_STARTED.send(source, context);
+        migration.start(impactor, progress -> {
+            long now = System.nanoTime();
+            long previous = reported.get();
+            if(now - previous >= TimeUnit.SECONDS.toNanos(5) && reported.compareAndSet(previous, now)) {
+                Context relative = Context.empty().with(context)
+                        .append(Currency.class, progress.currency())
+                        .append(StorageMigration.Progress.class, progress);
+                sync.execute(() -> ImpactorTranslations.ECONOMY_MIGRATION_PROGRESS.send(source, relative));
+            }
+        }).whenCompleteAsync((results, error) -> {
+            if(error != null) {
+                ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), error);
+                ImpactorTranslations.ECONOMY_MIGRATION_FAILED.send(source, context);
+                return;
+            }
+
+            for(StorageMigration.Verification verification : results) {
+                Context relative = Context.empty().with(context)
+                        .append(Currency.class, verification.currency())
+                        .append(StorageMigration.Verification.class, verification);
+
+                if(verification.valid()) {
+                    ImpactorTranslations.ECONOMY_MIGRATION_VERIFIED.send(source, relative);
+                } else {
+                    ImpactorTranslations.ECONOMY_MIGRATION_MISMATCH.send(source, relative);
+                }
+            }
+        }, sync);
+    }
+
+    @CommandMethod("economy|eco metrics")
+    @CommandPermission("impactor.commands.economy.metrics")
+    @CommandDescription("Prints the latency, cache, and connection pool metrics of the economy storage to the console")
+    public void metrics(final @NotNull CommandSource source) {
+        EconomyService service = EconomyService.instance();
+        if(!(service instanceof ImpactorEconomyService impactor)) {
+            return;
+        }
+
+        PrettyPrinter printer = new PrettyPrinter(80);
+        printer.title("Economy Storage Metrics");
+        impactor.storage().metrics().print(printer);
+        printer.log(BaseImpactorPlugin.instance().logger());
+
+        ImpactorTranslations.ECONOMY_METRICS_PRINTED.send(source, Context.empty());
+    }
+
+    /**
+     * Applies a transaction to the account of the focus once it has been fetched. The transaction is
+     * applied off the main thread, as it may need to wait on storage, while the outcome is reported
+     * back on the main thread.
+     */
+    private void transact(CommandSource source, Currency currency, PlatformSource focus, EconomyTransactionType type, Function<Account, EconomyTransaction> action) {
+        this.report(source, EconomyService.instance().account(currency, focus.uuid()).thenApplyAsync(account -> {
+            BigDecimal before = account.balance();
+
+            EconomyTransaction transaction = action.apply(account);
+            Context context = Context.empty();
+            context.append(TransactionContext.class, new TransactionContext(type, before, account.balance(), transaction.result()));
+            context.append(Currency.class, currency);
+            context.append(Account.class, account);
+
+            return new Outcome(transaction, context);
+        }, Impactor.instance().scheduler().async()).thenAcceptAsync(outcome -> {
+            if(!outcome.transaction().successful()) {
+                ImpactorTranslations.ECONOMY_TRANSACTION_FAILED.send(source, outcome.context());
+            } else {
+                ImpactorTranslations.ECONOMY_TRANSACTION.send(source, outcome.context());
+            }
+        }, MainThreadExecutor.sync(MainThreadExecutor.Priority.HIGH)));
+    }
+
+    /**
+     * Reports a failure at any stage of an asynchronous command, so the source is never left without a
+     * response. The cause is logged to the console, while the source is only told the command failed.
+     */
+    private void report(CommandSource source, CompletableFuture<?> command) {
+        command.whenCompleteAsync((ignore, error) -> {
+            if(error != null) {
+                ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), error);
+                ImpactorTranslations.ECONOMY_COMMAND_FAILED.send(source, Context.empty());
+            }
+        }, MainThreadExecutor.sync(MainThreadExecutor.Priority.HIGH));
     }
+
+    private record Outcome(EconomyTransaction transaction, Context context) {}
 }
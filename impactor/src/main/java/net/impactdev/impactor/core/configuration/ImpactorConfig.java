@@ -61,6 +61,7 @@ import java.lang.reflect.Modifier;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
 
@@ -72,6 +73,7 @@ public class ImpactorConfig implements Config {
     private final ConfigurationAdapter adapter;
     private final List<? extends ConfigKey<?>> keys;
     private final ValuesMap values;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
 
     public ImpactorConfig(ConfigurationAdapter adapter, Class<?> provider) {
         this.adapter = adapter;
@@ -102,6 +104,17 @@ public class ImpactorConfig implements Config {
     public void reload() {
         this.adapter.reload();
         load(false);
+        this.listeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Registers a listener to be notified after each reload of this configuration, allowing values
+     * derived from the configuration to be rebuilt.
+     *
+     * @param listener The listener to run after each reload
+     */
+    public void onReload(Runnable listener) {
+        this.listeners.add(listener);
     }
 
     /**
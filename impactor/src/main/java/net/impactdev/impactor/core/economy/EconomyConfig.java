@@ -52,6 +52,7 @@ public final class EconomyConfig {
     public static final ConfigKey<StorageType> STORAGE_TYPE = key(adapter ->
             StorageType.parse(adapter.getString("storage.method", "json"))
     );
+    public static final ConfigKey<String> STORAGE_METHOD = notReloadable(stringKey("storage.method", "json"));
     public static final ConfigKey<StorageCredentials> STORAGE_CREDENTIALS = notReloadable(key(adapter -> {
         String address = adapter.getString("storage.data.address", "localhost");
         String database = adapter.getString("storage.data.database", "minecraft");
@@ -67,6 +68,15 @@ public final class EconomyConfig {
         return new StorageCredentials(address, database, username, password, maxPoolSize, minIdle, maxLifetime, keepAliveTime, connectionTimeout, props);
     }));
     public static final ConfigKey<String> SQL_TABLE_PREFIX = notReloadable(stringKey("storage.table-prefix", "economy_"));
+    public static final ConfigKey<Integer> WRITE_BEHIND_INTERVAL = notReloadable(intKey("storage.write-behind.flush-interval", 1000));
+    public static final ConfigKey<Integer> WRITE_BEHIND_BATCH_SIZE = notReloadable(intKey("storage.write-behind.max-batch-size", 500));
+    public static final ConfigKey<Integer> STORAGE_THREADS = notReloadable(intKey("storage.executor.threads", 0));
+    public static final ConfigKey<Integer> STORAGE_QUEUE_SIZE = notReloadable(intKey("storage.executor.queue-size", 1024));
+    public static final ConfigKey<Boolean> STORAGE_VIRTUAL_THREADS = notReloadable(booleanKey("storage.executor.virtual-threads", false));
+    public static final ConfigKey<Integer> INVALIDATION_POLL_INTERVAL = notReloadable(intKey("storage.invalidation.poll-interval", 0));
+    public static final ConfigKey<Boolean> ATOMIC_BALANCE_UPDATES = notReloadable(booleanKey("storage.atomic-balance-updates", false));
+    public static final ConfigKey<Boolean> LEDGER_ENABLED = notReloadable(booleanKey("ledger.enabled", false));
+    public static final ConfigKey<Integer> LEDGER_BUFFER_SIZE = notReloadable(intKey("ledger.buffer-size", 65536));
 
 
     public static final ConfigKey<Boolean> APPLY_RESTRICTIONS = booleanKey("restrictions.enabled", true);
@@ -78,6 +88,22 @@ public final class EconomyConfig {
         double value = adapter.getDouble("restrictions.maximum-balance", 100000000000.0);
         return BigDecimal.valueOf(value);
     });
+    @SuppressWarnings("PatternValidation")
+    public static final ConfigKey<Map<Key, EconomyRestrictions.Bounds>> CURRENCY_RESTRICTIONS = key(adapter -> {
+        double minimum = adapter.getDouble("restrictions.minimum-balance", 0.0);
+        double maximum = adapter.getDouble("restrictions.maximum-balance", 100000000000.0);
+
+        ImmutableMap.Builder<Key, EconomyRestrictions.Bounds> results = ImmutableMap.builder();
+        for(String option : adapter.getKeys("currencies", Lists.newArrayList("dollars"))) {
+            String path = "currencies." + option + ".restrictions.";
+            results.put(Key.key(option), new EconomyRestrictions.Bounds(
+                    BigDecimal.valueOf(adapter.getDouble(path + "minimum-balance", minimum)),
+                    BigDecimal.valueOf(adapter.getDouble(path + "maximum-balance", maximum))
+            ));
+        }
+
+        return results.build();
+    });
     public static final ConfigKey<Boolean> ALLOW_TRANSFER_CROSS_CURRENCY = booleanKey("restrictions.allow-cross-currency-transfers", false);
     public static final ConfigKey<Boolean> ALLOW_TRANSFER_ON_NOT_SET = booleanKey("allow-transfer-for-not-set", false);
     public static final ConfigKey<Integer> MAX_BALTOP_ENTRIES = intKey("baltop.max-entries", 10);
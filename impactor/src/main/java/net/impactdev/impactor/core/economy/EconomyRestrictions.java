@@ -0,0 +1,124 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy;
+
+import com.google.common.collect.ImmutableMap;
+import net.impactdev.impactor.api.configuration.Config;
+import net.impactdev.impactor.api.economy.currency.Currency;
+import net.impactdev.impactor.core.economy.accounts.ScaledBalance;
+import net.kyori.adventure.key.Key;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the restrictions placed on balances, compiled from the economy configuration
+ * whenever it is loaded. Transactions read restrictions from the current snapshot rather than resolving
+ * each setting from the configuration individually. The limits of each configured currency are compiled
+ * alongside the fixed-point form they take in that currency, so transactions never need to scale them.
+ */
+public final class EconomyRestrictions {
+
+    private final boolean enabled;
+    private final boolean crossCurrencyTransfers;
+    private final Bounds defaults;
+    private final Map<Key, Limits> currencies;
+
+    private EconomyRestrictions(boolean enabled, boolean crossCurrencyTransfers, Bounds defaults, Map<Key, Limits> currencies) {
+        this.enabled = enabled;
+        this.crossCurrencyTransfers = crossCurrencyTransfers;
+        this.defaults = defaults;
+        this.currencies = currencies;
+    }
+
+    public static EconomyRestrictions compile(Config config) {
+        Bounds defaults = new Bounds(config.get(EconomyConfig.MIN_BALANCE), config.get(EconomyConfig.MAX_BALANCE));
+        Map<Key, Bounds> configured = config.get(EconomyConfig.CURRENCY_RESTRICTIONS);
+
+        ImmutableMap.Builder<Key, Limits> currencies = ImmutableMap.builder();
+        for(Currency currency : config.get(EconomyConfig.CURRENCIES)) {
+            currencies.put(currency.key(), configured.getOrDefault(currency.key(), defaults).compile(currency));
+        }
+
+        return new EconomyRestrictions(
+                config.get(EconomyConfig.APPLY_RESTRICTIONS),
+                config.get(EconomyConfig.ALLOW_TRANSFER_CROSS_CURRENCY),
+                defaults,
+                currencies.build()
+        );
+    }
+
+    /**
+     * Indicates whether balance limits should be enforced at all.
+     *
+     * @return true if balance limits should be enforced
+     */
+    public boolean enabled() {
+        return this.enabled;
+    }
+
+    public boolean crossCurrencyTransfers() {
+        return this.crossCurrencyTransfers;
+    }
+
+    /**
+     * Provides the balance limits of the given currency, falling back to the global limits should the
+     * currency not specify its own.
+     *
+     * @param currency The currency to find the limits of
+     * @return The balance limits of the currency
+     */
+    public Limits limits(Currency currency) {
+        Limits limits = this.currencies.get(currency.key());
+        return limits != null ? limits : this.defaults.compile(currency);
+    }
+
+    /**
+     * The balance limits configured for a currency, prior to being compiled against its scale.
+     *
+     * @param minimum The minimum balance
+     * @param maximum The maximum balance
+     */
+    public record Bounds(BigDecimal minimum, BigDecimal maximum) {
+
+        public Limits compile(Currency currency) {
+            int scale = currency.decimals();
+            return new Limits(this.minimum, this.maximum, ScaledBalance.bound(this.minimum, scale), ScaledBalance.bound(this.maximum, scale));
+        }
+
+    }
+
+    /**
+     * The balance limits of a single currency.
+     *
+     * @param minimum The minimum balance
+     * @param maximum The maximum balance
+     * @param scaledMinimum The minimum balance in the fixed-point form of the currency
+     * @param scaledMaximum The maximum balance in the fixed-point form of the currency
+     */
+    public record Limits(BigDecimal minimum, BigDecimal maximum, long scaledMinimum, long scaledMaximum) {}
+
+}
@@ -25,18 +25,29 @@
 
 package net.impactdev.impactor.core.economy;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import net.impactdev.impactor.api.Impactor;
 import net.impactdev.impactor.api.configuration.Config;
 import net.impactdev.impactor.api.economy.EconomyService;
 import net.impactdev.impactor.api.economy.accounts.Account;
 import net.impactdev.impactor.api.economy.currency.Currency;
 import net.impactdev.impactor.api.economy.currency.CurrencyProvider;
+import net.impactdev.impactor.api.economy.transactions.EconomyTransaction;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyResultType;
 import net.impactdev.impactor.api.storage.StorageType;
 import net.impactdev.impactor.api.utility.ExceptionPrinter;
+import net.impactdev.impactor.core.configuration.ImpactorConfig;
+import net.impactdev.impactor.core.economy.accounts.BulkAdjustments;
+import net.impactdev.impactor.core.economy.accounts.ImpactorAccount;
+import net.impactdev.impactor.core.economy.accounts.TransactionGroup;
 import net.impactdev.impactor.core.economy.currency.ImpactorCurrencyProvider;
+import net.impactdev.impactor.core.economy.events.ImpactorEconomyBulkTransactionEvent;
 import net.impactdev.impactor.core.economy.storage.EconomyStorage;
 import net.impactdev.impactor.core.economy.storage.StorageFactory;
+import net.impactdev.impactor.core.economy.transactions.bulk.BulkOperation;
 import net.impactdev.impactor.core.plugin.BaseImpactorPlugin;
+import net.kyori.event.PostResult;
 
 import java.util.List;
 import java.util.UUID;
@@ -47,6 +58,7 @@ public final class ImpactorEconomyService implements EconomyService {
     private final CurrencyProvider provider;
     private final EconomyStorage storage;
     private final Config config;
+    private volatile EconomyRestrictions restrictions;
 
     public ImpactorEconomyService() {
         this.config = Config.builder()
@@ -60,6 +72,11 @@ public final class ImpactorEconomyService implements EconomyService {
             throw new IllegalStateException("No currencies defined");
         }
 
+        this.restrictions = EconomyRestrictions.compile(this.config);
+        if(this.config instanceof ImpactorConfig impactor) {
+            impactor.onReload(() -> this.restrictions = EconomyRestrictions.compile(this.config));
+        }
+
         this.provider = new ImpactorCurrencyProvider(currencies);
         this.storage = StorageFactory.instance(BaseImpactorPlugin.instance(), this.config, StorageType.JSON);
 
@@ -88,6 +105,112 @@ public final class ImpactorEconomyService implements EconomyService {
         return this.config;
     }
 
+    /**
+     * Provides the restrictions currently placed on balances, compiled from the latest load of the
+     * economy configuration.
+     *
+     * @return The current balance restrictions
+     */
+    public EconomyRestrictions restrictions() {
+        return this.restrictions;
+    }
+
+    public void shutdown() {
+        try {
+            this.storage.shutdown();
+        } catch (Exception e) {
+            ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+        }
+    }
+
+    /**
+     * Processes a set of transactions together. A single pre event is fired for the entire set, allowing
+     * individual operations to be cancelled, and balance restrictions are resolved once for the set. Every
+     * modified account is then written as part of a single batch, rather than an individual write per
+     * account. Where balance changes are applied as deltas, consecutive deposits and withdrawals are
+     * instead sent to the storage as a single group of adjustments.
+     *
+     * @param operations The operations to process
+     * @return The outcome of each operation, in the order the operations were supplied
+     */
+    public List<EconomyTransaction> bulk(List<BulkOperation> operations) {
+        ImpactorEconomyBulkTransactionEvent.Pre pre = new ImpactorEconomyBulkTransactionEvent.Pre(List.copyOf(operations));
+        try {
+            Impactor.instance().events().post(pre).raise();
+        } catch (PostResult.CompositeException e) {
+            ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+            return operations.stream().map(operation -> operation.transaction(EconomyResultType.FAILED)).toList();
+        }
+
+        EconomyRestrictions restrictions = this.restrictions;
+        EconomyResultType[] results = new EconomyResultType[operations.size()];
+        BulkAdjustments adjustments = new BulkAdjustments(this.storage, restrictions);
+        boolean deltas = this.storage.deltas();
+        for(int i = 0; i < operations.size(); i++) {
+            BulkOperation operation = operations.get(i);
+            if(pre.cancelled(i)) {
+                results[i] = EconomyResultType.CANCELLED;
+            } else if(operation.account() instanceof ImpactorAccount account) {
+                if(deltas && BulkAdjustments.supports(operation)) {
+                    adjustments.add(i, account, operation, results);
+                    continue;
+                }
+
+                // Operations are applied in order, so any earlier adjustments must be applied first
+                adjustments.apply(results);
+                EconomyRestrictions.Limits limits = restrictions.limits(account.currency());
+                results[i] = account.apply(operation.type(), operation.amount(), restrictions.enabled(), limits);
+            } else {
+                results[i] = EconomyResultType.FAILED;
+            }
+        }
+        adjustments.apply(results);
+        this.storage.commit();
+
+        List<EconomyTransaction> transactions = Lists.newArrayListWithCapacity(operations.size());
+        for(int i = 0; i < operations.size(); i++) {
+            transactions.add(operations.get(i).transaction(results[i]));
+        }
+
+        try {
+            Impactor.instance().events().post(new ImpactorEconomyBulkTransactionEvent.Post(transactions)).raise();
+        } catch (PostResult.CompositeException e) {
+            ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+        }
+
+        return transactions;
+    }
+
+    /**
+     * Creates an empty group of operations, which will be applied all-or-nothing once committed.
+     *
+     * @return A new transaction group
+     */
+    public TransactionGroup group() {
+        return new TransactionGroup(this);
+    }
+
+    /**
+     * Loads and pins the accounts of a player who has joined the server, so their balances can be
+     * served from memory for as long as they remain online.
+     *
+     * @param player The UUID of the joining player
+     * @return A future completing once the player's accounts are loaded
+     */
+    public CompletableFuture<Void> preload(UUID player) {
+        return this.storage.preload(player);
+    }
+
+    /**
+     * Writes and evicts the accounts of a player who has left the server.
+     *
+     * @param player The UUID of the departing player
+     * @return A future completing once the player's accounts have been written and evicted
+     */
+    public CompletableFuture<Void> release(UUID player) {
+        return this.storage.release(player);
+    }
+
     @Override
     public CompletableFuture<Boolean> hasAccount(Currency currency, UUID uuid) {
         return this.storage.hasAccount(currency, uuid);
@@ -0,0 +1,90 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.accounts;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Striped;
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.kyori.adventure.key.Key;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * Provides the locks guarding balance mutation for accounts. Locks are striped by the currency and
+ * owner of an account rather than by account instance, so two instances representing the same account
+ * still exclude one another.
+ *
+ * <p>Operations which span several accounts must acquire their locks through
+ * {@link #acquire(Collection, Supplier)}, which always locks stripes in the same global order. This
+ * prevents two opposing transfers from deadlocking against each other.
+ */
+public final class AccountLocks {
+
+    private static final Striped<Lock> LOCKS = Striped.lock(Runtime.getRuntime().availableProcessors() * 64);
+
+    public static <T> T acquire(Account account, Supplier<T> action) {
+        Lock lock = LOCKS.get(Identity.of(account));
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static <T> T acquire(Collection<? extends Account> accounts, Supplier<T> action) {
+        List<Identity> identities = Lists.newArrayListWithCapacity(accounts.size());
+        accounts.forEach(account -> identities.add(Identity.of(account)));
+
+        List<Lock> locks = Lists.newArrayList(LOCKS.bulkGet(identities));
+        int acquired = 0;
+        try {
+            for(Lock lock : locks) {
+                lock.lock();
+                acquired++;
+            }
+
+            return action.get();
+        } finally {
+            for(int i = acquired - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    private record Identity(Key currency, UUID owner) {
+
+        private static Identity of(Account account) {
+            return new Identity(account.currency().key(), account.owner());
+        }
+
+    }
+
+}
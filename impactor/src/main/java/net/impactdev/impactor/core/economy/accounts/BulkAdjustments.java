@@ -0,0 +1,154 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.accounts;
+
+import com.google.common.collect.Lists;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyResultType;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyTransactionType;
+import net.impactdev.impactor.api.utility.ExceptionPrinter;
+import net.impactdev.impactor.core.economy.EconomyRestrictions;
+import net.impactdev.impactor.core.economy.storage.BalanceAdjustment;
+import net.impactdev.impactor.core.economy.storage.EconomyStorage;
+import net.impactdev.impactor.core.economy.transactions.bulk.BulkOperation;
+import net.impactdev.impactor.core.plugin.BaseImpactorPlugin;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Collects the deposits and withdrawals of a bulk transaction so they may be applied as storage-side
+ * deltas through a single call to {@link EconomyStorage#adjust(List)}, rather than a round-trip per
+ * operation. As the batched call is all-or-nothing, an adjustment falling outside its bounds is removed
+ * and the remainder retried, so each rejected operation costs one further round-trip.
+ */
+public final class BulkAdjustments {
+
+    private final EconomyStorage storage;
+    private final EconomyRestrictions restrictions;
+    private final List<Pending> pending = Lists.newArrayList();
+
+    public BulkAdjustments(EconomyStorage storage, EconomyRestrictions restrictions) {
+        this.storage = storage;
+        this.restrictions = restrictions;
+    }
+
+    /**
+     * Indicates whether the given operation can be applied as a delta.
+     *
+     * @param operation The operation to check
+     * @return true if the operation is a deposit or withdrawal
+     */
+    public static boolean supports(BulkOperation operation) {
+        return operation.type() == EconomyTransactionType.DEPOSIT || operation.type() == EconomyTransactionType.WITHDRAW;
+    }
+
+    public boolean isEmpty() {
+        return this.pending.isEmpty();
+    }
+
+    /**
+     * Queues an operation to be applied by the next call to {@link #apply(EconomyResultType[])}. Operations
+     * which would overflow the balance held in memory are rejected immediately.
+     *
+     * @param index The index the result of the operation should be reported at
+     * @param account The account of the operation
+     * @param operation The operation, which must be {@link #supports(BulkOperation) supported}
+     * @param results The results of the bulk transaction
+     */
+    public void add(int index, ImpactorAccount account, BulkOperation operation, EconomyResultType[] results) {
+        boolean restrict = this.restrictions.enabled();
+        EconomyRestrictions.Limits limits = this.restrictions.limits(account.currency());
+
+        BalanceAdjustment adjustment;
+        EconomyResultType rejection;
+        if(operation.type() == EconomyTransactionType.WITHDRAW) {
+            BigDecimal floor = restrict ? limits.minimum().max(BigDecimal.ZERO) : BigDecimal.ZERO;
+            adjustment = new BalanceAdjustment(account, operation.amount().negate(), floor, null);
+            rejection = EconomyResultType.NOT_ENOUGH_FUNDS;
+        } else {
+            adjustment = new BalanceAdjustment(account, operation.amount(), null, restrict ? limits.maximum() : null);
+            rejection = EconomyResultType.NO_REMAINING_SPACE;
+        }
+
+        long delta = ScaledBalance.bound(adjustment.amount(), account.currency().decimals());
+        if(ScaledBalance.overflows(account.scaled(), delta)) {
+            results[index] = reject(account, operation, rejection);
+            return;
+        }
+
+        this.pending.add(new Pending(index, account, operation, adjustment, delta, rejection));
+    }
+
+    /**
+     * Applies every queued operation, reporting the result of each within the given results. Operations
+     * which were applied are then reflected by the balances held in memory.
+     *
+     * @param results The results of the bulk transaction
+     */
+    public void apply(EconomyResultType[] results) {
+        List<Pending> remaining = Lists.newArrayList(this.pending);
+        this.pending.clear();
+
+        while(!remaining.isEmpty()) {
+            int rejected;
+            try {
+                rejected = this.storage.adjust(remaining.stream().map(Pending::adjustment).toList());
+            } catch (Exception e) {
+                ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+                remaining.forEach(entry -> results[entry.index()] = reject(entry.account(), entry.operation(), EconomyResultType.FAILED));
+                return;
+            }
+
+            if(rejected < 0) {
+                break;
+            }
+
+            Pending entry = remaining.remove(rejected);
+            results[entry.index()] = reject(entry.account(), entry.operation(), entry.rejection());
+        }
+
+        for(Pending entry : remaining) {
+            ImpactorAccount account = entry.account();
+            AccountLocks.acquire(account, () -> {
+                long before = account.scaled();
+                account.scaled(Math.addExact(before, entry.delta()));
+                account.record(entry.operation().type(), entry.operation().amount(), before, account.scaled(), EconomyResultType.SUCCESS, null);
+                return null;
+            });
+            this.storage.changed(account);
+            results[entry.index()] = EconomyResultType.SUCCESS;
+        }
+    }
+
+    private static EconomyResultType reject(ImpactorAccount account, BulkOperation operation, EconomyResultType result) {
+        long balance = account.scaled();
+        account.record(operation.type(), operation.amount(), balance, balance, result, null);
+        return result;
+    }
+
+    private record Pending(int index, ImpactorAccount account, BulkOperation operation, BalanceAdjustment adjustment, long delta, EconomyResultType rejection) {}
+
+}
@@ -27,8 +27,6 @@ package net.impactdev.impactor.core.economy.accounts;
 
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import net.impactdev.impactor.api.Impactor;
-import net.impactdev.impactor.api.configuration.Config;
-import net.impactdev.impactor.api.configuration.key.ConfigKey;
 import net.impactdev.impactor.api.economy.EconomyService;
 import net.impactdev.impactor.api.economy.accounts.Account;
 import net.impactdev.impactor.api.economy.currency.Currency;
@@ -40,23 +38,29 @@ import net.impactdev.impactor.api.economy.transactions.EconomyTransaction;
 import net.impactdev.impactor.api.economy.transactions.details.EconomyTransactionType;
 import net.impactdev.impactor.api.economy.transactions.EconomyTransferTransaction;
 import net.impactdev.impactor.api.events.ImpactorEvent;
+import net.impactdev.impactor.api.utility.ExceptionPrinter;
 import net.impactdev.impactor.api.utility.printing.PrettyPrinter;
-import net.impactdev.impactor.core.economy.EconomyConfig;
+import net.impactdev.impactor.core.economy.EconomyRestrictions;
 import net.impactdev.impactor.core.economy.ImpactorEconomyService;
 import net.impactdev.impactor.core.economy.events.ImpactorEconomyTransactionEvent;
 import net.impactdev.impactor.core.economy.events.ImpactorEconomyTransferTransactionEvent;
+import net.impactdev.impactor.core.economy.ledger.EconomyLedger;
+import net.impactdev.impactor.core.economy.storage.BalanceAdjustment;
 import net.impactdev.impactor.core.economy.transactions.ImpactorEconomyTransaction;
 import net.impactdev.impactor.core.economy.transactions.ImpactorEconomyTransferTransaction;
 import net.impactdev.impactor.core.economy.transactions.composers.BaseTransactionComposer;
 import net.impactdev.impactor.core.economy.transactions.composers.TransferTransactionComposer;
 import net.impactdev.impactor.core.plugin.BaseImpactorPlugin;
 import net.impactdev.impactor.core.utility.future.Futures;
+import net.impactdev.impactor.core.utility.future.MainThreadExecutor;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import net.kyori.event.PostResult;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -67,14 +71,22 @@ import java.util.function.Supplier;
 
 public final class ImpactorAccount implements Account {
 
-    private final ImpactorEconomyService service = (ImpactorEconomyService) Impactor.instance()
-            .services()
-            .provide(EconomyService.class);
+    /**
+     * The economy service, resolved once upon first use rather than by every account. Accounts are
+     * frequently created in large numbers, such as when ranking balances, and rarely need the service.
+     */
+    private static volatile ImpactorEconomyService service;
 
     private final UUID owner;
     private final Currency currency;
     private final boolean virtual;
-    private BigDecimal balance;
+
+    /**
+     * The balance of this account in fixed-point form, counting units of the smallest fraction supported
+     * by the currency. See {@link ScaledBalance} for details.
+     */
+    private final int scale;
+    private volatile long balance;
 
     private ImpactorAccount(ImpactorAccountBuilder builder) {
         this(builder.currency, builder.owner, builder.virtual, Optional.ofNullable(builder.balance).orElse(builder.currency.defaultAccountBalance()));
@@ -83,7 +95,8 @@ public final class ImpactorAccount implements Account {
     private ImpactorAccount(Currency currency, UUID owner, boolean virtual, BigDecimal balance) {
         this.owner = owner;
         this.currency = currency;
-        this.balance = balance;
+        this.scale = currency.decimals();
+        this.balance = ScaledBalance.scale(balance, this.scale);
         this.virtual = virtual;
     }
 
@@ -108,7 +121,7 @@ public final class ImpactorAccount implements Account {
 
     @Override
     public @NotNull BigDecimal balance() {
-        return this.balance;
+        return ScaledBalance.decimal(this.balance, this.scale);
     }
 
     @Override
@@ -131,19 +144,14 @@ public final class ImpactorAccount implements Account {
 
                     EconomyTransactionEvent.Pre pre = this.createAndFirePre(amount, EconomyTransactionType.SET);
                     if(pre.cancelled()) {
+                        this.record(EconomyTransactionType.SET, amount, EconomyResultType.CANCELLED, null);
                         return this.complete(builder, EconomyResultType.CANCELLED, composer.messages());
                     }
 
-                    boolean restrict = this.restriction(EconomyConfig.APPLY_RESTRICTIONS).orElse(false);
-                    if(amount.signum() < 0) {
-                        return this.createAndFirePost(this.complete(builder, EconomyResultType.INVALID, composer.messages()));
-                    } else if(restrict && this.restriction(EconomyConfig.MAX_BALANCE).map(value -> amount.compareTo(value) > 0).orElse(false)) {
-                        return this.createAndFirePost(this.complete(builder, EconomyResultType.INVALID, composer.messages()));
-                    } else {
-                        this.balance = amount;
-                        this.save();
-                        return this.createAndFirePost(this.complete(builder, EconomyResultType.SUCCESS, composer.messages()));
-                    }
+                    EconomyRestrictions restrictions = service().restrictions();
+                    EconomyResultType outcome = this.applySet(amount, restrictions.enabled(), restrictions.limits(this.currency));
+                    service().storage().commit();
+                    return this.createAndFirePost(this.complete(builder, outcome, composer.messages()));
                 }, () -> ImpactorEconomyTransaction.builder()
                         .currency(this.currency)
                         .account(this)
@@ -174,24 +182,14 @@ public final class ImpactorAccount implements Account {
 
                     EconomyTransactionEvent.Pre pre = this.createAndFirePre(amount, EconomyTransactionType.WITHDRAW);
                     if(pre.cancelled()) {
+                        this.record(EconomyTransactionType.WITHDRAW, amount, EconomyResultType.CANCELLED, null);
                         return this.complete(builder, EconomyResultType.CANCELLED, composer.messages());
                     }
 
-                    BigDecimal result = this.balance.subtract(amount);
-                    if(this.restriction(EconomyConfig.APPLY_RESTRICTIONS).orElse(false)) {
-                        Optional<BigDecimal> minimum = this.restriction(EconomyConfig.MIN_BALANCE);
-                        if(minimum.isPresent() && minimum.get().compareTo(result) > 0) {
-                            return this.createAndFirePost(this.complete(builder, EconomyResultType.NOT_ENOUGH_FUNDS, composer.messages()));
-                        }
-                    }
-
-                    if(result.signum() < 0) {
-                        return this.createAndFirePost(this.complete(builder, EconomyResultType.NOT_ENOUGH_FUNDS, composer.messages()));
-                    }
-
-                    this.balance = result;
-                    this.save();
-                    return this.createAndFirePost(this.complete(builder, EconomyResultType.SUCCESS, composer.messages()));
+                    EconomyRestrictions restrictions = service().restrictions();
+                    EconomyResultType outcome = this.applyWithdraw(amount, restrictions.enabled(), restrictions.limits(this.currency)).join();
+                    service().storage().commit();
+                    return this.createAndFirePost(this.complete(builder, outcome, composer.messages()));
                 }, () -> ImpactorEconomyTransaction.builder()
                         .currency(this.currency)
                         .account(this)
@@ -222,20 +220,14 @@ public final class ImpactorAccount implements Account {
 
                     EconomyTransactionEvent.Pre pre = this.createAndFirePre(amount, EconomyTransactionType.SET);
                     if(pre.cancelled()) {
+                        this.record(EconomyTransactionType.DEPOSIT, amount, EconomyResultType.CANCELLED, null);
                         return this.complete(builder, EconomyResultType.CANCELLED, composer.messages());
                     }
 
-                    BigDecimal result = this.balance.add(amount);
-                    if(this.restriction(EconomyConfig.APPLY_RESTRICTIONS).orElse(false)) {
-                        Optional<BigDecimal> maximum = this.restriction(EconomyConfig.MAX_BALANCE);
-                        if(maximum.isPresent() && maximum.get().compareTo(result) < 0) {
-                            return this.createAndFirePost(this.complete(builder, EconomyResultType.NO_REMAINING_SPACE, composer.messages()));
-                        }
-                    }
-
-                    this.balance = result;
-                    this.save();
-                    return this.createAndFirePost(this.complete(builder, EconomyResultType.SUCCESS, composer.messages()));
+                    EconomyRestrictions restrictions = service().restrictions();
+                    EconomyResultType outcome = this.applyDeposit(amount, restrictions.enabled(), restrictions.limits(this.currency)).join();
+                    service().storage().commit();
+                    return this.createAndFirePost(this.complete(builder, outcome, composer.messages()));
                 }, () -> ImpactorEconomyTransaction.builder()
                         .currency(this.currency)
                         .account(this)
@@ -246,6 +238,151 @@ public final class ImpactorAccount implements Account {
         );
     }
 
+    /**
+     * Applies a single operation of a bulk transaction to this account. Unlike the standard transaction
+     * methods, no events are fired and the account is only staged for writing, as both are handled once
+     * for the bulk transaction as a whole. Transfers are not supported.
+     *
+     * @param type The type of operation to apply
+     * @param amount The amount of the operation
+     * @param restrict Whether balance restrictions should be enforced
+     * @param limits The configured balance limits of the currency of this account
+     * @return The result of the operation
+     */
+    public EconomyResultType apply(EconomyTransactionType type, BigDecimal amount, boolean restrict, EconomyRestrictions.Limits limits) {
+        return switch (type) {
+            case SET -> this.applySet(amount, restrict, limits);
+            case WITHDRAW -> this.applyWithdraw(amount, restrict, limits).join();
+            case DEPOSIT -> this.applyDeposit(amount, restrict, limits).join();
+            case RESET -> this.applyReset(limits);
+            default -> {
+                this.record(type, amount, EconomyResultType.INVALID, null);
+                yield EconomyResultType.INVALID;
+            }
+        };
+    }
+
+    private EconomyResultType applySet(BigDecimal amount, boolean restrict, EconomyRestrictions.Limits limits) {
+        return this.applyLocally(EconomyTransactionType.SET, amount, restrict, limits);
+    }
+
+    private CompletableFuture<EconomyResultType> applyWithdraw(BigDecimal amount, boolean restrict, EconomyRestrictions.Limits limits) {
+        if(service().storage().deltas()) {
+            BigDecimal floor = restrict ? limits.minimum().max(BigDecimal.ZERO) : BigDecimal.ZERO;
+            return this.adjust(EconomyTransactionType.WITHDRAW, amount.negate(), floor, null, EconomyResultType.NOT_ENOUGH_FUNDS, null);
+        }
+
+        return CompletableFuture.completedFuture(this.applyLocally(EconomyTransactionType.WITHDRAW, amount, restrict, limits));
+    }
+
+    private CompletableFuture<EconomyResultType> applyDeposit(BigDecimal amount, boolean restrict, EconomyRestrictions.Limits limits) {
+        if(service().storage().deltas()) {
+            BigDecimal ceiling = restrict ? limits.maximum() : null;
+            return this.adjust(EconomyTransactionType.DEPOSIT, amount, null, ceiling, EconomyResultType.NO_REMAINING_SPACE, null);
+        }
+
+        return CompletableFuture.completedFuture(this.applyLocally(EconomyTransactionType.DEPOSIT, amount, restrict, limits));
+    }
+
+    private EconomyResultType applyReset(EconomyRestrictions.Limits limits) {
+        return this.applyLocally(EconomyTransactionType.RESET, this.currency.defaultAccountBalance(), false, limits);
+    }
+
+    private EconomyResultType applyLocally(EconomyTransactionType type, BigDecimal amount, boolean restrict, EconomyRestrictions.Limits limits) {
+        return AccountLocks.acquire(this, () -> {
+            long before = this.balance;
+            EconomyResultType result = this.tentative(type, amount, restrict, limits);
+            if(result == EconomyResultType.SUCCESS) {
+                this.stage();
+            }
+
+            this.record(type, amount, before, this.balance, result, null);
+            return result;
+        });
+    }
+
+    /**
+     * Applies an operation to the in-memory balance of this account alone, leaving the caller responsible
+     * for persisting the change or reverting it through {@link #scaled(long)}. The caller must hold the
+     * lock of this account through {@link AccountLocks}.
+     *
+     * @param type The type of operation to apply
+     * @param amount The amount of the operation. For resets, this is expected to be the default balance
+     * of the currency
+     * @param restrict Whether balance restrictions should be enforced
+     * @param limits The configured balance limits of the currency of this account
+     * @return The result of the operation. The balance is only modified if this is a success
+     */
+    EconomyResultType tentative(EconomyTransactionType type, BigDecimal amount, boolean restrict, EconomyRestrictions.Limits limits) {
+        long before = this.balance;
+        switch (type) {
+            case SET -> {
+                if(amount.signum() < 0 || ScaledBalance.bound(amount, this.scale) == Long.MAX_VALUE) {
+                    return EconomyResultType.INVALID;
+                }
+
+                if(restrict && amount.compareTo(limits.maximum()) > 0) {
+                    return EconomyResultType.INVALID;
+                }
+
+                this.balance = ScaledBalance.scale(amount, this.scale);
+            }
+            case WITHDRAW -> {
+                long floor = restrict ? Math.max(0, limits.scaledMinimum()) : 0;
+                long result;
+                try {
+                    result = Math.subtractExact(before, ScaledBalance.bound(amount, this.scale));
+                } catch (ArithmeticException e) {
+                    return EconomyResultType.NOT_ENOUGH_FUNDS;
+                }
+
+                if(result < floor) {
+                    return EconomyResultType.NOT_ENOUGH_FUNDS;
+                }
+
+                this.balance = result;
+            }
+            case DEPOSIT -> {
+                long ceiling = restrict ? limits.scaledMaximum() : Long.MAX_VALUE;
+                long result;
+                try {
+                    result = Math.addExact(before, ScaledBalance.bound(amount, this.scale));
+                } catch (ArithmeticException e) {
+                    return EconomyResultType.NO_REMAINING_SPACE;
+                }
+
+                if(result > ceiling) {
+                    return EconomyResultType.NO_REMAINING_SPACE;
+                }
+
+                this.balance = result;
+            }
+            case RESET -> this.balance = ScaledBalance.scale(amount, this.scale);
+            default -> {
+                return EconomyResultType.INVALID;
+            }
+        }
+
+        return EconomyResultType.SUCCESS;
+    }
+
+    /**
+     * Provides the balance of this account in its fixed-point form, such that it may later be restored
+     * through {@link #scaled(long)}.
+     */
+    long scaled() {
+        return this.balance;
+    }
+
+    /**
+     * Replaces the balance of this account with the given fixed-point balance, such as one previously
+     * captured through {@link #scaled()}. The caller must hold the lock of this account through
+     * {@link AccountLocks}.
+     */
+    void scaled(long balance) {
+        this.balance = balance;
+    }
+
     @Override
     public @NotNull EconomyTransferTransaction transfer(Account to, BigDecimal amount) {
         return EconomyTransferTransaction.compose()
@@ -267,12 +404,14 @@ public final class ImpactorAccount implements Account {
                         .amount(amount);
 
                 if(!this.currency.key().equals(to.currency().key())) {
-                    if(!this.restriction(EconomyConfig.ALLOW_TRANSFER_CROSS_CURRENCY).orElse(true)) {
+                    if(!service().restrictions().crossCurrencyTransfers()) {
+                        this.record(EconomyTransactionType.TRANSFER, amount, EconomyResultType.INVALID, to.owner());
                         return this.complete(builder, EconomyResultType.INVALID, composer.messages());
                     }
                 }
 
-                if(composer.amount().doubleValue() < 1) {
+                if(composer.amount().compareTo(BigDecimal.ONE) < 0) {
+                    this.record(EconomyTransactionType.TRANSFER, amount, EconomyResultType.FAILED, to.owner());
                     return this.complete(builder, EconomyResultType.FAILED, composer.messages());
                 }
 
@@ -285,39 +424,29 @@ public final class ImpactorAccount implements Account {
 
                 this.postAndVerify(event);
                 if(event.cancelled()) {
+                    this.record(EconomyTransactionType.TRANSFER, amount, EconomyResultType.CANCELLED, to.owner());
                     return this.complete(builder, EconomyResultType.CANCELLED, composer.messages());
                 }
 
-                BigDecimal withdraw = this.balance.subtract(amount);
-                BigDecimal deposit = to.balance().add(amount);
-                if(this.restriction(EconomyConfig.APPLY_RESTRICTIONS).orElse(false)) {
-                    Optional<BigDecimal> minimum = this.restriction(EconomyConfig.MIN_BALANCE);
-                    Optional<BigDecimal> maximum = this.restriction(EconomyConfig.MAX_BALANCE);
-                    if(maximum.isPresent() && maximum.get().compareTo(deposit) < 0) {
-                        EconomyTransferTransactionEvent.Post post = new ImpactorEconomyTransferTransactionEvent.Post(
-                                this.complete(builder, EconomyResultType.NO_REMAINING_SPACE, composer.messages())
-                        );
-                        this.postAndVerify(post);
-                        return post.transaction();
-                    }
-
-                    if(minimum.isPresent() && minimum.get().compareTo(withdraw) > 0) {
-                        EconomyTransferTransactionEvent.Post post = new ImpactorEconomyTransferTransactionEvent.Post(
-                                this.complete(builder, EconomyResultType.NOT_ENOUGH_FUNDS, composer.messages())
-                        );
-                        this.postAndVerify(post);
-                        return post.transaction();
-                    }
+                EconomyRestrictions restrictions = service().restrictions();
+                boolean restrict = restrictions.enabled();
+                EconomyRestrictions.Limits source = restrictions.limits(this.currency);
+                EconomyRestrictions.Limits target = restrictions.limits(to.currency());
+                EconomyResultType outcome;
+                if(service().storage().deltas()) {
+                    outcome = this.transferByDelta(
+                            (ImpactorAccount) to,
+                            amount,
+                            restrict ? source.minimum() : null,
+                            restrict ? target.maximum() : null
+                    );
+                } else {
+                    outcome = this.transferLocally(to, amount, restrict, source, target);
+                    service().storage().commit();
                 }
 
-                this.balance = this.balance.subtract(amount);
-                ((ImpactorAccount) to).quietSet(to.balance().add(amount));
-
-                this.save();
-                ((ImpactorAccount) to).save();
-
                 EconomyTransferTransactionEvent.Post post = new ImpactorEconomyTransferTransactionEvent.Post(
-                        this.complete(builder, EconomyResultType.SUCCESS, composer.messages())
+                        this.complete(builder, outcome, composer.messages())
                 );
                 this.postAndVerify(post);
                 return post.transaction();
@@ -331,6 +460,138 @@ public final class ImpactorAccount implements Account {
         );
     }
 
+    private EconomyResultType transferLocally(Account to, BigDecimal amount, boolean restrict, EconomyRestrictions.Limits source, EconomyRestrictions.Limits destination) {
+        ImpactorAccount target = (ImpactorAccount) to;
+
+        // The accounts may belong to currencies of differing scales, so the amount is scaled for each
+        long withdrawn = ScaledBalance.bound(amount, this.scale);
+        long deposited = ScaledBalance.bound(amount, target.scale);
+        long floor = restrict ? source.scaledMinimum() : Long.MIN_VALUE;
+        long ceiling = restrict ? destination.scaledMaximum() : Long.MAX_VALUE;
+        return AccountLocks.acquire(List.of(this, to), () -> {
+            long source = this.balance;
+            long destination = target.balance;
+            long withdraw;
+            long deposit;
+            try {
+                deposit = Math.addExact(destination, deposited);
+            } catch (ArithmeticException e) {
+                return this.reject(EconomyTransactionType.TRANSFER, amount, source, EconomyResultType.NO_REMAINING_SPACE, to.owner());
+            }
+
+            try {
+                withdraw = Math.subtractExact(source, withdrawn);
+            } catch (ArithmeticException e) {
+                return this.reject(EconomyTransactionType.TRANSFER, amount, source, EconomyResultType.NOT_ENOUGH_FUNDS, to.owner());
+            }
+
+            if(deposit > ceiling) {
+                return this.reject(EconomyTransactionType.TRANSFER, amount, source, EconomyResultType.NO_REMAINING_SPACE, to.owner());
+            }
+
+            if(withdraw < floor) {
+                return this.reject(EconomyTransactionType.TRANSFER, amount, source, EconomyResultType.NOT_ENOUGH_FUNDS, to.owner());
+            }
+
+            this.balance = withdraw;
+            target.quietSet(deposit);
+            service().storage().stage(List.of(this, target));
+
+            this.record(EconomyTransactionType.WITHDRAW, amount, source, this.balance, EconomyResultType.SUCCESS, to.owner());
+            target.record(EconomyTransactionType.DEPOSIT, amount, destination, target.balance, EconomyResultType.SUCCESS, this.owner);
+            return EconomyResultType.SUCCESS;
+        });
+    }
+
+    /**
+     * Transfers funds by withdrawing from this account and depositing into the target as a single group
+     * of storage-side adjustments, such that either both are applied or neither is.
+     */
+    private EconomyResultType transferByDelta(ImpactorAccount to, BigDecimal amount, @Nullable BigDecimal minimum, @Nullable BigDecimal maximum) {
+        long withdrawn = ScaledBalance.bound(amount, this.scale);
+        long deposited = ScaledBalance.bound(amount, to.scale);
+        if(ScaledBalance.overflows(this.balance, -withdrawn)) {
+            return this.reject(EconomyTransactionType.TRANSFER, amount, this.balance, EconomyResultType.NOT_ENOUGH_FUNDS, to.owner);
+        }
+
+        if(ScaledBalance.overflows(to.balance, deposited)) {
+            return this.reject(EconomyTransactionType.TRANSFER, amount, this.balance, EconomyResultType.NO_REMAINING_SPACE, to.owner);
+        }
+
+        int rejected;
+        try {
+            rejected = service().storage().adjust(List.of(
+                    new BalanceAdjustment(this, amount.negate(), minimum, null),
+                    new BalanceAdjustment(to, amount, null, maximum)
+            ));
+        } catch (Exception e) {
+            ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+            return this.reject(EconomyTransactionType.TRANSFER, amount, this.balance, EconomyResultType.FAILED, to.owner);
+        }
+
+        if(rejected >= 0) {
+            EconomyResultType result = rejected == 0 ? EconomyResultType.NOT_ENOUGH_FUNDS : EconomyResultType.NO_REMAINING_SPACE;
+            return this.reject(EconomyTransactionType.TRANSFER, amount, this.balance, result, to.owner);
+        }
+
+        AccountLocks.acquire(List.of(this, to), () -> {
+            long source = this.balance;
+            this.balance = Math.subtractExact(source, withdrawn);
+            this.record(EconomyTransactionType.WITHDRAW, amount, source, this.balance, EconomyResultType.SUCCESS, to.owner);
+
+            long destination = to.balance;
+            to.balance = Math.addExact(destination, deposited);
+            to.record(EconomyTransactionType.DEPOSIT, amount, destination, to.balance, EconomyResultType.SUCCESS, this.owner);
+            return null;
+        });
+        service().storage().changed(this);
+        service().storage().changed(to);
+        return EconomyResultType.SUCCESS;
+    }
+
+    /**
+     * Applies a balance change through the underlying storage, and reflects it locally once the storage
+     * has accepted it. The round-trip to the storage runs on the storage executor, so the calling thread
+     * is only held where the transaction API itself requires the result before returning.
+     *
+     * @param type The type of transaction to record the change as within the ledger
+     * @param amount The amount to add to the balance, negative to subtract
+     * @param minimum The lowest balance the account may hold afterwards, or null if unbounded
+     * @param maximum The highest balance the account may hold afterwards, or null if unbounded
+     * @param rejection The result to report should the change fall outside the bounds
+     * @param counterparty The owner of the account on the other side of a transfer, or null otherwise
+     * @return A future supplying the result of the change
+     */
+    private CompletableFuture<EconomyResultType> adjust(EconomyTransactionType type, BigDecimal amount, @Nullable BigDecimal minimum, @Nullable BigDecimal maximum, EconomyResultType rejection, @Nullable UUID counterparty) {
+        long delta = ScaledBalance.bound(amount, this.scale);
+        if(ScaledBalance.overflows(this.balance, delta)) {
+            this.record(type, amount.abs(), rejection, counterparty);
+            return CompletableFuture.completedFuture(rejection);
+        }
+
+        return service().storage().adjust(this, amount, minimum, maximum)
+                .handle((applied, error) -> {
+                    if(error != null) {
+                        this.record(type, amount.abs(), EconomyResultType.FAILED, counterparty);
+                        return EconomyResultType.FAILED;
+                    }
+
+                    if(!applied) {
+                        this.record(type, amount.abs(), rejection, counterparty);
+                        return rejection;
+                    }
+
+                    AccountLocks.acquire(this, () -> {
+                        long before = this.balance;
+                        this.balance = Math.addExact(before, delta);
+                        this.record(type, amount.abs(), before, this.balance, EconomyResultType.SUCCESS, counterparty);
+                        return null;
+                    });
+                    service().storage().changed(this);
+                    return EconomyResultType.SUCCESS;
+                });
+    }
+
     @Override
     public @NotNull EconomyTransaction reset() {
         return EconomyTransaction.compose()
@@ -350,11 +611,12 @@ public final class ImpactorAccount implements Account {
 
                     EconomyTransactionEvent.Pre pre = this.createAndFirePre(amount, EconomyTransactionType.RESET);
                     if(pre.cancelled()) {
+                        this.record(EconomyTransactionType.RESET, this.currency.defaultAccountBalance(), EconomyResultType.CANCELLED, null);
                         return builder.result(EconomyResultType.CANCELLED).build();
                     }
 
-                    this.balance = this.currency.defaultAccountBalance();
-                    this.save();
+                    this.applyReset(service().restrictions().limits(this.currency));
+                    service().storage().commit();
                     return this.createAndFirePost(builder.result(EconomyResultType.SUCCESS).build());
                 }, () -> ImpactorEconomyTransaction.builder()
                         .currency(this.currency)
@@ -366,12 +628,52 @@ public final class ImpactorAccount implements Account {
         );
     }
 
-    private void quietSet(BigDecimal amount) {
+    private void quietSet(long amount) {
         this.balance = amount;
     }
 
-    private void save() {
-        this.service.storage().save(this);
+    /**
+     * Replaces the balance of this account with the balance most recently written to storage by another
+     * server. The caller must hold the lock of this account through {@link AccountLocks}.
+     *
+     * @param balance The balance held by storage
+     */
+    public void synchronize(BigDecimal balance) {
+        this.balance = ScaledBalance.scale(balance, this.scale);
+    }
+
+    /**
+     * Marks this account as modified without triggering a write, which is left to a later
+     * {@link net.impactdev.impactor.core.economy.storage.EconomyStorage#commit()}. This must be invoked
+     * while the lock of this account is held, so that the account is marked as modified before any other
+     * server's change can be applied over it.
+     */
+    private void stage() {
+        service().storage().stage(this);
+    }
+
+    /**
+     * Records a transaction which left the balance of this account untouched to the ledger.
+     */
+    private void record(EconomyTransactionType type, BigDecimal amount, EconomyResultType result, @Nullable UUID counterparty) {
+        long balance = this.balance;
+        this.record(type, amount, balance, balance, result, counterparty);
+    }
+
+    /**
+     * Records a transaction to the ledger. Balance changes should be recorded while the lock of this
+     * account is held, so that entries for the account are recorded in the order they were applied.
+     */
+    void record(EconomyTransactionType type, BigDecimal amount, long before, long after, EconomyResultType result, @Nullable UUID counterparty) {
+        EconomyLedger ledger = service().storage().ledger();
+        if(ledger.enabled()) {
+            ledger.record(this, type, amount, ScaledBalance.decimal(before, this.scale), ScaledBalance.decimal(after, this.scale), result, counterparty);
+        }
+    }
+
+    private EconomyResultType reject(EconomyTransactionType type, BigDecimal amount, long balance, EconomyResultType result, @Nullable UUID counterparty) {
+        this.record(type, amount, balance, balance, result, counterparty);
+        return result;
     }
 
     private void postAndVerify(@NotNull ImpactorEvent event) throws PostResult.CompositeException {
@@ -411,19 +713,19 @@ public final class ImpactorAccount implements Account {
                         p.newline();
                     });
 
-            Impactor.instance().scheduler().sync().execute(() -> printer.log(BaseImpactorPlugin.instance().logger(), PrettyPrinter.Level.ERROR));
+            MainThreadExecutor.sync(MainThreadExecutor.Priority.LOW).execute(() -> printer.log(BaseImpactorPlugin.instance().logger(), PrettyPrinter.Level.ERROR));
             return fallback.get();
         }
     }
 
-    private <T> Optional<T> restriction(ConfigKey<T> key) {
-        EconomyService service = Impactor.instance().services().provide(EconomyService.class);
-        if(service instanceof ImpactorEconomyService) {
-            Config config = ((ImpactorEconomyService) service).config();
-            return Optional.of(config.get(key));
+    private static ImpactorEconomyService service() {
+        ImpactorEconomyService result = service;
+        if(result == null) {
+            result = (ImpactorEconomyService) Impactor.instance().services().provide(EconomyService.class);
+            service = result;
         }
 
-        return Optional.empty();
+        return result;
     }
 
     private EconomyTransaction complete(ImpactorEconomyTransaction.TransactionBuilder builder, EconomyResultType type, Map<EconomyResultType, Supplier<Component>> messages) {
@@ -464,7 +766,7 @@ public final class ImpactorAccount implements Account {
 
         private Currency currency;
         private UUID owner;
-        private BigDecimal balance;
+        private volatile BigDecimal balance;
         private boolean virtual;
 
         @Override
@@ -0,0 +1,96 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.accounts;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Converts balances between their API representation and the fixed-point representation held by
+ * accounts. A fixed-point balance is a long counting units of the smallest fraction a currency
+ * supports, as specified by {@link net.impactdev.impactor.api.economy.currency.Currency#decimals()}.
+ * With a scale of 2, a balance of 12.34 is held as 1234.
+ *
+ * <p>Arithmetic on fixed-point balances is performed with {@link Math#addExact(long, long)} and
+ * {@link Math#subtractExact(long, long)}, so a result which leaves the range of a long is reported
+ * rather than silently wrapping around.
+ */
+public final class ScaledBalance {
+
+    /**
+     * Converts a value to its fixed-point representation. Digits beyond the given scale are rounded
+     * half even.
+     *
+     * @param value The value to convert
+     * @param scale The number of decimal places represented by the fixed-point value
+     * @return The fixed-point representation of the value
+     * @throws ArithmeticException If the value cannot be represented by a long at the given scale
+     */
+    public static long scale(BigDecimal value, int scale) {
+        return value.setScale(scale, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts a bound, such as a minimum or maximum balance, to its fixed-point representation. A bound
+     * which cannot be represented saturates to the smallest or largest fixed-point value, as no balance
+     * could ever cross it.
+     *
+     * @param value The bound to convert
+     * @param scale The number of decimal places represented by the fixed-point value
+     * @return The fixed-point representation of the bound
+     */
+    public static long bound(BigDecimal value, int scale) {
+        try {
+            return scale(value, scale);
+        } catch (ArithmeticException e) {
+            return value.signum() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Checks whether adding the given amount to a balance would leave the range of a fixed-point value.
+     *
+     * @param balance The fixed-point balance
+     * @param amount The fixed-point amount to add, negative to subtract
+     * @return true if the result cannot be represented, false otherwise
+     */
+    public static boolean overflows(long balance, long amount) {
+        long result = balance + amount;
+        return ((balance ^ result) & (amount ^ result)) < 0;
+    }
+
+    /**
+     * Converts a fixed-point value back to its API representation.
+     *
+     * @param value The fixed-point value
+     * @param scale The number of decimal places represented by the fixed-point value
+     * @return The value as a BigDecimal
+     */
+    public static BigDecimal decimal(long value, int scale) {
+        return BigDecimal.valueOf(value, scale);
+    }
+
+}
@@ -0,0 +1,263 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.accounts;
+
+import com.google.common.collect.Lists;
+import net.impactdev.impactor.api.Impactor;
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyResultType;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyTransactionType;
+import net.impactdev.impactor.api.utility.ExceptionPrinter;
+import net.impactdev.impactor.core.economy.EconomyRestrictions;
+import net.impactdev.impactor.core.economy.ImpactorEconomyService;
+import net.impactdev.impactor.core.economy.events.ImpactorEconomyBulkTransactionEvent;
+import net.impactdev.impactor.core.economy.storage.BalanceAdjustment;
+import net.impactdev.impactor.core.economy.storage.EconomyStorage;
+import net.impactdev.impactor.core.economy.transactions.bulk.BulkOperation;
+import net.impactdev.impactor.core.plugin.BaseImpactorPlugin;
+import net.kyori.event.PostResult;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A set of operations spanning any number of accounts, applied all-or-nothing. Should any operation be
+ * cancelled or rejected, no account is modified. Otherwise, every modified account is staged as a single
+ * unit, which write-behind persists either within one storage-side transaction or one journal record, so
+ * a failure part way through can never leave only some of the operations persisted.
+ *
+ * <p>Operations are applied in the order they were added, such that several operations against the same
+ * account are each verified against the balance left by those before them.
+ */
+public final class TransactionGroup {
+
+    private final ImpactorEconomyService service;
+    private final List<BulkOperation> operations = Lists.newArrayList();
+
+    public TransactionGroup(ImpactorEconomyService service) {
+        this.service = service;
+    }
+
+    public TransactionGroup deposit(Account account, BigDecimal amount) {
+        return this.add(BulkOperation.deposit(account, amount));
+    }
+
+    public TransactionGroup withdraw(Account account, BigDecimal amount) {
+        return this.add(BulkOperation.withdraw(account, amount));
+    }
+
+    public TransactionGroup set(Account account, BigDecimal amount) {
+        return this.add(BulkOperation.set(account, amount));
+    }
+
+    public TransactionGroup reset(Account account) {
+        return this.add(BulkOperation.reset(account));
+    }
+
+    public TransactionGroup add(BulkOperation operation) {
+        this.operations.add(operation);
+        return this;
+    }
+
+    public List<BulkOperation> operations() {
+        return Collections.unmodifiableList(this.operations);
+    }
+
+    /**
+     * Applies every operation of this group, or none of them. Storages applying balance changes as deltas
+     * only support deposits and withdrawals within a group, as absolute balances would override changes
+     * made by other servers.
+     *
+     * @return {@link EconomyResultType#SUCCESS} if every operation was applied, or otherwise the result
+     * which prevented the group from being applied
+     */
+    public EconomyResultType commit() {
+        List<BulkOperation> operations = List.copyOf(this.operations);
+        if(operations.isEmpty()) {
+            return EconomyResultType.SUCCESS;
+        }
+
+        List<ImpactorAccount> accounts = Lists.newArrayListWithCapacity(operations.size());
+        for(BulkOperation operation : operations) {
+            if(!(operation.account() instanceof ImpactorAccount account) || operation.amount().signum() < 0) {
+                return EconomyResultType.INVALID;
+            }
+
+            accounts.add(account);
+        }
+
+        ImpactorEconomyBulkTransactionEvent.Pre pre = new ImpactorEconomyBulkTransactionEvent.Pre(operations);
+        try {
+            Impactor.instance().events().post(pre).raise();
+        } catch (PostResult.CompositeException e) {
+            ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+            return this.reject(operations, accounts, EconomyResultType.FAILED);
+        }
+
+        if(pre.cancelled()) {
+            return this.reject(operations, accounts, EconomyResultType.CANCELLED);
+        }
+
+        EconomyRestrictions restrictions = this.service.restrictions();
+        EconomyResultType result = this.service.storage().deltas()
+                ? this.applyByDelta(operations, accounts, restrictions)
+                : this.applyLocally(operations, accounts, restrictions);
+
+        try {
+            Impactor.instance().events().post(new ImpactorEconomyBulkTransactionEvent.Post(
+                    operations.stream().map(operation -> operation.transaction(result)).toList()
+            )).raise();
+        } catch (PostResult.CompositeException e) {
+            ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+        }
+
+        return result;
+    }
+
+    private EconomyResultType applyLocally(List<BulkOperation> operations, List<ImpactorAccount> accounts, EconomyRestrictions restrictions) {
+        Set<ImpactorAccount> distinct = distinct(accounts);
+        EconomyStorage storage = this.service.storage();
+        EconomyResultType result = AccountLocks.acquire(distinct, () -> {
+            Map<ImpactorAccount, Long> snapshot = new IdentityHashMap<>();
+            distinct.forEach(account -> snapshot.put(account, account.scaled()));
+
+            long[] before = new long[operations.size()];
+            long[] after = new long[operations.size()];
+            for(int i = 0; i < operations.size(); i++) {
+                BulkOperation operation = operations.get(i);
+                ImpactorAccount account = accounts.get(i);
+
+                EconomyRestrictions.Limits limits = restrictions.limits(account.currency());
+                before[i] = account.scaled();
+                EconomyResultType result = account.tentative(operation.type(), operation.amount(), restrictions.enabled(), limits);
+                if(result != EconomyResultType.SUCCESS) {
+                    snapshot.forEach(ImpactorAccount::scaled);
+                    return this.reject(operations, accounts, result);
+                }
+                after[i] = account.scaled();
+            }
+
+            storage.stage(distinct);
+            for(int i = 0; i < operations.size(); i++) {
+                BulkOperation operation = operations.get(i);
+                accounts.get(i).record(operation.type(), operation.amount(), before[i], after[i], EconomyResultType.SUCCESS, null);
+            }
+
+            return EconomyResultType.SUCCESS;
+        });
+
+        if(result == EconomyResultType.SUCCESS) {
+            storage.commit();
+        }
+
+        return result;
+    }
+
+    private EconomyResultType applyByDelta(List<BulkOperation> operations, List<ImpactorAccount> accounts, EconomyRestrictions restrictions) {
+        List<BalanceAdjustment> adjustments = Lists.newArrayListWithCapacity(operations.size());
+        long[] deltas = new long[operations.size()];
+        for(int i = 0; i < operations.size(); i++) {
+            BulkOperation operation = operations.get(i);
+            ImpactorAccount account = accounts.get(i);
+            EconomyRestrictions.Limits limits = restrictions.limits(account.currency());
+            boolean restrict = restrictions.enabled();
+
+            BalanceAdjustment adjustment;
+            EconomyResultType rejection;
+            switch (operation.type()) {
+                case WITHDRAW -> {
+                    BigDecimal floor = restrict ? limits.minimum().max(BigDecimal.ZERO) : BigDecimal.ZERO;
+                    adjustment = new BalanceAdjustment(account, operation.amount().negate(), floor, null);
+                    rejection = EconomyResultType.NOT_ENOUGH_FUNDS;
+                }
+                case DEPOSIT -> {
+                    adjustment = new BalanceAdjustment(account, operation.amount(), null, restrict ? limits.maximum() : null);
+                    rejection = EconomyResultType.NO_REMAINING_SPACE;
+                }
+                default -> {
+                    return this.reject(operations, accounts, EconomyResultType.INVALID);
+                }
+            }
+
+            deltas[i] = ScaledBalance.bound(adjustment.amount(), account.currency().decimals());
+            if(ScaledBalance.overflows(account.scaled(), deltas[i])) {
+                return this.reject(operations, accounts, rejection);
+            }
+
+            adjustments.add(adjustment);
+        }
+
+        int rejected;
+        try {
+            rejected = this.service.storage().adjust(adjustments);
+        } catch (Exception e) {
+            ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+            return this.reject(operations, accounts, EconomyResultType.FAILED);
+        }
+
+        if(rejected >= 0) {
+            boolean withdrawal = operations.get(rejected).type() == EconomyTransactionType.WITHDRAW;
+            return this.reject(operations, accounts, withdrawal ? EconomyResultType.NOT_ENOUGH_FUNDS : EconomyResultType.NO_REMAINING_SPACE);
+        }
+
+        Set<ImpactorAccount> distinct = distinct(accounts);
+        AccountLocks.acquire(distinct, () -> {
+            for(int i = 0; i < operations.size(); i++) {
+                ImpactorAccount account = accounts.get(i);
+                long before = account.scaled();
+                account.scaled(Math.addExact(before, deltas[i]));
+                account.record(operations.get(i).type(), operations.get(i).amount(), before, account.scaled(), EconomyResultType.SUCCESS, null);
+            }
+
+            return null;
+        });
+        distinct.forEach(this.service.storage()::changed);
+        return EconomyResultType.SUCCESS;
+    }
+
+    /**
+     * Records every operation of the group to the ledger as having been prevented by the given result.
+     */
+    private EconomyResultType reject(List<BulkOperation> operations, List<ImpactorAccount> accounts, EconomyResultType result) {
+        for(int i = 0; i < operations.size(); i++) {
+            long balance = accounts.get(i).scaled();
+            accounts.get(i).record(operations.get(i).type(), operations.get(i).amount(), balance, balance, result, null);
+        }
+
+        return result;
+    }
+
+    private static Set<ImpactorAccount> distinct(List<ImpactorAccount> accounts) {
+        Set<ImpactorAccount> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinct.addAll(accounts);
+        return distinct;
+    }
+
+}
@@ -103,12 +103,12 @@ public class ImpactorCurrency implements Currency {
     @Override
     public Component format(@NotNull BigDecimal amount, boolean condensed, @NotNull Locale locale) {
         DecimalFormat formatter = new DecimalFormat(this.formatPattern, new DecimalFormatSymbols(locale));
-        Component value = text(formatter.format(amount.doubleValue()));
+        Component value = text(formatter.format(amount));
         if(condensed) {
             return this.formatting.modify(this, value);
         }
 
-        if(amount.doubleValue() == 1) {
+        if(amount.compareTo(BigDecimal.ONE) == 0) {
             return value.append(Component.space()).append(this.singular());
         } else {
             return value.append(Component.space()).append(this.plural());
@@ -0,0 +1,104 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.events;
+
+import net.impactdev.impactor.api.economy.transactions.EconomyTransaction;
+import net.impactdev.impactor.api.events.ImpactorEvent;
+import net.impactdev.impactor.core.economy.transactions.bulk.BulkOperation;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Fired once for an entire bulk transaction or transaction group, in place of the events fired for each
+ * individual transaction. As a transaction group is applied all-or-nothing, cancelling any operation of
+ * a group cancels the group as a whole.
+ */
+public abstract class ImpactorEconomyBulkTransactionEvent implements ImpactorEvent {
+
+    public static final class Pre extends ImpactorEconomyBulkTransactionEvent {
+
+        private final List<BulkOperation> operations;
+        private final BitSet cancelled;
+
+        public Pre(List<BulkOperation> operations) {
+            this.operations = operations;
+            this.cancelled = new BitSet(operations.size());
+        }
+
+        public List<BulkOperation> operations() {
+            return this.operations;
+        }
+
+        public boolean cancelled(int index) {
+            return this.cancelled.get(index);
+        }
+
+        /**
+         * Cancels a single operation of the bulk transaction, leaving the remaining operations to be
+         * processed.
+         *
+         * @param index The index of the operation to cancel
+         */
+        public void cancel(int index) {
+            this.cancelled.set(index);
+        }
+
+        /**
+         * Indicates whether any operation has been cancelled.
+         *
+         * @return true if at least one operation has been cancelled
+         */
+        public boolean cancelled() {
+            return !this.cancelled.isEmpty();
+        }
+
+        public void cancelAll() {
+            this.cancelled.set(0, this.operations.size());
+        }
+
+    }
+
+    public static final class Post extends ImpactorEconomyBulkTransactionEvent {
+
+        private final List<EconomyTransaction> transactions;
+
+        public Post(List<EconomyTransaction> transactions) {
+            this.transactions = transactions;
+        }
+
+        /**
+         * Provides the outcome of each operation, in the same order the operations were supplied.
+         *
+         * @return The transactions representing each operation
+         */
+        public List<EconomyTransaction> transactions() {
+            return this.transactions;
+        }
+
+    }
+
+}
@@ -0,0 +1,339 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.ledger;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.impactdev.impactor.api.economy.currency.Currency;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyResultType;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyTransactionType;
+import net.impactdev.impactor.api.utility.ExceptionPrinter;
+import net.impactdev.impactor.core.plugin.BaseImpactorPlugin;
+import net.impactdev.impactor.core.utility.future.AsyncTasks;
+import net.impactdev.impactor.core.utility.future.TaskClass;
+import net.impactdev.impactor.core.utility.future.ThrowingSupplier;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Records every transaction processed by the economy into an append-only ledger. Recording a
+ * transaction only places an entry into a bounded buffer, and never blocks or allocates a future. A
+ * single writer thread drains the buffer and hands entries to storage in batches.
+ *
+ * <p>Should the buffer fill faster than storage can accept entries, further entries are dropped and
+ * reported rather than stalling the thread processing the transaction. A batch which storage fails to
+ * accept is retried before any further entries are taken from the buffer.
+ *
+ * <p>Entry IDs are led by the time they were recorded, and are paired with an origin unique to this
+ * server, so that several servers may share a ledger without their entries conflicting, and the most
+ * recent entry of an account can be found regardless of which server recorded it.
+ */
+public final class EconomyLedger {
+
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final long POLL_INTERVAL = 250;
+    private static final long RETRY_INTERVAL = 1000;
+
+    /** The number of low bits of an ID counting entries recorded within the same millisecond */
+    private static final int SEQUENCE_BITS = 12;
+
+    private final @Nullable LedgerStorage storage;
+    private final BlockingQueue<LedgerEntry> buffer;
+    private final Executor executor;
+    private final long origin = UUID.randomUUID().getMostSignificantBits();
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Entries which storage failed to accept, to be retried before any others. This is only accessed
+     * while holding {@link #writing}.
+     */
+    private final List<LedgerEntry> failed = Lists.newArrayList();
+    private boolean failing;
+
+    /**
+     * Held by whichever thread is currently moving entries from the buffer to storage. Readers acquire
+     * this lock and drain the buffer themselves, so that they observe every entry recorded before their
+     * read. The lock is fair, as the writer thread otherwise reacquires it continuously.
+     */
+    private final ReentrantLock writing = new ReentrantLock(true);
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public EconomyLedger(@Nullable LedgerStorage storage, int capacity) {
+        this(storage, capacity, AsyncTasks.executor(TaskClass.STORAGE));
+    }
+
+    public EconomyLedger(@Nullable LedgerStorage storage, int capacity, Executor executor) {
+        this.storage = storage;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.executor = executor;
+    }
+
+    /**
+     * Creates a ledger which discards everything recorded to it.
+     *
+     * @return A disabled ledger
+     */
+    public static EconomyLedger disabled() {
+        return new EconomyLedger(null, 1);
+    }
+
+    public boolean enabled() {
+        return this.storage != null;
+    }
+
+    public void start() {
+        if(!this.enabled()) {
+            return;
+        }
+
+        this.running = true;
+        this.writer = new ThreadFactoryBuilder()
+                .setNameFormat("Impactor Economy Ledger Writer")
+                .setDaemon(true)
+                .build()
+                .newThread(this::write);
+        this.writer.start();
+    }
+
+    public void shutdown() throws InterruptedException {
+        if(!this.enabled() || this.writer == null) {
+            return;
+        }
+
+        this.running = false;
+        this.writer.join(TimeUnit.SECONDS.toMillis(10));
+        if(!this.drain()) {
+            this.writing.lock();
+            try {
+                int lost = this.failed.size() + this.buffer.size();
+                BaseImpactorPlugin.instance().logger().severe("Economy ledger shut down with " + lost + " entries which could not be written");
+            } finally {
+                this.writing.unlock();
+            }
+        }
+    }
+
+    public void record(Account account, EconomyTransactionType type, BigDecimal amount, BigDecimal before, BigDecimal after, EconomyResultType result) {
+        this.record(account, type, amount, before, after, result, null);
+    }
+
+    public void record(Account account, EconomyTransactionType type, BigDecimal amount, BigDecimal before, BigDecimal after, EconomyResultType result, @Nullable UUID counterparty) {
+        if(!this.enabled()) {
+            return;
+        }
+
+        long timestamp = System.currentTimeMillis();
+        LedgerEntry entry = new LedgerEntry(
+                this.next(timestamp),
+                this.origin,
+                timestamp,
+                account.currency().key(),
+                account.owner(),
+                type,
+                amount,
+                before,
+                after,
+                result,
+                counterparty
+        );
+
+        if(!this.buffer.offer(entry)) {
+            this.dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Fetches a page of the history of an account, newest first. The ID of the last entry of a page
+     * can be supplied as the upper bound of the next page to continue paging.
+     *
+     * @param currency The currency of the account
+     * @param owner The owner of the account
+     * @param before Only entries with an ID lower than this value will be returned
+     * @param limit The maximum number of entries to return
+     * @return The entries of the page, newest first
+     */
+    public CompletableFuture<List<LedgerEntry>> history(Currency currency, UUID owner, long before, int limit) {
+        if(!this.enabled()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        return this.read(() -> this.storage.history(currency, owner, before, limit));
+    }
+
+    /**
+     * Rebuilds the balance of every account of the given currency from the ledger.
+     *
+     * @param currency The currency to rebuild balances for
+     * @return The balance of each account known to the ledger, keyed by owner
+     */
+    public CompletableFuture<Map<UUID, BigDecimal>> replay(Currency currency) {
+        if(!this.enabled()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+
+        return this.read(() -> this.storage.replay(currency));
+    }
+
+    private <T> CompletableFuture<T> read(ThrowingSupplier<T> read) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                this.drain();
+                return read.supply();
+            } catch (Exception e) {
+                ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+                throw new CompletionException(e);
+            }
+        }, this.executor);
+    }
+
+    /**
+     * Generates the ID of an entry recorded at the given time. IDs never repeat within this server, even
+     * should more entries be recorded within a millisecond than the sequence can count, or should the
+     * clock move backwards.
+     */
+    private long next(long timestamp) {
+        long earliest = timestamp << SEQUENCE_BITS;
+        return this.ids.updateAndGet(previous -> Math.max(previous + 1, earliest));
+    }
+
+    private void write() {
+        while(this.running) {
+            boolean stalled;
+            this.writing.lock();
+            try {
+                stalled = !this.retry();
+                if(!stalled) {
+                    LedgerEntry first = this.buffer.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                    if(first != null) {
+                        List<LedgerEntry> batch = Lists.newArrayListWithCapacity(MAX_BATCH_SIZE);
+                        batch.add(first);
+                        this.buffer.drainTo(batch, MAX_BATCH_SIZE - 1);
+                        stalled = !this.append(batch);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                this.writing.unlock();
+            }
+
+            if(stalled) {
+                try {
+                    Thread.sleep(RETRY_INTERVAL);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            long dropped = this.dropped.getAndSet(0);
+            if(dropped > 0) {
+                BaseImpactorPlugin.instance().logger().warn("Economy ledger buffer is full, dropped " + dropped + " entries");
+            }
+        }
+    }
+
+    /**
+     * Writes every entry within the buffer, stopping early should storage fail to accept them.
+     *
+     * @return true if every entry was written
+     */
+    private boolean drain() {
+        this.writing.lock();
+        try {
+            if(!this.retry()) {
+                return false;
+            }
+
+            List<LedgerEntry> batch = Lists.newArrayListWithCapacity(MAX_BATCH_SIZE);
+            while(this.buffer.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+                if(!this.append(batch)) {
+                    return false;
+                }
+                batch.clear();
+            }
+
+            return true;
+        } finally {
+            this.writing.unlock();
+        }
+    }
+
+    /**
+     * Attempts to write any entries which storage previously failed to accept.
+     *
+     * @return true if no failed entries remain
+     */
+    private boolean retry() {
+        if(this.failed.isEmpty()) {
+            return true;
+        }
+
+        List<LedgerEntry> batch = List.copyOf(this.failed);
+        this.failed.clear();
+        return this.append(batch);
+    }
+
+    private boolean append(List<LedgerEntry> batch) {
+        try {
+            this.storage.append(batch);
+            if(this.failing) {
+                this.failing = false;
+                BaseImpactorPlugin.instance().logger().info("Economy ledger writes have recovered");
+            }
+
+            return true;
+        } catch (Exception e) {
+            this.failed.addAll(batch);
+            if(!this.failing) {
+                this.failing = true;
+                BaseImpactorPlugin.instance().logger().severe("Failed to write " + batch.size() + " entries to the economy ledger, they will be retried");
+                ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+            }
+
+            return false;
+        }
+    }
+
+}
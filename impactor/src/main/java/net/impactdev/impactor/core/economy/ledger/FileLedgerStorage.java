@@ -0,0 +1,187 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.ledger;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.impactdev.impactor.api.economy.currency.Currency;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyResultType;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyTransactionType;
+import net.kyori.adventure.key.Key;
+
+import java.io.BufferedWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Stores the ledger as a set of plain text logs, one per account, grouped into a directory per
+ * currency. Each line of a log holds a single tab separated entry, so an account's history can be
+ * read without touching the logs of any other account.
+ */
+public final class FileLedgerStorage implements LedgerStorage {
+
+    private static final String EXTENSION = ".log";
+    private static final String NONE = "-";
+
+    private final Path root;
+
+    public FileLedgerStorage(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public void append(List<LedgerEntry> entries) throws Exception {
+        Map<Path, List<LedgerEntry>> grouped = new LinkedHashMap<>();
+        for(LedgerEntry entry : entries) {
+            grouped.computeIfAbsent(this.log(entry.currency(), entry.owner()), ignore -> Lists.newArrayList()).add(entry);
+        }
+
+        for(Map.Entry<Path, List<LedgerEntry>> group : grouped.entrySet()) {
+            Files.createDirectories(group.getKey().getParent());
+            try(BufferedWriter writer = Files.newBufferedWriter(group.getKey(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for(LedgerEntry entry : group.getValue()) {
+                    writer.write(this.serialize(entry));
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<LedgerEntry> history(Currency currency, UUID owner, long before, int limit) throws Exception {
+        Path log = this.log(currency.key(), owner);
+        if(limit <= 0 || !Files.exists(log)) {
+            return Collections.emptyList();
+        }
+
+        // Logs are read oldest first, so only the newest entries seen so far are retained
+        Deque<LedgerEntry> results = new ArrayDeque<>();
+
+        try(Stream<String> lines = Files.lines(log, StandardCharsets.UTF_8)) {
+            lines.map(line -> this.deserialize(currency.key(), owner, line))
+                    .filter(entry -> entry != null && entry.id() < before)
+                    .forEach(entry -> {
+                        if(results.size() == limit) {
+                            results.removeFirst();
+                        }
+                        results.addLast(entry);
+                    });
+        }
+
+        return Lists.newArrayList(results.descendingIterator());
+    }
+
+    @Override
+    public Map<UUID, BigDecimal> replay(Currency currency) throws Exception {
+        Path directory = this.directory(currency.key());
+        Map<UUID, BigDecimal> balances = Maps.newHashMap();
+        if(!Files.isDirectory(directory)) {
+            return balances;
+        }
+
+        try(Stream<Path> logs = Files.list(directory)) {
+            for(Path log : (Iterable<Path>) logs::iterator) {
+                String name = log.getFileName().toString();
+                if(!name.endsWith(EXTENSION)) {
+                    continue;
+                }
+
+                UUID owner = UUID.fromString(name.substring(0, name.length() - EXTENSION.length()));
+                try(Stream<String> lines = Files.lines(log, StandardCharsets.UTF_8)) {
+                    lines.map(line -> this.deserialize(currency.key(), owner, line))
+                            .filter(entry -> entry != null && entry.result() == EconomyResultType.SUCCESS)
+                            .reduce((previous, latest) -> latest)
+                            .ifPresent(entry -> balances.put(owner, entry.after()));
+                }
+            }
+        }
+
+        return balances;
+    }
+
+    private Path directory(Key currency) {
+        return this.root.resolve(currency.namespace() + "_" + currency.value().replace('/', '_'));
+    }
+
+    private Path log(Key currency, UUID owner) {
+        return this.directory(currency).resolve(owner + EXTENSION);
+    }
+
+    private String serialize(LedgerEntry entry) {
+        return String.join("\t",
+                Long.toString(entry.id()),
+                Long.toString(entry.origin()),
+                Long.toString(entry.timestamp()),
+                entry.type().name(),
+                entry.amount().toPlainString(),
+                entry.before().toPlainString(),
+                entry.after().toPlainString(),
+                entry.result().name(),
+                entry.counterparty() != null ? entry.counterparty().toString() : NONE
+        );
+    }
+
+    /**
+     * Parses a single line of a log. A line which cannot be parsed, such as one left partially written
+     * by a crash, is skipped rather than failing the entire read.
+     */
+    private LedgerEntry deserialize(Key currency, UUID owner, String line) {
+        String[] parts = line.split("\t");
+        if(parts.length != 9) {
+            return null;
+        }
+
+        try {
+            return new LedgerEntry(
+                    Long.parseLong(parts[0]),
+                    Long.parseLong(parts[1]),
+                    Long.parseLong(parts[2]),
+                    currency,
+                    owner,
+                    EconomyTransactionType.valueOf(parts[3]),
+                    new BigDecimal(parts[4]),
+                    new BigDecimal(parts[5]),
+                    new BigDecimal(parts[6]),
+                    EconomyResultType.valueOf(parts[7]),
+                    parts[8].equals(NONE) ? null : UUID.fromString(parts[8])
+            );
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+}
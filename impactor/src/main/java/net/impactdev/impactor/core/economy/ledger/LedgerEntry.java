@@ -0,0 +1,67 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.ledger;
+
+import net.impactdev.impactor.api.economy.transactions.details.EconomyResultType;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyTransactionType;
+import net.kyori.adventure.key.Key;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Represents a single transaction recorded against an account. Transfers are recorded as a withdrawal
+ * from the sending account and a deposit into the receiving account, each identifying the other account
+ * as its counterparty.
+ *
+ * @param id An identifier led by the time the entry was recorded, which increases with each entry recorded
+ *           by the same server, used to order and page entries
+ * @param origin Identifies the server which recorded the entry, so that servers sharing a ledger can
+ *               never record conflicting entries
+ * @param timestamp The time, in epoch milliseconds, the transaction was processed
+ * @param currency The key of the currency the account belongs to
+ * @param owner The owner of the account
+ * @param type The type of transaction performed
+ * @param amount The amount requested by the transaction
+ * @param before The balance of the account prior to the transaction
+ * @param after The balance of the account following the transaction
+ * @param result The outcome of the transaction
+ * @param counterparty The owner of the account on the other side of a transfer, or null otherwise
+ */
+public record LedgerEntry(
+        long id,
+        long origin,
+        long timestamp,
+        Key currency,
+        UUID owner,
+        EconomyTransactionType type,
+        BigDecimal amount,
+        BigDecimal before,
+        BigDecimal after,
+        EconomyResultType result,
+        @Nullable UUID counterparty
+) {}
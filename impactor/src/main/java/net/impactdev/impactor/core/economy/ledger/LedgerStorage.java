@@ -0,0 +1,71 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.ledger;
+
+import net.impactdev.impactor.api.economy.currency.Currency;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Represents the durable backing of the {@link EconomyLedger}. Entries are only ever appended, and
+ * are always handed over by a single writer thread.
+ */
+public interface LedgerStorage {
+
+    /**
+     * Appends a batch of entries to the ledger.
+     *
+     * @param entries The entries to append, in the order they were recorded
+     * @throws Exception If the entries could not be written
+     */
+    void append(List<LedgerEntry> entries) throws Exception;
+
+    /**
+     * Fetches a page of the history of an account, newest first.
+     *
+     * @param currency The currency of the account
+     * @param owner The owner of the account
+     * @param before Only entries with an ID lower than this value will be returned
+     * @param limit The maximum number of entries to return
+     * @return The entries of the page, newest first
+     * @throws Exception If the history could not be read
+     */
+    List<LedgerEntry> history(Currency currency, UUID owner, long before, int limit) throws Exception;
+
+    /**
+     * Computes the balance of every account of a currency according to the ledger, being the balance
+     * left by the most recent successful transaction of each account.
+     *
+     * @param currency The currency to compute balances for
+     * @return The balance of each account known to the ledger, keyed by owner
+     * @throws Exception If the ledger could not be read
+     */
+    Map<UUID, BigDecimal> replay(Currency currency) throws Exception;
+
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.storage;
+
+import net.impactdev.impactor.api.economy.accounts.Account;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Storage capable of applying balance changes as deltas, with their bounds verified by the storage
+ * itself, such that concurrent changes, even from other servers sharing the storage, are never lost and
+ * can never push a balance out of range.
+ */
+public interface BalanceDeltas {
+
+    /**
+     * Atomically adds the given amount to the stored balance of an account, so long as the resulting
+     * balance remains within the given bounds.
+     *
+     * @param account The account to adjust
+     * @param amount The amount to add to the balance, negative to subtract
+     * @param minimum The lowest balance the account may hold afterwards, or null if unbounded
+     * @param maximum The highest balance the account may hold afterwards, or null if unbounded
+     * @return true if the adjustment was applied, false if the account is not stored or the adjustment
+     * would leave its balance outside the bounds
+     * @throws Exception If the adjustment could not be performed
+     */
+    boolean adjust(Account account, BigDecimal amount, @Nullable BigDecimal minimum, @Nullable BigDecimal maximum) throws Exception;
+
+    /**
+     * Applies a group of balance adjustments within a single storage-side transaction, such that either
+     * every adjustment is applied, or none are. Adjustments are applied in order, so several adjustments
+     * to the same account have their bounds verified against the balance left by those before them.
+     *
+     * @param adjustments The adjustments to apply
+     * @return The index of the adjustment which was rejected, or -1 if every adjustment was applied
+     * @throws Exception If the adjustments could not be performed
+     */
+    int adjust(List<BalanceAdjustment> adjustments) throws Exception;
+
+}
@@ -28,48 +28,210 @@ package net.impactdev.impactor.core.economy.storage;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
-import net.impactdev.impactor.api.Impactor;
+import net.impactdev.impactor.api.economy.EconomyService;
 import net.impactdev.impactor.api.economy.accounts.Account;
 import net.impactdev.impactor.api.economy.currency.Currency;
+import net.impactdev.impactor.api.economy.currency.CurrencyProvider;
 import net.impactdev.impactor.api.platform.Platform;
 import net.impactdev.impactor.api.platform.players.PlatformPlayerService;
 import net.impactdev.impactor.api.storage.Storage;
 import net.impactdev.impactor.api.utility.ExceptionPrinter;
 import net.impactdev.impactor.api.utility.printing.PrettyPrinter;
+import net.impactdev.impactor.core.economy.accounts.AccountLocks;
+import net.impactdev.impactor.core.economy.accounts.ImpactorAccount;
+import net.impactdev.impactor.core.economy.ledger.EconomyLedger;
+import net.impactdev.impactor.core.economy.storage.invalidation.Invalidation;
+import net.impactdev.impactor.core.economy.storage.invalidation.InvalidationChannel;
+import net.impactdev.impactor.core.economy.storage.metrics.StorageMetrics;
+import net.impactdev.impactor.core.economy.storage.metrics.StorageMetrics.Operation;
+import net.impactdev.impactor.core.economy.storage.ranking.BalanceIndex;
 import net.impactdev.impactor.core.plugin.BaseImpactorPlugin;
+import net.impactdev.impactor.core.utility.future.AsyncTasks;
+import net.impactdev.impactor.core.utility.future.TaskClass;
+import net.impactdev.impactor.core.utility.future.TaskExecutor;
 import net.impactdev.impactor.core.utility.future.ThrowingRunnable;
 import net.impactdev.impactor.core.utility.future.ThrowingSupplier;
+import org.jetbrains.annotations.Nullable;
 
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public final class EconomyStorage implements Storage {
 
     private final EconomyStorageImplementation implementation;
     private final Cache<AccountKey, Account> accounts;
 
-    public EconomyStorage(EconomyStorageImplementation implementation) {
+    /**
+     * Accounts which were recently confirmed to not exist, allowing repeated lookups of unknown accounts
+     * to be answered without querying the underlying storage. Entries are discarded as soon as the account
+     * is created locally, or a change to it is received from another server. The expiry bounds how long an
+     * absence may be reported should a remote creation race with the lookup which recorded it, or go
+     * unannounced entirely, as it will without an active invalidation channel. Absences are therefore only
+     * kept for a few seconds unless changes made by other servers are being received.
+     */
+    private final Cache<AccountKey, Boolean> absent;
+
+    /**
+     * Accounts which have been modified since the last flush, keyed by their currency and owner. An
+     * account modified several times between flushes is only ever written once, with the state it held
+     * when it was last staged. Accounts staged together are written together, see {@link Staged}.
+     */
+    private final Map<AccountKey, Staged> dirty = new ConcurrentHashMap<>();
+
+    /**
+     * Prevents accounts from being removed from the dirty set while a group of accounts is being staged,
+     * so that a flush can never collect only part of a group. Staging holds the read lock, allowing any
+     * number of groups to be staged at once, whilst the write lock is only held for as long as it takes
+     * to remove entries from memory.
+     */
+    private final ReentrantReadWriteLock staging = new ReentrantReadWriteLock();
+    private final ReentrantLock flushing = new ReentrantLock();
+
+    /** Counts the writes made while holding the flush lock, allowing reads made outside of it to detect one */
+    private final AtomicLong writes = new AtomicLong();
+
+    /**
+     * The most recent write this server has made of each account, allowing changes received from a polled
+     * change feed to be recognised as either this server's own write or one that a later local write has
+     * since superseded. Entries only need to outlive the window a change feed re-delivers changes over.
+     */
+    private final Cache<AccountKey, Written> written;
+
+    private final ScheduledExecutorService flusher;
+    private final long interval;
+    private final int batch;
+    private final boolean deltas;
+    private final InvalidationChannel invalidations;
+    private final EconomyLedger ledger;
+    private final TaskExecutor executor;
+
+    private volatile CompletableFuture<Void> pending = new CompletableFuture<>();
+
+    private final Map<Currency, BalanceIndex> rankings = new ConcurrentHashMap<>();
+
+    /**
+     * Accounts of online players, held outside of the cache so that they can never expire while their
+     * owner remains online. Entries are added by {@link #preload(UUID)} and removed by {@link #release(UUID)}.
+     */
+    private final Map<AccountKey, Account> pinned = new ConcurrentHashMap<>();
+    private final Set<UUID> online = ConcurrentHashMap.newKeySet();
+
+    private final StorageMetrics metrics = new StorageMetrics();
+
+    public EconomyStorage(EconomyStorageImplementation implementation, long interval, int batch, boolean deltas, InvalidationChannel invalidations) {
+        this(implementation, interval, batch, deltas, invalidations, EconomyLedger.disabled());
+    }
+
+    public EconomyStorage(EconomyStorageImplementation implementation, long interval, int batch, boolean deltas, InvalidationChannel invalidations, EconomyLedger ledger) {
+        this(implementation, interval, batch, deltas, invalidations, ledger, AsyncTasks.executor(TaskClass.STORAGE));
+    }
+
+    public EconomyStorage(
+            EconomyStorageImplementation implementation,
+            long interval,
+            int batch,
+            boolean deltas,
+            InvalidationChannel invalidations,
+            EconomyLedger ledger,
+            TaskExecutor executor
+    ) {
         this.implementation = implementation;
+        this.executor = executor;
         this.accounts = Caffeine.newBuilder()
                 .expireAfterAccess(1, TimeUnit.HOURS)
+                .recordStats()
+                .build();
+        this.absent = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(invalidations == InvalidationChannel.none() ? 5 : 300, TimeUnit.SECONDS)
+                .build();
+        this.written = Caffeine.newBuilder()
+                .expireAfterWrite(5, TimeUnit.MINUTES)
                 .build();
+        this.interval = interval;
+        this.batch = Math.max(1, batch);
+        this.deltas = deltas;
+        this.invalidations = invalidations;
+        this.ledger = ledger;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("Impactor Economy Write-Behind")
+                .setDaemon(true)
+                .build()
+        );
     }
 
     @Override
     public void init() throws Exception {
         this.implementation.init();
+        this.invalidations.start(this::invalidate);
+        this.ledger.start();
+        if(this.interval > 0) {
+            this.flusher.scheduleWithFixedDelay(this::flush, this.interval, this.interval, TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
     public void shutdown() throws Exception {
+        this.flusher.shutdown();
+        if(!this.flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+            BaseImpactorPlugin.instance().logger().severe("Timed out waiting for the economy write-behind flush to complete");
+        }
+
+        if(!this.executor.awaitIdle(10, TimeUnit.SECONDS)) {
+            BaseImpactorPlugin.instance().logger().severe("Timed out waiting for pending economy storage tasks to complete");
+        }
+
+        this.flush();
+        this.invalidations.shutdown();
+        this.ledger.shutdown();
         this.implementation.shutdown();
     }
 
+    public EconomyLedger ledger() {
+        return this.ledger;
+    }
+
+    public EconomyStorageImplementation implementation() {
+        return this.implementation;
+    }
+
+    /**
+     * Captures the current latency, cache, and connection pool metrics of this storage. This is cheap
+     * enough to be polled frequently.
+     *
+     * @return A snapshot of the metrics of this storage
+     */
+    public StorageMetrics.Snapshot metrics() {
+        return this.metrics.snapshot(this.accounts.stats(), this.implementation.pool());
+    }
+
     @Override
     public CompletableFuture<Void> meta(PrettyPrinter printer) {
         return run(() -> this.implementation.meta(printer));
@@ -77,70 +239,806 @@ public final class EconomyStorage implements Storage {
 
     @CanIgnoreReturnValue
     public CompletableFuture<Boolean> hasAccount(Currency currency, UUID uuid) {
-        if(this.accounts.getIfPresent(AccountKey.of(currency, uuid)) != null) {
+        AccountKey key = AccountKey.of(currency, uuid);
+        if(this.cached(key) != null || this.dirty.containsKey(key)) {
             return CompletableFuture.completedFuture(true);
         }
 
-        return supply(() -> this.implementation.hasAccount(currency, uuid));
+        if(this.absent.getIfPresent(key) != null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        return supply(() -> {
+            if(this.metrics.time(Operation.HAS_ACCOUNT, () -> this.implementation.hasAccount(currency, uuid))) {
+                return true;
+            }
+
+            // An account created while the lookup was in flight is tracked before its absence is
+            // cleared, so checking again here ensures a stale absence can never be left behind
+            this.absent.put(key, true);
+            if(this.cached(key) != null || this.dirty.containsKey(key)) {
+                this.absent.invalidate(key);
+                return true;
+            }
+
+            return false;
+        });
     }
 
     @CanIgnoreReturnValue
     public CompletableFuture<Account> account(Currency currency, UUID uuid, Account.AccountModifier modifier) {
-        Account account = this.accounts.getIfPresent(AccountKey.of(currency, uuid));
+        AccountKey key = AccountKey.of(currency, uuid);
+        Account account = this.cached(key);
         if(account != null) {
             return CompletableFuture.completedFuture(account);
         }
 
+        Staged staged = this.dirty.get(key);
+        if(staged != null) {
+            Account existing = this.accounts.asMap().putIfAbsent(key, staged.account());
+            return CompletableFuture.completedFuture(existing != null ? existing : staged.account());
+        }
+
         return supply(() -> {
-            Account result = this.implementation.account(currency, uuid, modifier);
-            this.accounts.put(AccountKey.of(currency, uuid), result);
+            Account result = this.metrics.time(Operation.ACCOUNT, () -> this.implementation.account(currency, uuid, modifier));
+            this.absent.invalidate(key);
+
+            // Another caller may have loaded or staged this account while the lookup was in flight, in
+            // which case their instance is kept so modifications are never applied to a discarded copy
+            Account pinned = this.pinned.get(key);
+            if(pinned != null) {
+                return pinned;
+            }
 
+            Staged current = this.dirty.get(key);
+            Account existing = this.accounts.asMap().putIfAbsent(key, current != null ? current.account() : result);
+            if(existing != null) {
+                return existing;
+            }
+
+            if(current != null) {
+                return current.account();
+            }
+
+            this.ranking(currency).update(result);
             return result;
         });
     }
 
+    /**
+     * Loads every existing account of the given player with a single request to the underlying storage,
+     * and pins them in memory until {@link #release(UUID)} is invoked for the player. Accounts already
+     * tracked by this storage are pinned as they are, rather than being reloaded.
+     *
+     * @param owner The UUID of the player who has joined
+     * @return A future completing once the player's accounts have been loaded
+     */
+    @CanIgnoreReturnValue
+    public CompletableFuture<Void> preload(UUID owner) {
+        this.online.add(owner);
+        return run(() -> {
+            Collection<Currency> currencies = EconomyService.instance().currencies().registered();
+            List<Currency> missing = currencies.stream()
+                    .filter(currency -> {
+                        AccountKey key = AccountKey.of(currency, owner);
+                        return this.cached(key) == null && !this.dirty.containsKey(key);
+                    })
+                    .toList();
+
+            Map<Currency, Account> loaded = missing.isEmpty() ? Map.of() : this.metrics.time(Operation.ACCOUNT, () -> this.implementation.accounts(owner, missing));
+            for(Currency currency : currencies) {
+                AccountKey key = AccountKey.of(currency, owner);
+                Account account = this.cached(key);
+                if(account == null) {
+                    Staged staged = this.dirty.get(key);
+                    account = staged != null ? staged.account() : null;
+                }
+
+                if(account == null) {
+                    account = loaded.get(currency);
+                    if(account == null) {
+                        continue;
+                    }
+
+                    this.absent.invalidate(key);
+                    Account existing = this.accounts.asMap().putIfAbsent(key, account);
+                    if(existing != null) {
+                        account = existing;
+                    } else {
+                        this.ranking(currency).update(account);
+                    }
+                }
+
+                if(this.online.contains(owner)) {
+                    this.pinned.put(key, account);
+                }
+            }
+        });
+    }
+
+    /**
+     * Unpins the accounts of the given player, writing any of their outstanding modifications and then
+     * evicting them from memory. Accounts which fail to write remain cached, and will be retried by the
+     * next flush.
+     *
+     * @param owner The UUID of the player who has left
+     * @return A future completing once the player's accounts have been written and evicted
+     */
+    @CanIgnoreReturnValue
+    public CompletableFuture<Void> release(UUID owner) {
+        this.online.remove(owner);
+        return run(() -> {
+            List<AccountKey> keys = EconomyService.instance().currencies().registered().stream()
+                    .map(currency -> AccountKey.of(currency, owner))
+                    .toList();
+
+            this.flushing.lock();
+            try {
+                if(this.online.contains(owner)) {
+                    return;
+                }
+
+                keys.forEach(this.pinned::remove);
+                if(this.write(this.extract(keys), null) != null) {
+                    return;
+                }
+
+                keys.forEach(this.accounts::invalidate);
+            } finally {
+                this.flushing.unlock();
+            }
+        });
+    }
+
+    /**
+     * Marks the given account as requiring persistence. If write-behind is enabled, the account will be
+     * written alongside any other modified accounts during the next flush, and the returned future will
+     * complete once that flush has finished. Otherwise, a flush is started immediately.
+     *
+     * @param account The account to persist
+     * @return A future completing once the account has been written to the underlying storage
+     */
     @CanIgnoreReturnValue
     public CompletableFuture<Void> save(Account account) {
-        return run(() -> this.implementation.save(account));
+        this.stage(account);
+        return this.commit();
+    }
+
+    /**
+     * Marks the given account as requiring persistence without starting a flush, allowing many accounts
+     * to be modified and then written together by a single call to {@link #commit()}.
+     *
+     * @param account The account to persist
+     */
+    public void stage(Account account) {
+        this.stage(List.of(account));
+    }
+
+    /**
+     * Marks the given accounts as requiring persistence as a single unit, such that a crash or failure can
+     * never leave only some of them written. The next flush writes the accounts, alongside any others they
+     * were previously staged with, through one call to {@link EconomyStorageImplementation#saveAtomically(Collection)}.
+     *
+     * <p>The state of each account is captured as it is staged, so this must be invoked while the locks of
+     * every account are held through {@link AccountLocks}.
+     *
+     * @param accounts The accounts to persist together
+     */
+    public void stage(Collection<? extends Account> accounts) {
+        Set<AccountKey> group = accounts.size() > 1
+                ? accounts.stream().map(AccountKey::of).collect(Collectors.toUnmodifiableSet())
+                : Set.of();
+
+        this.staging.readLock().lock();
+        try {
+            for(Account account : accounts) {
+                AccountKey key = AccountKey.of(account);
+                this.ranking(account.currency()).update(account);
+                this.dirty.merge(key, Staged.of(key, account, group), (previous, latest) -> latest.absorb(previous));
+                this.absent.invalidate(key);
+            }
+        } finally {
+            this.staging.readLock().unlock();
+        }
+    }
+
+    /**
+     * Starts a flush of every staged account if write-behind is disabled, or if enough accounts have been
+     * staged to fill a batch. Otherwise, the staged accounts are written by the next scheduled flush.
+     *
+     * @return A future completing once the staged accounts have been written to the underlying storage,
+     * or completing exceptionally if this storage has already been shut down
+     */
+    @CanIgnoreReturnValue
+    public CompletableFuture<Void> commit() {
+        CompletableFuture<Void> result = this.pending;
+        if(this.interval <= 0 || this.dirty.size() >= this.batch) {
+            return this.schedule(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Immediately writes every staged account, regardless of whether write-behind is enabled.
+     *
+     * @return A future completing once every staged account has been written
+     */
+    @CanIgnoreReturnValue
+    public CompletableFuture<Void> drain() {
+        return this.schedule(this.pending);
+    }
+
+    private CompletableFuture<Void> schedule(CompletableFuture<Void> result) {
+        try {
+            this.flusher.execute(this::flush);
+            return result;
+        } catch (RejectedExecutionException e) {
+            BaseImpactorPlugin.instance().logger().severe("Economy storage has been shut down, staged changes will not be written");
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Indicates whether balance changes should be applied through {@link #adjust(Account, BigDecimal, BigDecimal, BigDecimal)}
+     * and {@link #adjust(List)} rather than by saving the balance calculated locally. This requires the
+     * option to be enabled, and the underlying storage to support {@link BalanceDeltas balance deltas}.
+     *
+     * @return true if balance changes should be applied as deltas
+     */
+    public boolean deltas() {
+        return this.deltas && this.implementation instanceof BalanceDeltas;
+    }
+
+    /**
+     * Atomically applies a balance change to the stored copy of an account on the storage executor. Any
+     * pending write of the account is completed beforehand, so an older absolute balance can never be
+     * written over the result of the adjustment.
+     *
+     * @param account The account to adjust
+     * @param amount The amount to add to the balance, negative to subtract
+     * @param minimum The lowest balance the account may hold afterwards, or null if unbounded
+     * @param maximum The highest balance the account may hold afterwards, or null if unbounded
+     * @return A future completing with true if the adjustment was applied, or false if it would leave the
+     * balance outside the bounds
+     */
+    public CompletableFuture<Boolean> adjust(Account account, BigDecimal amount, @Nullable BigDecimal minimum, @Nullable BigDecimal maximum) {
+        if(!(this.implementation instanceof BalanceDeltas deltas)) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException("Balance deltas are not supported by " + this.implementation.name()));
+        }
+
+        return this.supply(() -> {
+            this.complete(List.of(AccountKey.of(account)));
+
+            long started = System.currentTimeMillis();
+            boolean applied = this.metrics.time(Operation.ADJUST, () -> deltas.adjust(account, amount, minimum, maximum));
+            if(applied) {
+                this.wrote(List.of(account), started, false);
+                this.publish(List.of(Invalidation.unknown(account)));
+            }
+
+            return applied;
+        });
+    }
+
+    /**
+     * Atomically applies a group of balance changes to the stored copies of their accounts, such that
+     * either every change is applied or none are. As with {@link #adjust(Account, BigDecimal, BigDecimal, BigDecimal)},
+     * pending writes of the accounts are completed beforehand.
+     *
+     * @param adjustments The changes to apply, in order
+     * @return The index of the change which was rejected, or -1 if every change was applied
+     * @throws Exception If the changes could not be performed
+     */
+    public int adjust(List<BalanceAdjustment> adjustments) throws Exception {
+        if(!(this.implementation instanceof BalanceDeltas deltas)) {
+            throw new UnsupportedOperationException("Balance deltas are not supported by " + this.implementation.name());
+        }
+
+        this.complete(adjustments.stream().map(adjustment -> AccountKey.of(adjustment.account())).toList());
+
+        long started = System.currentTimeMillis();
+        int rejected = this.metrics.time(Operation.ADJUST, () -> deltas.adjust(adjustments));
+        if(rejected < 0) {
+            this.wrote(adjustments.stream().map(BalanceAdjustment::account).toList(), started, false);
+            this.publish(adjustments.stream().map(adjustment -> Invalidation.unknown(adjustment.account())).toList());
+        }
+
+        return rejected;
+    }
+
+    /**
+     * Notifies this storage that the balance of a tracked account has changed without requiring the
+     * account to be written, such as after a successful {@link #adjust(Account, BigDecimal, BigDecimal, BigDecimal)}.
+     *
+     * @param account The account which has changed
+     */
+    public void changed(Account account) {
+        this.ranking(account.currency()).update(account);
+    }
+
+    /**
+     * Restores the balances of accounts of the given currency, such as those rebuilt from the transaction
+     * ledger. Balances are applied directly, without firing events, enforcing restrictions, or recording
+     * further entries to the ledger, and are then written immediately.
+     *
+     * @param currency The currency of the accounts
+     * @param balances The balance to restore for each account, keyed by owner
+     * @return A future supplying how many balances were restored, completing once they have been written
+     */
+    public CompletableFuture<Restoration> restore(Currency currency, Map<UUID, BigDecimal> balances) {
+        return this.supply(() -> {
+            int failed = 0;
+            for(Map.Entry<UUID, BigDecimal> entry : balances.entrySet()) {
+                try {
+                    if(!(this.live(currency, entry.getKey()) instanceof ImpactorAccount account)) {
+                        failed++;
+                        continue;
+                    }
+
+                    AccountLocks.acquire(account, () -> {
+                        account.synchronize(entry.getValue());
+                        this.stage(account);
+                        return null;
+                    });
+                } catch (Exception e) {
+                    ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+                    failed++;
+                }
+            }
+
+            return new Restoration(balances.size() - failed, failed);
+        }).thenCompose(restoration -> this.drain().thenApply(ignore -> restoration));
+    }
+
+    /**
+     * Discards every account held in memory, for use after the underlying storage has been written to
+     * from outside of this storage, such as by a migration into it. Staged modifications are written
+     * beforehand. Accounts of online players are refreshed in place, so references held to them remain
+     * valid, while every other account, absence, and ranking is read again on its next use.
+     *
+     * @throws Exception If staged modifications could not be written, in which case nothing is discarded
+     */
+    public void reload() throws Exception {
+        this.flushing.lock();
+        try {
+            Exception failure = this.write(this.extract(List.copyOf(this.dirty.keySet())), null);
+            if(failure != null) {
+                throw failure;
+            }
+
+            this.accounts.invalidateAll();
+            this.absent.invalidateAll();
+            this.rankings.values().forEach(BalanceIndex::clear);
+        } finally {
+            this.flushing.unlock();
+        }
+
+        for(Account account : List.copyOf(this.pinned.values())) {
+            this.invalidate(account.currency(), Invalidation.unknown(account));
+        }
     }
 
     @CanIgnoreReturnValue
     public CompletableFuture<Multimap<Currency, Account>> accounts() {
-        Multimap<Currency, Account> results = ArrayListMultimap.create();
-        this.accounts.asMap().forEach((key, account) -> results.put(key.currency, account));
+        return supply(() -> {
+            this.flush();
+
+            return this.metrics.time(Operation.ACCOUNTS, () -> {
+                Multimap<Currency, Account> results = ArrayListMultimap.create();
+                for(Currency currency : EconomyService.instance().currencies().registered()) {
+                    try(Stream<Account> accounts = this.implementation.accounts(currency)) {
+                        accounts.map(this::tracked).forEach(account -> results.put(currency, account));
+                    }
+                }
 
-        return run(() -> this.implementation.accounts(results)).thenApply(ignore -> results);
+                return results;
+            });
+        });
+    }
+
+    /**
+     * Visits every account of the given currency without materializing the full set of accounts. Accounts
+     * already tracked by this storage are supplied in place of their stored copies, so modifications made
+     * by the consumer are reflected by the live account.
+     *
+     * @param currency The currency to enumerate accounts of
+     * @param consumer The consumer receiving each account
+     * @return A future completing once every account has been visited
+     */
+    @CanIgnoreReturnValue
+    public CompletableFuture<Void> scan(Currency currency, Consumer<Account> consumer) {
+        return run(() -> {
+            this.flush();
+            try(Stream<Account> accounts = this.implementation.accounts(currency)) {
+                accounts.map(this::tracked).forEach(consumer);
+            }
+        });
     }
 
     @CanIgnoreReturnValue
     public CompletableFuture<Void> delete(Currency currency, UUID uuid) {
         return run(() -> {
-            this.implementation.delete(currency, uuid);
-            this.accounts.invalidate(AccountKey.of(currency, uuid));
+            AccountKey key = AccountKey.of(currency, uuid);
+            this.dirty.remove(key);
+            this.metrics.time(Operation.DELETE, () -> {
+                this.implementation.delete(currency, uuid);
+                return null;
+            });
+            this.pinned.remove(key);
+            this.accounts.invalidate(key);
+            this.ranking(currency).remove(uuid);
         });
     }
 
     @CanIgnoreReturnValue
     public CompletableFuture<Boolean> purge() {
-        return supply(this.implementation::purge);
+        return supply(() -> {
+            this.dirty.clear();
+            this.pinned.clear();
+            this.accounts.invalidateAll();
+            this.absent.invalidateAll();
+            this.rankings.values().forEach(BalanceIndex::clear);
+            return this.implementation.purge();
+        });
+    }
+
+    /**
+     * Fetches the accounts with the highest balances for the given currency, in descending order. The
+     * returned accounts are snapshots intended for display, and are not tracked by this storage.
+     *
+     * @param currency The currency to rank accounts by
+     * @param count The maximum number of accounts to return
+     * @param virtual Whether virtual accounts should be included in the ranking
+     * @return The highest ranked accounts for the currency
+     */
+    public CompletableFuture<List<Account>> top(Currency currency, int count, boolean virtual) {
+        return this.ranked(currency).thenApply(index -> index.top(count, virtual)
+                .stream()
+                .<Account>map(entry -> ImpactorAccount.load(currency, entry.owner(), entry.virtual(), entry.balance()))
+                .toList()
+        );
+    }
+
+    /**
+     * Locates the ranking of the given account amongst all accounts of the currency, where a rank of
+     * 1 represents the highest balance. Virtual accounts are included within the ranking.
+     *
+     * @param currency The currency of the account
+     * @param uuid The owner of the account
+     * @return The 1-based rank of the account, or empty if no such account exists
+     */
+    public CompletableFuture<Optional<Integer>> rank(Currency currency, UUID uuid) {
+        return this.ranked(currency).thenApply(index -> index.rank(uuid));
+    }
+
+    /**
+     * Provides the account tracked by this storage, loading it should it not be tracked. This blocks on
+     * the underlying storage, so must only be invoked by storage tasks.
+     */
+    private Account live(Currency currency, UUID owner) throws Exception {
+        AccountKey key = AccountKey.of(currency, owner);
+        Account account = this.cached(key);
+        if(account != null) {
+            return account;
+        }
+
+        Staged staged = this.dirty.get(key);
+        if(staged != null) {
+            return staged.account();
+        }
+
+        Account loaded = this.metrics.time(Operation.ACCOUNT, () -> this.implementation.account(currency, owner, builder -> builder));
+        this.absent.invalidate(key);
+        Account existing = this.accounts.asMap().putIfAbsent(key, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private Account tracked(Account account) {
+        Account tracked = this.cached(AccountKey.of(account.currency(), account.owner()));
+        return tracked != null ? tracked : account;
+    }
+
+    private @Nullable Account cached(AccountKey key) {
+        Account account = this.pinned.get(key);
+        return account != null ? account : this.accounts.getIfPresent(key);
+    }
+
+    private BalanceIndex ranking(Currency currency) {
+        return this.rankings.computeIfAbsent(currency, ignore -> new BalanceIndex());
+    }
+
+    private CompletableFuture<BalanceIndex> ranked(Currency currency) {
+        BalanceIndex index = this.ranking(currency);
+        CompletableFuture<Void> ready = index.ready();
+        index.begin().ifPresent(build -> run(() -> {
+            this.flush();
+            try(Stream<Account> accounts = this.implementation.accounts(currency)) {
+                build.complete(accounts::iterator);
+            }
+        }).whenComplete((ignore, error) -> {
+            if(error != null) {
+                build.fail(error);
+            }
+        }));
+
+        return ready.thenApply(ignore -> index);
     }
 
-    private static CompletableFuture<Void> run(ThrowingRunnable runnable) {
-        return CompletableFuture.runAsync(() -> {
+    /**
+     * Writes all currently dirty accounts to the underlying implementation, in batches no larger
+     * than the configured batch size. Accounts which fail to write are placed back into the dirty
+     * set, unless a newer modification has already been queued, so they may be retried on the
+     * next flush.
+     */
+    private void flush() {
+        this.flushing.lock();
+        try {
+            CompletableFuture<Void> completion = this.pending;
+            this.pending = new CompletableFuture<>();
+
+            List<List<Staged>> units;
+            this.staging.writeLock().lock();
             try {
-                runnable.run();
+                units = this.extract(List.copyOf(this.dirty.keySet()));
+            } finally {
+                this.staging.writeLock().unlock();
+            }
+
+            Exception failure = this.write(units, null);
+            if(failure != null) {
+                completion.completeExceptionally(failure);
+            } else {
+                completion.complete(null);
+            }
+        } finally {
+            this.flushing.unlock();
+        }
+    }
+
+    /**
+     * Writes any staged state of the given accounts, along with the accounts they were staged with,
+     * before returning. This must be invoked before a balance is adjusted through the underlying storage,
+     * so an older absolute balance can never be written over the result of the adjustment.
+     */
+    private void complete(Collection<AccountKey> keys) throws Exception {
+        this.flushing.lock();
+        try {
+            Exception failure = this.write(this.extract(keys), null);
+            if(failure != null) {
+                throw failure;
+            }
+        } finally {
+            this.flushing.unlock();
+        }
+    }
+
+    /**
+     * Removes the given accounts from the dirty set, along with every account they were staged with, and
+     * returns them grouped into the units they must be written as.
+     */
+    private List<List<Staged>> extract(Collection<AccountKey> keys) {
+        this.staging.writeLock().lock();
+        try {
+            List<List<Staged>> units = Lists.newArrayList();
+            for(AccountKey key : keys) {
+                Staged staged = this.dirty.remove(key);
+                if(staged == null) {
+                    continue;
+                }
+
+                List<Staged> unit = Lists.newArrayList(staged);
+                Deque<AccountKey> members = new ArrayDeque<>(staged.group());
+                while(!members.isEmpty()) {
+                    Staged member = this.dirty.remove(members.poll());
+                    if(member != null) {
+                        unit.add(member);
+                        members.addAll(member.group());
+                    }
+                }
+
+                units.add(unit);
+            }
+
+            return units;
+        } finally {
+            this.staging.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the given units of accounts. Units of several accounts are each written atomically, while
+     * the remainder are written in batches no larger than the configured batch size. Accounts which fail
+     * to write are placed back into the dirty set, unless a newer modification has already been staged,
+     * so they may be retried on the next flush.
+     *
+     * @return The latest failure encountered, or the previous failure if every write succeeded
+     */
+    private Exception write(List<List<Staged>> units, Exception previous) {
+        Exception failure = previous;
+        List<Staged> batch = Lists.newArrayListWithCapacity(Math.min(this.batch, units.size()));
+        for(List<Staged> unit : units) {
+            if(unit.size() > 1) {
+                failure = this.write(unit, true, failure);
+                continue;
+            }
+
+            batch.add(unit.get(0));
+            if(batch.size() >= this.batch) {
+                failure = this.write(batch, false, failure);
+                batch = Lists.newArrayListWithCapacity(this.batch);
+            }
+        }
+
+        if(!batch.isEmpty()) {
+            failure = this.write(batch, false, failure);
+        }
+
+        return failure;
+    }
+
+    private Exception write(List<Staged> batch, boolean atomic, Exception previous) {
+        List<Account> snapshots = batch.stream().map(Staged::snapshot).toList();
+        try {
+            long started = System.currentTimeMillis();
+            this.store(snapshots, atomic);
+            this.wrote(snapshots, started, true);
+            this.publish(snapshots.stream().map(Invalidation::of).toList());
+            return previous;
+        } catch (Exception e) {
+            ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+            batch.forEach(staged -> this.dirty.merge(staged.key(), staged, Staged::absorb));
+            return e;
+        } finally {
+            this.writes.incrementAndGet();
+        }
+    }
+
+    private void wrote(Collection<Account> accounts, long started, boolean absolute) {
+        long finished = System.currentTimeMillis();
+        for(Account account : accounts) {
+            this.written.put(AccountKey.of(account), new Written(started, finished, absolute ? account.balance() : null));
+        }
+    }
+
+    private void publish(Collection<Invalidation> invalidations) {
+        try {
+            this.invalidations.publish(invalidations);
+        } catch (Exception e) {
+            ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+        }
+    }
+
+    /**
+     * Applies changes made to accounts by other servers. Tracked accounts are updated in place, so any
+     * references held to them observe the change. Accounts with local modifications yet to be written
+     * are left untouched, as their pending write will supersede the change.
+     *
+     * <p>Changes which do not carry a balance are first read from storage without holding the flush lock,
+     * which is then held only to swap in the result, so an account can never be observed as clean while
+     * its pending write is still in flight. Should a write complete while such a read is in progress, the
+     * read may predate the write, and so is made again.
+     *
+     * <p>Changes which do carry a balance are ignored if this server has since written the account, as
+     * the change predates that write, or if the change is this server's own write, as a polled change
+     * feed will report it back alongside the writes of every other server.
+     */
+    @SuppressWarnings("PatternValidation")
+    private void invalidate(Collection<Invalidation> invalidations) {
+        CurrencyProvider currencies = EconomyService.instance().currencies();
+        for(Invalidation invalidation : invalidations) {
+            Optional<Currency> currency = currencies.currency(invalidation.currency());
+            if(currency.isEmpty()) {
+                continue;
+            }
+
+            try {
+                this.invalidate(currency.get(), invalidation);
             } catch (Exception e) {
                 ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
-                if (e instanceof RuntimeException) {
-                    throw (RuntimeException) e;
+            }
+        }
+    }
+
+    private void invalidate(Currency currency, Invalidation invalidation) throws Exception {
+        AccountKey key = AccountKey.of(currency, invalidation.owner());
+        this.absent.invalidate(key);
+
+        while(true) {
+            long writes = this.writes.get();
+            Account account = this.cached(key);
+            BigDecimal balance = invalidation.balance();
+            boolean read = balance == null;
+            boolean exists = true;
+            if(read) {
+                if(account == null) {
+                    return;
                 }
-                throw new CompletionException(e);
+
+                exists = this.implementation.hasAccount(currency, invalidation.owner());
+                if(exists) {
+                    balance = this.implementation.account(currency, invalidation.owner(), builder -> builder).balance();
+                }
+            }
+
+            this.flushing.lock();
+            try {
+                if(read && this.writes.get() != writes) {
+                    continue;
+                }
+
+                if(!read && this.superseded(key, invalidation)) {
+                    return;
+                }
+
+                if(!exists) {
+                    this.pinned.remove(key);
+                    this.accounts.invalidate(key);
+                    this.ranking(currency).remove(invalidation.owner());
+                } else if(account instanceof ImpactorAccount tracked) {
+                    BigDecimal latest = balance;
+                    AccountLocks.acquire(tracked, () -> {
+                        if(!this.dirty.containsKey(key)) {
+                            tracked.synchronize(latest);
+                        }
+                        return null;
+                    });
+                    this.ranking(currency).update(tracked);
+                } else {
+                    this.ranking(currency).update(ImpactorAccount.load(currency, invalidation.owner(), invalidation.virtual(), balance));
+                }
+
+                return;
+            } finally {
+                this.flushing.unlock();
             }
-        }, Impactor.instance().scheduler().async());
+        }
+    }
+
+    private boolean superseded(AccountKey key, Invalidation invalidation) {
+        Written latest = this.written.getIfPresent(key);
+        if(latest == null) {
+            return false;
+        }
+
+        if(invalidation.updated() < latest.started()) {
+            return true;
+        }
+
+        return invalidation.updated() <= latest.finished() && (latest.balance() == null || latest.balance().compareTo(invalidation.balance()) == 0);
+    }
+
+    private void store(Collection<Account> batch, boolean atomic) throws Exception {
+        this.metrics.time(Operation.SAVE, () -> {
+            if(atomic) {
+                this.implementation.saveAtomically(batch);
+            } else {
+                this.implementation.save(batch);
+            }
+            return null;
+        });
+    }
+
+    private CompletableFuture<Void> run(ThrowingRunnable runnable) {
+        return this.supply(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    private <T> CompletableFuture<T> supply(ThrowingSupplier<T> supplier) {
+        this.metrics.submitted();
+        try {
+            return this.submit(supplier);
+        } catch (RejectedExecutionException e) {
+            this.metrics.rejected();
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
-    private static <T> CompletableFuture<T> supply(ThrowingSupplier<T> supplier) {
+    private <T> CompletableFuture<T> submit(ThrowingSupplier<T> supplier) {
         return CompletableFuture.supplyAsync(() -> {
+            this.metrics.started();
             try {
                 return supplier.supply();
             } catch (Exception e) {
@@ -149,8 +1047,56 @@ public final class EconomyStorage implements Storage {
                     throw (RuntimeException) e;
                 }
                 throw new CompletionException(e);
+            } finally {
+                this.metrics.finished();
             }
-        }, Impactor.instance().scheduler().async());
+        }, this.executor);
+    }
+
+    /**
+     * The outcome of {@link #restore(Currency, Map)}.
+     *
+     * @param restored The number of accounts whose balance was restored
+     * @param failed The number of accounts whose balance could not be restored
+     */
+    public record Restoration(int restored, int failed) {}
+
+    /**
+     * A write this server made of an account, spanning the times it was started and finished at.
+     *
+     * @param balance The balance written, or null if the write was applied as a delta
+     */
+    private record Written(long started, long finished, @Nullable BigDecimal balance) {}
+
+    /**
+     * An account awaiting a write, along with the state it held when it was staged. Accounts staged as a
+     * single unit each carry the keys of the entire group, which are merged as the accounts are staged
+     * again, so that every account a unit has ever been joined with is written alongside it.
+     *
+     * @param key The key of the account
+     * @param account The live account
+     * @param snapshot A copy of the account as it was when staged, which is what will be written
+     * @param group The keys of every account which must be written in the same unit, or empty if none
+     */
+    private record Staged(AccountKey key, Account account, Account snapshot, Set<AccountKey> group) {
+
+        private static Staged of(AccountKey key, Account account, Set<AccountKey> group) {
+            return new Staged(key, account, ImpactorAccount.load(account.currency(), account.owner(), account.virtual(), account.balance()), group);
+        }
+
+        /**
+         * Joins the group of another entry for the same account into this one, keeping the state of this entry.
+         */
+        private Staged absorb(Staged other) {
+            if(other.group.isEmpty() || this.group.containsAll(other.group)) {
+                return this;
+            }
+
+            Set<AccountKey> group = Sets.newHashSet(this.group);
+            group.addAll(other.group);
+            return new Staged(this.key, this.account, this.snapshot, Collections.unmodifiableSet(group));
+        }
+
     }
 
     private static final class AccountKey {
@@ -166,6 +1112,10 @@ public final class EconomyStorage implements Storage {
             return new AccountKey(currency, owner);
         }
 
+        public static AccountKey of(Account account) {
+            return new AccountKey(account.currency(), account.owner());
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -25,12 +25,17 @@
 
 package net.impactdev.impactor.core.economy.storage;
 
-import com.google.common.collect.Multimap;
+import com.google.common.collect.Maps;
 import net.impactdev.impactor.api.economy.accounts.Account;
 import net.impactdev.impactor.api.economy.currency.Currency;
 import net.impactdev.impactor.api.storage.connection.StorageConnection;
+import net.impactdev.impactor.core.storage.hikari.PoolStatistics;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface EconomyStorageImplementation extends StorageConnection {
 
@@ -38,9 +43,80 @@ public interface EconomyStorageImplementation extends StorageConnection {
 
     Account account(Currency currency, UUID uuid, Account.AccountModifier modifier) throws Exception;
 
+    /**
+     * Fetches every existing account of the given owner amongst the given currencies, allowing all of an
+     * owner's accounts to be loaded at once. Unlike {@link #account(Currency, UUID, Account.AccountModifier)},
+     * accounts which do not yet exist are not created.
+     *
+     * @param owner The owner of the accounts
+     * @param currencies The currencies to fetch accounts of
+     * @return The accounts of the owner which exist, keyed by their currency
+     * @throws Exception If the accounts could not be fetched
+     */
+    default Map<Currency, Account> accounts(UUID owner, Collection<Currency> currencies) throws Exception {
+        Map<Currency, Account> results = Maps.newHashMap();
+        for(Currency currency : currencies) {
+            if(this.hasAccount(currency, owner)) {
+                results.put(currency, this.account(currency, owner, builder -> builder));
+            }
+        }
+
+        return results;
+    }
+
     void save(Account account) throws Exception;
 
-    void accounts(Multimap<Currency, Account> cache) throws Exception;
+    /**
+     * Saves a batch of accounts as efficiently as the implementation allows. This is used by the
+     * write-behind flush, and may contain accounts across any number of currencies and owners.
+     *
+     * @param accounts The accounts to save
+     * @throws Exception If any account within the batch fails to save
+     */
+    void save(Collection<Account> accounts) throws Exception;
+
+    /**
+     * Opens a lazily populated stream over every account stored for the given currency. Implementations
+     * should avoid holding the full set of accounts in memory at once, and the returned stream must be
+     * closed by the caller once it is no longer needed.
+     *
+     * @param currency The currency to enumerate accounts of
+     * @return A stream of all stored accounts of the currency, in no particular order
+     * @throws Exception If the enumeration could not be started
+     */
+    Stream<Account> accounts(Currency currency) throws Exception;
+
+    /**
+     * Reads the current state of the connection pool backing this implementation, if it is backed by one.
+     *
+     * @return The state of the connection pool, or empty if the implementation does not pool connections
+     */
+    default Optional<PoolStatistics> pool() {
+        return Optional.empty();
+    }
+
+    /**
+     * Indicates whether streams returned by {@link #accounts(Currency)} may be consumed in parallel. This
+     * benefits implementations where reading each account is independent and I/O bound, such as those
+     * backed by one file per account.
+     *
+     * @return true if accounts may be read in parallel
+     */
+    default boolean parallelReads() {
+        return false;
+    }
+
+    /**
+     * Saves a set of accounts as a single unit, such that a failure or crash part way through can never
+     * leave only some of the accounts written. Implementations unable to offer this guarantee fall back
+     * to {@link #save(Collection)}.
+     *
+     * @param accounts The accounts to save
+     * @throws Exception If the accounts could not be saved, in which case none of them should have been
+     */
+    default void saveAtomically(Collection<Account> accounts) throws Exception {
+        this.save(accounts);
+    }
 
     void delete(Currency currency, UUID uuid) throws Exception;
 
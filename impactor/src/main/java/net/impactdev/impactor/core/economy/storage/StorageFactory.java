@@ -34,23 +34,113 @@ import net.impactdev.impactor.api.storage.connection.configurate.loaders.HoconLo
 import net.impactdev.impactor.api.storage.connection.configurate.loaders.JsonLoader;
 import net.impactdev.impactor.api.storage.connection.configurate.loaders.YamlLoader;
 import net.impactdev.impactor.core.economy.EconomyConfig;
+import net.impactdev.impactor.core.economy.ledger.EconomyLedger;
+import net.impactdev.impactor.core.economy.ledger.FileLedgerStorage;
+import net.impactdev.impactor.core.economy.ledger.LedgerStorage;
 import net.impactdev.impactor.core.economy.storage.implementations.ConfigurateProvider;
+import net.impactdev.impactor.core.economy.storage.implementations.JournalProvider;
+import net.impactdev.impactor.core.economy.storage.implementations.MongoProvider;
 import net.impactdev.impactor.core.economy.storage.implementations.SQLProvider;
+import net.impactdev.impactor.core.economy.storage.invalidation.ChangeFeed;
+import net.impactdev.impactor.core.economy.storage.invalidation.InvalidationChannel;
+import net.impactdev.impactor.core.economy.storage.invalidation.PollingInvalidationChannel;
+import net.impactdev.impactor.core.storage.sql.H2ConnectionImpl;
 import net.impactdev.impactor.core.storage.sql.MariaDbConnectionImpl;
 import net.impactdev.impactor.core.storage.sql.MySQLConnectionImpl;
+import net.impactdev.impactor.core.utility.future.AsyncTasks;
+import net.impactdev.impactor.core.utility.future.TaskClass;
+import net.impactdev.impactor.core.utility.future.TaskExecutor;
 import org.jetbrains.annotations.NotNull;
 
+import java.nio.file.Paths;
 import java.util.Optional;
 
 public final class StorageFactory {
 
     public static EconomyStorage instance(ImpactorPlugin plugin, @NotNull Config config, @NotNull StorageType fallback) {
-        StorageType use = Optional.ofNullable(config.get(EconomyConfig.STORAGE_TYPE)).orElse(fallback);
-        plugin.logger().info("Loading storage provider... [" + use.getName() + "]");
-        return new EconomyStorage(createNewImplementation(use, config));
+        EconomyStorageImplementation implementation;
+        if(JournalProvider.METHOD.equalsIgnoreCase(config.get(EconomyConfig.STORAGE_METHOD))) {
+            plugin.logger().info("Loading storage provider... [Journal]");
+            implementation = journal();
+        } else {
+            StorageType use = Optional.ofNullable(config.get(EconomyConfig.STORAGE_TYPE)).orElse(fallback);
+            plugin.logger().info("Loading storage provider... [" + use.getName() + "]");
+            implementation = implementation(use, config);
+        }
+
+        return new EconomyStorage(
+                implementation,
+                config.get(EconomyConfig.WRITE_BEHIND_INTERVAL),
+                config.get(EconomyConfig.WRITE_BEHIND_BATCH_SIZE),
+                config.get(EconomyConfig.ATOMIC_BALANCE_UPDATES),
+                createInvalidationChannel(implementation, config),
+                createLedger(implementation, config),
+                createExecutor(implementation, config)
+        );
+    }
+
+    /**
+     * Configures the executor for storage I/O. Unless configured otherwise, implementations backed by a
+     * connection pool may run one task per pooled connection, as further tasks would only wait on a
+     * connection to become available.
+     */
+    private static TaskExecutor createExecutor(EconomyStorageImplementation implementation, Config config) {
+        int threads = config.get(EconomyConfig.STORAGE_THREADS);
+        if(threads <= 0) {
+            threads = implementation instanceof SQLProvider || implementation instanceof MongoProvider
+                    ? config.get(EconomyConfig.STORAGE_CREDENTIALS).getMaxPoolSize()
+                    : Runtime.getRuntime().availableProcessors();
+        }
+
+        return AsyncTasks.executor(TaskClass.STORAGE).configure(
+                threads,
+                config.get(EconomyConfig.STORAGE_QUEUE_SIZE),
+                config.get(EconomyConfig.STORAGE_VIRTUAL_THREADS)
+        );
+    }
+
+    private static EconomyLedger createLedger(EconomyStorageImplementation implementation, Config config) {
+        if(!config.get(EconomyConfig.LEDGER_ENABLED)) {
+            return EconomyLedger.disabled();
+        }
+
+        LedgerStorage storage;
+        if(implementation instanceof LedgerStorage provider) {
+            storage = provider;
+        } else {
+            storage = new FileLedgerStorage(Paths.get("config", "impactor", "economy", "ledger"));
+        }
+
+        return new EconomyLedger(storage, config.get(EconomyConfig.LEDGER_BUFFER_SIZE));
     }
 
-    private static EconomyStorageImplementation createNewImplementation(StorageType type, Config config) {
+    private static InvalidationChannel createInvalidationChannel(EconomyStorageImplementation implementation, Config config) {
+        int interval = config.get(EconomyConfig.INVALIDATION_POLL_INTERVAL);
+        if(interval > 0 && implementation instanceof ChangeFeed feed) {
+            return new PollingInvalidationChannel(feed, interval);
+        }
+
+        return InvalidationChannel.none();
+    }
+
+    /**
+     * Creates a new, uninitialized implementation over the journal of accounts.
+     *
+     * @return A new implementation backed by the journal
+     */
+    public static EconomyStorageImplementation journal() {
+        return new JournalProvider(Paths.get("config", "impactor", "economy", "accounts.journal"));
+    }
+
+    /**
+     * Creates a new, uninitialized implementation for the given storage type, configured by the given
+     * economy configuration.
+     *
+     * @param type The type of storage to create an implementation for
+     * @param config The economy configuration
+     * @return A new implementation backed by the given storage type
+     */
+    public static EconomyStorageImplementation implementation(StorageType type, Config config) {
         switch (type) {
             case JSON:
                 return new ConfigurateProvider(new JsonLoader());
@@ -58,6 +148,14 @@ public final class StorageFactory {
                 return new ConfigurateProvider(new YamlLoader());
             case HOCON:
                 return new ConfigurateProvider(new HoconLoader());
+            case H2:
+                return new SQLProvider(
+                        new H2ConnectionImpl(
+                                config.get(EconomyConfig.STORAGE_CREDENTIALS),
+                                Paths.get("config", "impactor", "economy", "economy-h2")
+                        ),
+                        config.get(EconomyConfig.SQL_TABLE_PREFIX)
+                );
             case MYSQL:
                 return new SQLProvider(
                         new MySQLConnectionImpl(config.get(EconomyConfig.STORAGE_CREDENTIALS)),
@@ -68,6 +166,11 @@ public final class StorageFactory {
                         new MariaDbConnectionImpl(config.get(EconomyConfig.STORAGE_CREDENTIALS)),
                         config.get(EconomyConfig.SQL_TABLE_PREFIX)
                 );
+            case MONGODB:
+                return new MongoProvider(
+                        config.get(EconomyConfig.STORAGE_CREDENTIALS),
+                        config.get(EconomyConfig.SQL_TABLE_PREFIX)
+                );
         }
 
         throw new IllegalArgumentException("Unsupported storage type: " + type);
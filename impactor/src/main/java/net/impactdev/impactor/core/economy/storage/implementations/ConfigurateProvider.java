@@ -27,12 +27,9 @@ package net.impactdev.impactor.core.economy.storage.implementations;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
-import com.google.common.collect.Multimap;
 import net.impactdev.impactor.api.Impactor;
-import net.impactdev.impactor.api.economy.EconomyService;
 import net.impactdev.impactor.api.economy.accounts.Account;
 import net.impactdev.impactor.api.economy.currency.Currency;
-import net.impactdev.impactor.api.economy.currency.CurrencyProvider;
 import net.impactdev.impactor.api.platform.players.PlatformPlayerService;
 import net.impactdev.impactor.api.platform.sources.PlatformSource;
 import net.impactdev.impactor.api.storage.connection.configurate.ConfigurateLoader;
@@ -40,7 +37,6 @@ import net.impactdev.impactor.api.utility.printing.PrettyPrinter;
 import net.impactdev.impactor.core.economy.accounts.ImpactorAccount;
 import net.impactdev.impactor.core.economy.storage.EconomyStorageImplementation;
 import net.impactdev.impactor.core.plugin.BaseImpactorPlugin;
-import net.kyori.adventure.key.Key;
 import org.apache.commons.io.FileUtils;
 import org.jetbrains.annotations.NotNull;
 import org.spongepowered.configurate.BasicConfigurationNode;
@@ -53,11 +49,15 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class ConfigurateProvider implements EconomyStorageImplementation {
@@ -154,7 +154,7 @@ public class ConfigurateProvider implements EconomyStorageImplementation {
             if(Files.exists(target)) {
                 ConfigurationNode node = this.read(target).node(currency.key().asString());
                 if(!node.virtual()) {
-                    return ImpactorAccount.load(currency, uuid, group == Group.Virtual, BigDecimal.valueOf(node.getDouble()));
+                    return ImpactorAccount.load(currency, uuid, group == Group.Virtual, this.balance(node));
                 }
 
                 ImpactorAccount.ImpactorAccountBuilder builder = new ImpactorAccount.ImpactorAccountBuilder();
@@ -191,44 +191,61 @@ public class ConfigurateProvider implements EconomyStorageImplementation {
 
     @Override
     public void save(Account account) throws Exception {
+        this.save(this.target(account), Collections.singletonList(account));
+    }
+
+    @Override
+    public void save(Collection<Account> accounts) throws Exception {
+        Map<Path, List<Account>> files = accounts.stream().collect(Collectors.groupingBy(this::target));
+        for(Map.Entry<Path, List<Account>> file : files.entrySet()) {
+            this.save(file.getKey(), file.getValue());
+        }
+    }
+
+    private Path target(Account account) {
         Path accounts = this.root.resolve("accounts");
-        Path target = (account.virtual() ? Group.Virtual.transform(accounts) : Group.Users.transform(accounts))
+        return (account.virtual() ? Group.Virtual.transform(accounts) : Group.Users.transform(accounts))
                 .resolve(account.owner().toString().substring(0, 2))
                 .resolve(account.owner() + ".conf");
+    }
 
-        this.save(target, account);
+    @Override
+    public Stream<Account> accounts(Currency currency) throws Exception {
+        Stream<Path> files = Files.walk(this.root.resolve("accounts"));
+        return files.filter(path -> path.getFileName().toString().endsWith(".conf"))
+                .map(path -> this.read(currency, path))
+                .flatMap(Optional::stream)
+                .onClose(files::close);
     }
 
     @Override
-    public void accounts(Multimap<Currency, Account> cache) throws Exception {
-        Path root = this.root.resolve("accounts");
-
-        EconomyService service = Impactor.instance().services().provide(EconomyService.class);
-        CurrencyProvider currencies = service.currencies();
-        try(Stream<Path> files = Files.walk(root)) {
-            files.filter(path -> path.getFileName().toString().endsWith(".conf"))
-                    .forEach(path -> {
-                        try {
-                            boolean virtual = path.getParent().getParent().getFileName().toString().equals("virtual");
-                            String name = path.getFileName().toString();
-                            UUID owner = UUID.fromString(name.substring(0, name.indexOf(".")));
-
-                            ConfigurationNode data = this.read(path);
-                            for(Object key : data.childrenMap().keySet()) {
-                                Optional<Currency> currency = currencies.currency(Key.key((String) key));
-                                if(currency.isPresent()) {
-                                    Collection<Account> registered = cache.get(currency.get());
-                                    if(registered.stream().noneMatch(account -> account.owner().equals(owner))) {
-                                        Account account = ImpactorAccount.load(currency.get(), owner, virtual, BigDecimal.valueOf(data.node(key).getDouble()));
-                                        cache.put(account.currency(), account);
-                                    }
-                                }
-                            }
-                        } catch (Exception e) {
-                            BaseImpactorPlugin.instance().logger().severe("Economy: Failed to read account file: " + path.getFileName());
-                            e.printStackTrace();
-                        }
-                    });
+    public boolean parallelReads() {
+        return true;
+    }
+
+    private Optional<Account> read(Currency currency, Path path) {
+        try {
+            boolean virtual = path.getParent().getParent().getFileName().toString().equals("virtual");
+            String name = path.getFileName().toString();
+            UUID owner = UUID.fromString(name.substring(0, name.indexOf(".")));
+
+            // Lookups favor the users group, so a stray virtual copy of the same owner is shadowed
+            if(virtual && Files.exists(Group.Users.transform(this.root.resolve("accounts"))
+                    .resolve(owner.toString().substring(0, 2))
+                    .resolve(owner + ".conf"))) {
+                return Optional.empty();
+            }
+
+            ConfigurationNode node = this.read(path).node(currency.key().asString());
+            if(node.virtual()) {
+                return Optional.empty();
+            }
+
+            return Optional.of(ImpactorAccount.load(currency, owner, virtual, this.balance(node)));
+        } catch (Exception e) {
+            BaseImpactorPlugin.instance().logger().severe("Economy: Failed to read account file: " + path.getFileName());
+            e.printStackTrace();
+            return Optional.empty();
         }
     }
 
@@ -277,6 +294,15 @@ public class ConfigurateProvider implements EconomyStorageImplementation {
         }
     }
 
+    /**
+     * Reads the balance held by the given node. Balances are written as strings so that they keep their
+     * exact value, though balances written as numbers by earlier versions are still understood.
+     */
+    private BigDecimal balance(ConfigurationNode node) {
+        String value = node.getString();
+        return value != null ? new BigDecimal(value) : BigDecimal.valueOf(node.getDouble());
+    }
+
     @NotNull
     private ConfigurationNode read(Path target) throws IOException {
         ReentrantLock lock = Objects.requireNonNull(this.ioLocks.get(target));
@@ -292,7 +318,7 @@ public class ConfigurateProvider implements EconomyStorageImplementation {
         }
     }
 
-    private void save(Path target, @NotNull Account account) throws IOException {
+    private void save(Path target, @NotNull Collection<Account> accounts) throws IOException {
         this.createDirectoriesIfNotExists(target.getParent());
         ReentrantLock lock = Objects.requireNonNull(this.ioLocks.get(target));
         lock.lock();
@@ -305,7 +331,9 @@ public class ConfigurateProvider implements EconomyStorageImplementation {
                 node = BasicConfigurationNode.root();
             }
 
-            node.node(account.currency().key().asString()).set(account.balance().doubleValue());
+            for(Account account : accounts) {
+                node.node(account.currency().key().asString()).set(account.balance().toPlainString());
+            }
             this.loader.loader(target).save(node);
         } catch (Exception e) {
             e.printStackTrace();
@@ -0,0 +1,616 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.storage.implementations;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.impactdev.impactor.api.economy.currency.Currency;
+import net.impactdev.impactor.api.platform.sources.PlatformSource;
+import net.impactdev.impactor.api.utility.ExceptionPrinter;
+import net.impactdev.impactor.api.utility.printing.PrettyPrinter;
+import net.impactdev.impactor.core.economy.accounts.ImpactorAccount;
+import net.impactdev.impactor.core.economy.storage.EconomyStorageImplementation;
+import net.impactdev.impactor.core.plugin.BaseImpactorPlugin;
+import net.kyori.adventure.key.Key;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Stores every account within a single append-only journal. Each save appends a checksummed record to
+ * the end of the journal and is forced to disk before returning, so writes are strictly sequential and a
+ * crash can at worst lose a partially written trailing record, which is discarded on the next load.
+ * Accounts saved atomically are written as a single group record, so they are restored all together
+ * or not at all.
+ *
+ * <p>The latest state of every account is held within an in-memory index, built by replaying the journal
+ * through a memory-mapped view on startup. Reads are served entirely from this index. As records are
+ * superseded, the journal is periodically compacted in the background by writing a snapshot of the live
+ * records to a new file, appending any records written since the snapshot was taken, and atomically
+ * moving it over the existing journal. Saves are only held up for as long as it takes to copy those
+ * trailing records and swap the files.
+ */
+public final class JournalProvider implements EconomyStorageImplementation {
+
+    public static final String METHOD = "journal";
+
+    private static final int MAGIC = 0x494D504A;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte GROUP = 3;
+
+    private static final int COMPACTION_THRESHOLD = 10_000;
+
+    private final Path journal;
+    private final Map<Key, Map<UUID, Entry>> index = Maps.newConcurrentMap();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private FileChannel channel;
+    private long stale;
+
+    private ExecutorService compactor;
+    private boolean compacting;
+
+    /** Incremented each time the journal is purged, identifying compactions whose snapshot was discarded */
+    private long generation;
+
+    public JournalProvider(Path journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public String name() {
+        return "Journal";
+    }
+
+    @Override
+    public void init() throws Exception {
+        this.lock.lock();
+        try {
+            Files.createDirectories(this.journal.getParent());
+            if(Files.notExists(this.journal)) {
+                this.create(this.journal);
+            }
+
+            long valid = this.replay();
+            this.channel = FileChannel.open(this.journal, StandardOpenOption.WRITE);
+            if(valid < this.channel.size()) {
+                this.channel.truncate(valid);
+                this.channel.force(true);
+            }
+            this.channel.position(valid);
+
+            this.compactor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("Impactor Economy Journal Compaction")
+                    .setDaemon(true)
+                    .build()
+            );
+
+            if(this.compactable()) {
+                this.compact();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void shutdown() throws Exception {
+        // A compaction in progress requires the lock to finish, so is awaited before it is acquired
+        if(this.compactor != null) {
+            this.compactor.shutdown();
+            if(!this.compactor.awaitTermination(30, TimeUnit.SECONDS)) {
+                BaseImpactorPlugin.instance().logger().severe("Timed out waiting for the economy journal to finish compacting");
+            }
+        }
+
+        this.lock.lock();
+        try {
+            if(this.channel != null) {
+                if(this.compactable()) {
+                    this.compact();
+                }
+                this.channel.close();
+                this.channel = null;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void meta(PrettyPrinter printer) throws Exception {
+        long live = this.index.values().stream().mapToLong(Map::size).sum();
+        printer.add("Journal Size: %d bytes", Files.size(this.journal))
+                .add("Live Records: %d", live)
+                .add("Stale Records: %d", this.stale);
+    }
+
+    @Override
+    public boolean hasAccount(Currency currency, UUID uuid) throws Exception {
+        return this.accounts(currency.key()).containsKey(uuid);
+    }
+
+    @Override
+    public Account account(Currency currency, UUID uuid, Account.AccountModifier modifier) throws Exception {
+        Entry entry = this.accounts(currency.key()).get(uuid);
+        if(entry != null) {
+            return ImpactorAccount.load(currency, uuid, entry.virtual(), entry.balance());
+        }
+
+        Account.AccountBuilder builder = new ImpactorAccount.ImpactorAccountBuilder();
+        builder.currency(currency).owner(uuid);
+        builder = modifier.modify(builder);
+
+        if(PlatformSource.SERVER_UUID.equals(uuid)) {
+            builder.virtual();
+        }
+
+        Account account = builder.build();
+        this.save(account);
+
+        return account;
+    }
+
+    @Override
+    public void save(Account account) throws Exception {
+        this.save(Collections.singletonList(account));
+    }
+
+    @Override
+    public void save(Collection<Account> accounts) throws Exception {
+        if(accounts.isEmpty()) {
+            return;
+        }
+
+        this.lock.lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(accounts.size() * 96);
+            for(Account account : accounts) {
+                buffer = this.append(buffer, PUT, account.currency().key(), account.owner(), account.virtual(), account.balance());
+            }
+            this.write(buffer);
+
+            for(Account account : accounts) {
+                Entry previous = this.accounts(account.currency().key()).put(account.owner(), new Entry(account.virtual(), account.balance()));
+                if(previous != null) {
+                    this.stale++;
+                }
+            }
+
+            this.compactIfNecessary();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void saveAtomically(Collection<Account> accounts) throws Exception {
+        if(accounts.size() <= 1) {
+            this.save(accounts);
+            return;
+        }
+
+        this.lock.lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(accounts.size() * 96);
+            buffer.putInt(0).put(GROUP).putInt(accounts.size());
+            for(Account account : accounts) {
+                buffer = this.entry(buffer, PUT, account.currency().key(), account.owner(), account.virtual(), account.balance());
+            }
+            this.write(seal(buffer, 0));
+
+            for(Account account : accounts) {
+                Entry previous = this.accounts(account.currency().key()).put(account.owner(), new Entry(account.virtual(), account.balance()));
+                if(previous != null) {
+                    this.stale++;
+                }
+            }
+
+            this.compactIfNecessary();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public Stream<Account> accounts(Currency currency) throws Exception {
+        return this.accounts(currency.key()).entrySet().stream()
+                .map(entry -> ImpactorAccount.load(currency, entry.getKey(), entry.getValue().virtual(), entry.getValue().balance()));
+    }
+
+    @Override
+    public void delete(Currency currency, UUID uuid) throws Exception {
+        this.lock.lock();
+        try {
+            Map<UUID, Entry> accounts = this.accounts(currency.key());
+            if(!accounts.containsKey(uuid)) {
+                return;
+            }
+
+            ByteBuffer buffer = this.append(ByteBuffer.allocate(96), DELETE, currency.key(), uuid, false, BigDecimal.ZERO);
+            this.write(buffer);
+
+            accounts.remove(uuid);
+            this.stale += 2;
+
+            this.compactIfNecessary();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean purge() throws Exception {
+        this.lock.lock();
+        try {
+            this.generation++;
+            this.channel.close();
+            this.create(this.journal);
+            this.channel = FileChannel.open(this.journal, StandardOpenOption.WRITE);
+            this.channel.position(this.channel.size());
+
+            this.index.clear();
+            this.stale = 0;
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private Map<UUID, Entry> accounts(Key currency) {
+        return this.index.computeIfAbsent(currency, key -> Maps.newConcurrentMap());
+    }
+
+    /**
+     * Replays the journal into the index, stopping at the first record which is incomplete or fails its
+     * checksum.
+     *
+     * @return The length of the journal which holds valid records
+     */
+    @SuppressWarnings("PatternValidation")
+    private long replay() throws IOException {
+        try(FileChannel channel = FileChannel.open(this.journal, StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Journal exceeds the maximum readable size, compaction has likely been failing");
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new IOException("File is not an economy journal: " + this.journal);
+            }
+
+            int version = buffer.getInt();
+            if(version != VERSION) {
+                throw new IOException("Unsupported journal version: " + version);
+            }
+
+            CRC32 crc = new CRC32();
+            long valid = buffer.position();
+            String reason = "is incomplete";
+            while(buffer.remaining() >= Integer.BYTES) {
+                try {
+                    int length = buffer.getInt();
+                    if(length <= 0 || length > buffer.remaining() - Integer.BYTES) {
+                        break;
+                    }
+
+                    ByteBuffer record = buffer.slice(buffer.position(), length);
+                    buffer.position(buffer.position() + length);
+
+                    crc.reset();
+                    crc.update(record.duplicate());
+                    if((int) crc.getValue() != buffer.getInt()) {
+                        reason = "failed its checksum";
+                        break;
+                    }
+
+                    if(record.get(record.position()) == GROUP) {
+                        record.get();
+                        int count = record.getInt();
+                        for(int i = 0; i < count; i++) {
+                            this.read(record);
+                        }
+                    } else {
+                        this.read(record);
+                    }
+                    valid = buffer.position();
+                } catch (BufferUnderflowException | IllegalArgumentException e) {
+                    reason = "could not be read";
+                    break;
+                }
+            }
+
+            if(valid < channel.size()) {
+                BaseImpactorPlugin.instance().logger().warn(String.format(
+                        "Economy: Discarding %d bytes of journal data from offset %d, as the record there %s",
+                        channel.size() - valid,
+                        valid,
+                        reason
+                ));
+            }
+
+            return valid;
+        }
+    }
+
+    /**
+     * Reads a single entry from a record, applying it to the index.
+     */
+    @SuppressWarnings("PatternValidation")
+    private void read(ByteBuffer record) {
+        byte type = record.get();
+        byte[] currency = new byte[record.getShort()];
+        record.get(currency);
+        UUID owner = new UUID(record.getLong(), record.getLong());
+        boolean virtual = record.get() == 1;
+        int scale = record.getInt();
+        byte[] unscaled = new byte[record.getShort()];
+        record.get(unscaled);
+
+        Map<UUID, Entry> accounts = this.accounts(Key.key(new String(currency, StandardCharsets.UTF_8)));
+        Entry previous = type == DELETE
+                ? accounts.remove(owner)
+                : accounts.put(owner, new Entry(virtual, new BigDecimal(new BigInteger(unscaled), scale)));
+
+        this.stale += type == DELETE ? 1 : 0;
+        this.stale += previous != null ? 1 : 0;
+    }
+
+    private ByteBuffer append(ByteBuffer buffer, byte type, Key currency, UUID owner, boolean virtual, BigDecimal balance) {
+        buffer = ensure(buffer, Integer.BYTES);
+        int header = buffer.position();
+        buffer.putInt(0);
+
+        buffer = this.entry(buffer, type, currency, owner, virtual, balance);
+        return seal(buffer, header);
+    }
+
+    /**
+     * Writes a single entry into the body of a record, expanding the buffer if required.
+     */
+    private ByteBuffer entry(ByteBuffer buffer, byte type, Key currency, UUID owner, boolean virtual, BigDecimal balance) {
+        byte[] key = currency.asString().getBytes(StandardCharsets.UTF_8);
+        byte[] unscaled = balance.unscaledValue().toByteArray();
+        int length = Byte.BYTES + Short.BYTES + key.length + Long.BYTES * 2 + Byte.BYTES + Integer.BYTES + Short.BYTES + unscaled.length;
+
+        return ensure(buffer, length).put(type)
+                .putShort((short) key.length)
+                .put(key)
+                .putLong(owner.getMostSignificantBits())
+                .putLong(owner.getLeastSignificantBits())
+                .put((byte) (virtual ? 1 : 0))
+                .putInt(balance.scale())
+                .putShort((short) unscaled.length)
+                .put(unscaled);
+    }
+
+    /**
+     * Completes a record whose length placeholder was written at the given position, filling in its
+     * length and appending the checksum of its body.
+     */
+    private static ByteBuffer seal(ByteBuffer buffer, int header) {
+        buffer = ensure(buffer, Integer.BYTES);
+        int start = header + Integer.BYTES;
+        int length = buffer.position() - start;
+        buffer.putInt(header, length);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(start).limit(start + length));
+        return buffer.putInt((int) crc.getValue());
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buffer, int required) {
+        if(buffer.remaining() >= required) {
+            return buffer;
+        }
+
+        ByteBuffer expanded = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + required));
+        buffer.flip();
+        return expanded.put(buffer);
+    }
+
+    /**
+     * Appends a buffer of records to the journal and forces it to disk. Should the write fail, the journal
+     * is truncated back to where it began, so later records are never appended after a partial one, which
+     * would see them discarded along with it on the next replay.
+     */
+    private void write(ByteBuffer buffer) throws IOException {
+        long position = this.channel.position();
+        try {
+            buffer.flip();
+            while(buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+            this.channel.force(false);
+        } catch (IOException e) {
+            try {
+                this.channel.truncate(position);
+                this.channel.position(position);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+
+            throw e;
+        }
+    }
+
+    private void create(Path target) throws IOException {
+        try(FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            while(header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Indicates whether superseded records make up the majority of the journal, and it should therefore
+     * be compacted.
+     */
+    private boolean compactable() {
+        long live = this.index.values().stream().mapToLong(Map::size).sum();
+        return this.stale >= COMPACTION_THRESHOLD && this.stale >= live;
+    }
+
+    /**
+     * Schedules a compaction of the journal should one be warranted and not already in progress. Must be
+     * invoked while holding the lock.
+     */
+    private void compactIfNecessary() {
+        if(this.compacting || !this.compactable()) {
+            return;
+        }
+
+        this.compacting = true;
+        try {
+            this.compactor.execute(() -> {
+                try {
+                    this.compact();
+                } catch (Exception e) {
+                    ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+                } finally {
+                    this.lock.lock();
+                    try {
+                        this.compacting = false;
+                    } finally {
+                        this.lock.unlock();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.compacting = false;
+        }
+    }
+
+    /**
+     * Rewrites the journal to hold only the live record of each account. The live records are written
+     * from a snapshot of the index without holding the lock, after which the lock is only held to append
+     * the records written since the snapshot and move the result over the journal.
+     */
+    private void compact() throws IOException {
+        Map<Key, Map<UUID, Entry>> snapshot = Maps.newHashMap();
+        long mark;
+        long dropped;
+        long generation;
+        this.lock.lock();
+        try {
+            if(this.channel == null) {
+                return;
+            }
+
+            this.index.forEach((currency, accounts) -> snapshot.put(currency, Map.copyOf(accounts)));
+            mark = this.channel.position();
+            dropped = this.stale;
+            generation = this.generation;
+        } finally {
+            this.lock.unlock();
+        }
+
+        Path compacted = this.journal.resolveSibling(this.journal.getFileName() + ".compact");
+        this.create(compacted);
+        try(FileChannel channel = FileChannel.open(compacted, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            for(Map.Entry<Key, Map<UUID, Entry>> currency : snapshot.entrySet()) {
+                for(Map.Entry<UUID, Entry> account : currency.getValue().entrySet()) {
+                    buffer = this.append(buffer, PUT, currency.getKey(), account.getKey(), account.getValue().virtual(), account.getValue().balance());
+                    if(buffer.position() >= 60 * 1024) {
+                        buffer.flip();
+                        while(buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                        buffer.clear();
+                    }
+                }
+            }
+
+            buffer.flip();
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        this.lock.lock();
+        try {
+            if(this.channel == null || this.generation != generation) {
+                Files.deleteIfExists(compacted);
+                return;
+            }
+
+            // Records written since the snapshot supersede those within it, so are replayed after it
+            long end = this.channel.position();
+            try(FileChannel source = FileChannel.open(this.journal, StandardOpenOption.READ);
+                FileChannel target = FileChannel.open(compacted, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                long position = mark;
+                while(position < end) {
+                    position += source.transferTo(position, end - position, target);
+                }
+                target.force(true);
+            }
+
+            this.channel.close();
+            try {
+                Files.move(compacted, this.journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                this.stale -= dropped;
+            } finally {
+                this.channel = FileChannel.open(this.journal, StandardOpenOption.WRITE);
+                this.channel.position(this.channel.size());
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private record Entry(boolean virtual, BigDecimal balance) {}
+
+}
@@ -0,0 +1,343 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.storage.implementations;
+
+import com.google.common.collect.Lists;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCredential;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.impactdev.impactor.api.economy.currency.Currency;
+import net.impactdev.impactor.api.platform.sources.PlatformSource;
+import net.impactdev.impactor.api.storage.StorageCredentials;
+import net.impactdev.impactor.api.utility.printing.PrettyPrinter;
+import net.impactdev.impactor.core.economy.accounts.ImpactorAccount;
+import net.impactdev.impactor.core.economy.storage.BalanceAdjustment;
+import net.impactdev.impactor.core.economy.storage.BalanceDeltas;
+import net.impactdev.impactor.core.economy.storage.EconomyStorageImplementation;
+import net.impactdev.impactor.core.economy.storage.invalidation.ChangeFeed;
+import net.impactdev.impactor.core.economy.storage.invalidation.Invalidation;
+import net.kyori.adventure.key.Key;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.gt;
+import static com.mongodb.client.model.Filters.gte;
+import static com.mongodb.client.model.Filters.lte;
+import static com.mongodb.client.model.Updates.combine;
+import static com.mongodb.client.model.Updates.inc;
+import static com.mongodb.client.model.Updates.set;
+
+/**
+ * Stores accounts as documents within a single MongoDB collection, keyed by a unique compound index over
+ * the currency and owner of each account. Balances are stored as Decimal128 values so no precision is
+ * lost. Balance deltas are applied with {@code $inc}, with their bounds evaluated as part of the update
+ * filter.
+ *
+ * <p>Every write stamps its document with the time it was made, allowing other servers to poll for
+ * changes through an index over that stamp. Accounts which must be saved together, along with groups of
+ * balance deltas, are written within a multi-document transaction, and as such, the deployment must be a
+ * replica set or sharded cluster.
+ */
+public final class MongoProvider implements EconomyStorageImplementation, BalanceDeltas, ChangeFeed {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final StorageCredentials credentials;
+    private final String collection;
+
+    private MongoClient client;
+    private MongoDatabase database;
+    private MongoCollection<Document> accounts;
+
+    public MongoProvider(StorageCredentials credentials, String prefix) {
+        this.credentials = credentials;
+        this.collection = prefix + "accounts";
+    }
+
+    @Override
+    public String name() {
+        return "MongoDB";
+    }
+
+    @Override
+    public void init() throws Exception {
+        String[] address = this.credentials.getAddress().split(":");
+        ServerAddress server = new ServerAddress(address[0], address.length > 1 ? Integer.parseInt(address[1]) : 27017);
+
+        MongoClientSettings.Builder settings = MongoClientSettings.builder()
+                .applyToClusterSettings(cluster -> cluster.hosts(Collections.singletonList(server)))
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(this.credentials.getMaxPoolSize())
+                        .minSize(this.credentials.getMinIdleConnections())
+                );
+
+        if(!this.credentials.getUsername().isEmpty()) {
+            settings.credential(MongoCredential.createCredential(
+                    this.credentials.getUsername(),
+                    this.credentials.getDatabase(),
+                    this.credentials.getPassword().toCharArray()
+            ));
+        }
+
+        this.client = MongoClients.create(settings.build());
+        this.database = this.client.getDatabase(this.credentials.getDatabase());
+        this.accounts = this.database.getCollection(this.collection);
+
+        Document hello = this.database.runCommand(new Document("isMaster", 1));
+        if(!hello.containsKey("setName") && !"isdbgrid".equals(hello.getString("msg"))) {
+            throw new IllegalStateException("MongoDB storage requires a replica set or sharded cluster, as accounts " +
+                    "which must be saved together are written within a transaction. A standalone server may be " +
+                    "converted to a single member replica set.");
+        }
+
+        this.accounts.createIndex(Indexes.ascending("currency", "uuid"), new IndexOptions().unique(true));
+        this.accounts.createIndex(Indexes.ascending("updated"));
+    }
+
+    @Override
+    public void shutdown() throws Exception {
+        if(this.client != null) {
+            this.client.close();
+        }
+    }
+
+    @Override
+    public void meta(PrettyPrinter printer) throws Exception {
+        long start = System.currentTimeMillis();
+        try {
+            this.database.runCommand(new Document("ping", 1));
+            int duration = (int) (System.currentTimeMillis() - start);
+            printer.add("Ping: %dms", (Number) duration);
+        } catch (Exception e) {
+            printer.add("Connection failed...");
+        }
+    }
+
+    @Override
+    public boolean hasAccount(Currency currency, UUID uuid) throws Exception {
+        return this.accounts.find(this.filter(currency, uuid))
+                .projection(new Document("_id", 1))
+                .first() != null;
+    }
+
+    @Override
+    public Account account(Currency currency, UUID uuid, Account.AccountModifier modifier) throws Exception {
+        Document document = this.accounts.find(this.filter(currency, uuid)).first();
+        if(document != null) {
+            return this.read(currency, document);
+        }
+
+        Account.AccountBuilder builder = new ImpactorAccount.ImpactorAccountBuilder();
+        builder.currency(currency).owner(uuid);
+        builder = modifier.modify(builder);
+
+        if(PlatformSource.SERVER_UUID.equals(uuid)) {
+            builder.virtual();
+        }
+
+        Account account = builder.build();
+        this.save(account);
+
+        return account;
+    }
+
+    @Override
+    public void save(Account account) throws Exception {
+        this.accounts.updateOne(this.filter(account), this.update(account, System.currentTimeMillis()), new UpdateOptions().upsert(true));
+    }
+
+    @Override
+    public void save(Collection<Account> accounts) throws Exception {
+        if(accounts.isEmpty()) {
+            return;
+        }
+
+        this.accounts.bulkWrite(this.writes(accounts), new BulkWriteOptions().ordered(false));
+    }
+
+    @Override
+    public void saveAtomically(Collection<Account> accounts) throws Exception {
+        if(accounts.isEmpty()) {
+            return;
+        }
+
+        List<WriteModel<Document>> writes = this.writes(accounts);
+        try(ClientSession session = this.client.startSession()) {
+            session.withTransaction(() -> this.accounts.bulkWrite(session, writes));
+        }
+    }
+
+    @Override
+    public Stream<Account> accounts(Currency currency) throws Exception {
+        MongoCursor<Document> cursor = this.accounts.find(eq("currency", currency.key().asString()))
+                .batchSize(BATCH_SIZE)
+                .iterator();
+
+        Spliterator<Document> spliterator = Spliterators.spliteratorUnknownSize(cursor, Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false)
+                .map(document -> this.read(currency, document))
+                .onClose(cursor::close);
+    }
+
+    @Override
+    public boolean adjust(Account account, BigDecimal amount, @Nullable BigDecimal minimum, @Nullable BigDecimal maximum) throws Exception {
+        Bson update = this.increment(amount, System.currentTimeMillis());
+        return this.accounts.updateOne(this.bounded(account, amount, minimum, maximum), update).getMatchedCount() > 0;
+    }
+
+    @Override
+    public int adjust(List<BalanceAdjustment> adjustments) throws Exception {
+        if(adjustments.isEmpty()) {
+            return -1;
+        }
+
+        long updated = System.currentTimeMillis();
+        try(ClientSession session = this.client.startSession()) {
+            return session.withTransaction(() -> {
+                for(int i = 0; i < adjustments.size(); i++) {
+                    BalanceAdjustment adjustment = adjustments.get(i);
+                    Bson filter = this.bounded(adjustment.account(), adjustment.amount(), adjustment.minimum(), adjustment.maximum());
+                    if(this.accounts.updateOne(session, filter, this.increment(adjustment.amount(), updated)).getMatchedCount() == 0) {
+                        // Aborting within the body leaves the transaction uncommitted, discarding the
+                        // adjustments already applied
+                        session.abortTransaction();
+                        return i;
+                    }
+                }
+
+                return -1;
+            });
+        }
+    }
+
+    @Override
+    @SuppressWarnings("PatternValidation")
+    public List<Invalidation> changes(long since) throws Exception {
+        List<Invalidation> changes = Lists.newArrayList();
+        for(Document document : this.accounts.find(gt("updated", since)).batchSize(BATCH_SIZE)) {
+            changes.add(new Invalidation(
+                    Key.key(document.getString("currency")),
+                    UUID.fromString(document.getString("uuid")),
+                    document.getBoolean("virtual", false),
+                    document.get("balance", Decimal128.class).bigDecimalValue(),
+                    document.getLong("updated")
+            ));
+        }
+
+        return changes;
+    }
+
+    @Override
+    public void delete(Currency currency, UUID uuid) throws Exception {
+        this.accounts.deleteOne(this.filter(currency, uuid));
+    }
+
+    @Override
+    public boolean purge() throws Exception {
+        this.accounts.deleteMany(new Document());
+        return true;
+    }
+
+    private Bson filter(Account account) {
+        return this.filter(account.currency(), account.owner());
+    }
+
+    private Bson filter(Currency currency, UUID uuid) {
+        return and(eq("currency", currency.key().asString()), eq("uuid", uuid.toString()));
+    }
+
+    private Bson bounded(Account account, BigDecimal amount, @Nullable BigDecimal minimum, @Nullable BigDecimal maximum) {
+        List<Bson> filters = Lists.newArrayList(this.filter(account));
+        if(minimum != null) {
+            filters.add(gte("balance", new Decimal128(minimum.subtract(amount))));
+        }
+        if(maximum != null) {
+            filters.add(lte("balance", new Decimal128(maximum.subtract(amount))));
+        }
+
+        return and(filters);
+    }
+
+    private Bson increment(BigDecimal amount, long updated) {
+        return combine(inc("balance", new Decimal128(amount)), set("updated", updated));
+    }
+
+    private List<WriteModel<Document>> writes(Collection<Account> accounts) {
+        long updated = System.currentTimeMillis();
+        UpdateOptions upsert = new UpdateOptions().upsert(true);
+        List<WriteModel<Document>> writes = Lists.newArrayListWithCapacity(accounts.size());
+        for(Account account : accounts) {
+            writes.add(new UpdateOneModel<>(this.filter(account), this.update(account, updated), upsert));
+        }
+
+        return writes;
+    }
+
+    private Bson update(Account account, long updated) {
+        return combine(
+                set("virtual", account.virtual()),
+                set("balance", new Decimal128(account.balance())),
+                set("updated", updated)
+        );
+    }
+
+    private Account read(Currency currency, Document document) {
+        return ImpactorAccount.load(
+                currency,
+                UUID.fromString(document.getString("uuid")),
+                document.getBoolean("virtual", false),
+                document.get("balance", Decimal128.class).bigDecimalValue()
+        );
+    }
+
+}
@@ -25,52 +25,99 @@
 
 package net.impactdev.impactor.core.economy.storage.implementations;
 
-import com.google.common.collect.Multimap;
-import net.impactdev.impactor.api.economy.EconomyService;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import net.impactdev.impactor.api.economy.accounts.Account;
 import net.impactdev.impactor.api.economy.currency.Currency;
-import net.impactdev.impactor.api.economy.currency.CurrencyProvider;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyResultType;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyTransactionType;
 import net.impactdev.impactor.api.storage.connection.sql.SQLConnection;
 import net.impactdev.impactor.api.utility.ExceptionPrinter;
 import net.impactdev.impactor.api.utility.printing.PrettyPrinter;
 import net.impactdev.impactor.core.economy.accounts.ImpactorAccount;
+import net.impactdev.impactor.core.economy.ledger.LedgerEntry;
+import net.impactdev.impactor.core.economy.ledger.LedgerStorage;
+import net.impactdev.impactor.core.economy.storage.BalanceAdjustment;
+import net.impactdev.impactor.core.economy.storage.BalanceDeltas;
 import net.impactdev.impactor.core.economy.storage.EconomyStorageImplementation;
+import net.impactdev.impactor.core.economy.storage.invalidation.ChangeFeed;
+import net.impactdev.impactor.core.economy.storage.invalidation.Invalidation;
 import net.impactdev.impactor.core.plugin.BaseImpactorPlugin;
+import net.impactdev.impactor.core.storage.hikari.HikariConnection;
+import net.impactdev.impactor.core.storage.hikari.PoolStatistics;
+import net.impactdev.impactor.core.storage.sql.StatementTemplates;
 import net.kyori.adventure.key.Key;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public final class SQLProvider implements EconomyStorageImplementation {
+public final class SQLProvider implements EconomyStorageImplementation, BalanceDeltas, LedgerStorage, ChangeFeed {
 
     public static final String HAS_ACCOUNT = "SELECT 1 FROM '{prefix}accounts' WHERE uuid = ? AND currency = ?";
     public static final String ACCOUNT = "SELECT * FROM '{prefix}accounts' WHERE uuid = ? AND currency = ?";
-    public static final String UPDATE_OR_INSERT_ACCOUNT = "INSERT INTO '{prefix}accounts' (uuid, currency, virtual, balance) VALUES(?, ?, ?, ?) ON DUPLICATE KEY UPDATE balance = VALUES(balance)";
-    public static final String ALL_ACCOUNTS = "SELECT * FROM '{prefix}accounts'";
+    public static final String UPDATE_OR_INSERT_ACCOUNT = "INSERT INTO '{prefix}accounts' (uuid, currency, virtual, balance, updated) VALUES(?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE balance = VALUES(balance), updated = VALUES(updated)";
+    public static final String OWNED_ACCOUNTS = "SELECT currency, virtual, balance FROM '{prefix}accounts' WHERE uuid = ?";
+    public static final String ACCOUNTS_FIRST_PAGE = "SELECT uuid, virtual, balance FROM '{prefix}accounts' WHERE currency = ? ORDER BY uuid LIMIT ?";
+    public static final String ACCOUNTS_NEXT_PAGE = "SELECT uuid, virtual, balance FROM '{prefix}accounts' WHERE currency = ? AND uuid > ? ORDER BY uuid LIMIT ?";
+    public static final String ADJUST_ACCOUNT = "UPDATE '{prefix}accounts' SET balance = balance + ?, updated = ? WHERE uuid = ? AND currency = ?";
+    public static final String ADJUST_MINIMUM = " AND balance + ? >= ?";
+    public static final String ADJUST_MAXIMUM = " AND balance + ? <= ?";
+    public static final String CHANGED_ACCOUNTS = "SELECT uuid, currency, virtual, balance, updated FROM '{prefix}accounts' WHERE updated > ?";
     public static final String DELETE_ACCOUNT = "DELETE FROM '{prefix}accounts' WHERE uuid = ? AND currency = ?";
     public static final String TRUNCATE_ACCOUNTS = "TRUNCATE TABLE '{prefix}accounts'";
+    public static final String APPEND_LEDGER = "INSERT INTO '{prefix}ledger' (id, origin, uuid, currency, created, type, amount, balance_before, balance_after, result, counterparty) VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    public static final String LEDGER_HISTORY = "SELECT * FROM '{prefix}ledger' WHERE uuid = ? AND currency = ? AND id < ? ORDER BY id DESC, origin DESC LIMIT ?";
+    public static final String LEDGER_REPLAY = "SELECT entry.uuid, entry.balance_after FROM '{prefix}ledger' entry INNER JOIN (SELECT uuid, MAX(id) AS latest FROM '{prefix}ledger' WHERE currency = ? AND result = ? GROUP BY uuid) latest ON entry.uuid = latest.uuid AND entry.id = latest.latest WHERE entry.currency = ? AND entry.result = ? ORDER BY entry.origin";
+
+    /** Every variant of an adjustment, indexed by whether a minimum (1) and/or maximum (2) is enforced */
+    private static final String[] ADJUSTMENTS = {
+            ADJUST_ACCOUNT,
+            ADJUST_ACCOUNT + ADJUST_MINIMUM,
+            ADJUST_ACCOUNT + ADJUST_MAXIMUM,
+            ADJUST_ACCOUNT + ADJUST_MINIMUM + ADJUST_MAXIMUM
+    };
+    private static final List<String> TEMPLATES = List.of(
+            HAS_ACCOUNT, ACCOUNT, UPDATE_OR_INSERT_ACCOUNT, OWNED_ACCOUNTS, ACCOUNTS_FIRST_PAGE, ACCOUNTS_NEXT_PAGE,
+            ADJUSTMENTS[0], ADJUSTMENTS[1], ADJUSTMENTS[2], ADJUSTMENTS[3],
+            CHANGED_ACCOUNTS, DELETE_ACCOUNT, TRUNCATE_ACCOUNTS, APPEND_LEDGER, LEDGER_HISTORY, LEDGER_REPLAY
+    );
+
+    private static final int PAGE_SIZE = 1000;
 
     private final BaseImpactorPlugin plugin;
     private final SQLConnection factory;
     private final Function<String, String> processor;
+    private final StatementTemplates statements;
 
     public SQLProvider(SQLConnection connection, String prefix) {
         this.plugin = BaseImpactorPlugin.instance();
         this.factory = connection;
         this.processor = connection.statementProcessor().compose(s -> s.replace("{prefix}", prefix));
+        this.statements = new StatementTemplates(this.processor, TEMPLATES);
     }
 
     @Override
@@ -129,10 +176,19 @@ public final class SQLProvider implements EconomyStorageImplementation {
         this.factory.meta(printer);
     }
 
+    @Override
+    public Optional<PoolStatistics> pool() {
+        if(this.factory instanceof HikariConnection hikari) {
+            return hikari.statistics();
+        }
+
+        return Optional.empty();
+    }
+
     @Override
     public boolean hasAccount(Currency currency, UUID uuid) throws Exception {
         return this.query(HAS_ACCOUNT, (connection, ps) -> {
-            ps.setBytes(1, this.uuidToBytes(uuid));
+            ps.setBytes(1, uuidToBytes(uuid));
             ps.setString(2, currency.key().asString());
 
             return ps.executeQuery().next();
@@ -142,14 +198,14 @@ public final class SQLProvider implements EconomyStorageImplementation {
     @Override
     public Account account(Currency currency, UUID uuid, Account.AccountModifier modifier) throws Exception {
         return this.query(ACCOUNT, (connection, ps) -> {
-            ps.setBytes(1, this.uuidToBytes(uuid));
+            ps.setBytes(1, uuidToBytes(uuid));
             ps.setString(2, currency.key().asString());
 
             return this.results(ps, results -> {
                 Account account;
                 if(results.next()) {
                     Account.AccountBuilder builder = Account.builder()
-                            .owner(this.bytesToUUID(results.getBytes("uuid")))
+                            .owner(bytesToUUID(results.getBytes("uuid")))
                             .currency(currency)
                             .balance(results.getBigDecimal("balance"));
 
@@ -171,49 +227,280 @@ public final class SQLProvider implements EconomyStorageImplementation {
         });
     }
 
+    @Override
+    @SuppressWarnings("PatternValidation")
+    public Map<Currency, Account> accounts(UUID owner, Collection<Currency> currencies) throws Exception {
+        Map<Key, Currency> lookup = Maps.newHashMap();
+        currencies.forEach(currency -> lookup.put(currency.key(), currency));
+
+        return this.query(OWNED_ACCOUNTS, (connection, ps) -> {
+            ps.setBytes(1, uuidToBytes(owner));
+
+            return this.results(ps, results -> {
+                Map<Currency, Account> accounts = Maps.newHashMap();
+                while(results.next()) {
+                    Currency currency = lookup.get(Key.key(results.getString("currency")));
+                    if(currency == null) {
+                        continue;
+                    }
+
+                    Account.AccountBuilder builder = Account.builder()
+                            .owner(owner)
+                            .currency(currency)
+                            .balance(results.getBigDecimal("balance"));
+
+                    if(results.getBoolean("virtual")) {
+                        builder.virtual();
+                    }
+
+                    accounts.put(currency, builder.build());
+                }
+
+                return accounts;
+            });
+        });
+    }
+
     @Override
     public void save(Account account) throws Exception {
         this.query(UPDATE_OR_INSERT_ACCOUNT, (connection, ps) -> {
-            ps.setBytes(1, this.uuidToBytes(account.owner()));
+            ps.setBytes(1, uuidToBytes(account.owner()));
             ps.setString(2, account.currency().key().asString());
             ps.setBoolean(3, account.virtual());
             ps.setBigDecimal(4, account.balance());
+            ps.setLong(5, System.currentTimeMillis());
 
             ps.executeUpdate();
             return null;
         });
     }
 
-    @SuppressWarnings("PatternValidation")
     @Override
-    public void accounts(Multimap<Currency, Account> cache) throws Exception {
-        this.query(ALL_ACCOUNTS, (connection, ps) -> this.results(ps, results -> {
-            EconomyService service = EconomyService.instance();
-            CurrencyProvider provider = service.currencies();
-            while(results.next()) {
-                Key key = Key.key(results.getString("currency"));
-                Optional<Currency> currency = provider.currency(key);
-                if(currency.isPresent()) {
-                    Account.AccountBuilder account = Account.builder()
-                            .owner(this.bytesToUUID(results.getBytes("uuid")))
-                            .currency(currency.get())
-                            .balance(results.getBigDecimal("balance"));
+    public void save(Collection<Account> accounts) throws Exception {
+        this.query(UPDATE_OR_INSERT_ACCOUNT, (connection, ps) -> {
+            long updated = System.currentTimeMillis();
+            for(Account account : accounts) {
+                ps.setBytes(1, uuidToBytes(account.owner()));
+                ps.setString(2, account.currency().key().asString());
+                ps.setBoolean(3, account.virtual());
+                ps.setBigDecimal(4, account.balance());
+                ps.setLong(5, updated);
+                ps.addBatch();
+            }
 
-                    if(results.getBoolean("virtual")) {
-                        account.virtual();
+            ps.executeBatch();
+            return null;
+        });
+    }
+
+    @Override
+    public Stream<Account> accounts(Currency currency) throws Exception {
+        Spliterator<Account> spliterator = Spliterators.spliteratorUnknownSize(
+                new KeysetCursor(currency),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL
+        );
+
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    @Override
+    public boolean adjust(Account account, BigDecimal amount, @Nullable BigDecimal minimum, @Nullable BigDecimal maximum) throws Exception {
+        return this.query(this.adjustment(minimum, maximum), (connection, ps) -> {
+            this.bind(ps, account, amount, minimum, maximum, System.currentTimeMillis());
+            return ps.executeUpdate() > 0;
+        });
+    }
+
+    @Override
+    public void saveAtomically(Collection<Account> accounts) throws Exception {
+        this.transaction(connection -> {
+            try(PreparedStatement ps = connection.prepareStatement(this.statements.get(UPDATE_OR_INSERT_ACCOUNT))) {
+                long updated = System.currentTimeMillis();
+                for(Account account : accounts) {
+                    ps.setBytes(1, uuidToBytes(account.owner()));
+                    ps.setString(2, account.currency().key().asString());
+                    ps.setBoolean(3, account.virtual());
+                    ps.setBigDecimal(4, account.balance());
+                    ps.setLong(5, updated);
+                    ps.addBatch();
+                }
+
+                ps.executeBatch();
+            }
+
+            return true;
+        });
+    }
+
+    @Override
+    public int adjust(List<BalanceAdjustment> adjustments) throws Exception {
+        int[] rejected = { -1 };
+        this.transaction(connection -> {
+            // Each variant of the adjustment is prepared at most once per transaction, and reused by
+            // every adjustment sharing its bounds
+            PreparedStatement[] prepared = new PreparedStatement[ADJUSTMENTS.length];
+            try {
+                long updated = System.currentTimeMillis();
+                for(int i = 0; i < adjustments.size(); i++) {
+                    BalanceAdjustment adjustment = adjustments.get(i);
+                    int variant = variant(adjustment.minimum(), adjustment.maximum());
+                    if(prepared[variant] == null) {
+                        prepared[variant] = connection.prepareStatement(this.statements.get(ADJUSTMENTS[variant]));
+                    }
+
+                    PreparedStatement ps = prepared[variant];
+                    this.bind(ps, adjustment.account(), adjustment.amount(), adjustment.minimum(), adjustment.maximum(), updated);
+                    if(ps.executeUpdate() == 0) {
+                        rejected[0] = i;
+                        return false;
+                    }
+                }
+
+                return true;
+            } finally {
+                for(PreparedStatement ps : prepared) {
+                    if(ps != null) {
+                        ps.close();
                     }
-                    cache.put(currency.get(), account.build());
                 }
             }
+        });
 
-            return null;
-        }));
+        return rejected[0];
+    }
+
+    private String adjustment(@Nullable BigDecimal minimum, @Nullable BigDecimal maximum) {
+        return ADJUSTMENTS[variant(minimum, maximum)];
+    }
+
+    private static int variant(@Nullable BigDecimal minimum, @Nullable BigDecimal maximum) {
+        return (minimum != null ? 1 : 0) | (maximum != null ? 2 : 0);
+    }
+
+    private void bind(PreparedStatement ps, Account account, BigDecimal amount, @Nullable BigDecimal minimum, @Nullable BigDecimal maximum, long updated) throws SQLException {
+        int index = 1;
+        ps.setBigDecimal(index++, amount);
+        ps.setLong(index++, updated);
+        ps.setBytes(index++, uuidToBytes(account.owner()));
+        ps.setString(index++, account.currency().key().asString());
+        if(minimum != null) {
+            ps.setBigDecimal(index++, amount);
+            ps.setBigDecimal(index++, minimum);
+        }
+        if(maximum != null) {
+            ps.setBigDecimal(index++, amount);
+            ps.setBigDecimal(index, maximum);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("PatternValidation")
+    public List<Invalidation> changes(long since) throws Exception {
+        return this.query(CHANGED_ACCOUNTS, (connection, ps) -> {
+            ps.setLong(1, since);
+            return this.results(ps, results -> {
+                List<Invalidation> changes = Lists.newArrayList();
+                while(results.next()) {
+                    changes.add(new Invalidation(
+                            Key.key(results.getString("currency")),
+                            bytesToUUID(results.getBytes("uuid")),
+                            results.getBoolean("virtual"),
+                            results.getBigDecimal("balance"),
+                            results.getLong("updated")
+                    ));
+                }
+
+                return changes;
+            });
+        });
+    }
+
+    @Override
+    public void append(List<LedgerEntry> entries) throws Exception {
+        // Written within a transaction, so that a batch which fails can be retried without duplicating entries
+        this.transaction(connection -> {
+            try(PreparedStatement ps = connection.prepareStatement(this.statements.get(APPEND_LEDGER))) {
+                for(LedgerEntry entry : entries) {
+                    ps.setLong(1, entry.id());
+                    ps.setLong(2, entry.origin());
+                    ps.setBytes(3, uuidToBytes(entry.owner()));
+                    ps.setString(4, entry.currency().asString());
+                    ps.setLong(5, entry.timestamp());
+                    ps.setString(6, entry.type().name());
+                    ps.setBigDecimal(7, entry.amount());
+                    ps.setBigDecimal(8, entry.before());
+                    ps.setBigDecimal(9, entry.after());
+                    ps.setString(10, entry.result().name());
+                    if(entry.counterparty() != null) {
+                        ps.setBytes(11, uuidToBytes(entry.counterparty()));
+                    } else {
+                        ps.setNull(11, Types.BINARY);
+                    }
+                    ps.addBatch();
+                }
+
+                ps.executeBatch();
+            }
+
+            return true;
+        });
+    }
+
+    @Override
+    public List<LedgerEntry> history(Currency currency, UUID owner, long before, int limit) throws Exception {
+        return this.query(LEDGER_HISTORY, (connection, ps) -> {
+            ps.setBytes(1, uuidToBytes(owner));
+            ps.setString(2, currency.key().asString());
+            ps.setLong(3, before);
+            ps.setInt(4, limit);
+
+            return this.results(ps, results -> {
+                List<LedgerEntry> entries = Lists.newArrayList();
+                while(results.next()) {
+                    byte[] counterparty = results.getBytes("counterparty");
+                    entries.add(new LedgerEntry(
+                            results.getLong("id"),
+                            results.getLong("origin"),
+                            results.getLong("created"),
+                            currency.key(),
+                            owner,
+                            EconomyTransactionType.valueOf(results.getString("type")),
+                            results.getBigDecimal("amount"),
+                            results.getBigDecimal("balance_before"),
+                            results.getBigDecimal("balance_after"),
+                            EconomyResultType.valueOf(results.getString("result")),
+                            counterparty != null ? bytesToUUID(counterparty) : null
+                    ));
+                }
+
+                return entries;
+            });
+        });
+    }
+
+    @Override
+    public Map<UUID, BigDecimal> replay(Currency currency) throws Exception {
+        return this.query(LEDGER_REPLAY, (connection, ps) -> {
+            ps.setString(1, currency.key().asString());
+            ps.setString(2, EconomyResultType.SUCCESS.name());
+            ps.setString(3, currency.key().asString());
+            ps.setString(4, EconomyResultType.SUCCESS.name());
+
+            return this.results(ps, results -> {
+                Map<UUID, BigDecimal> balances = Maps.newHashMap();
+                while(results.next()) {
+                    balances.put(bytesToUUID(results.getBytes("uuid")), results.getBigDecimal("balance_after"));
+                }
+
+                return balances;
+            });
+        });
     }
 
     @Override
     public void delete(Currency currency, UUID uuid) throws Exception {
         this.query(DELETE_ACCOUNT, (connection, ps) -> {
-            ps.setBytes(1, this.uuidToBytes(uuid));
+            ps.setBytes(1, uuidToBytes(uuid));
             ps.setString(2, currency.key().asString());
 
             return null;
@@ -241,19 +528,142 @@ public final class SQLProvider implements EconomyStorageImplementation {
         }
     }
 
-    private byte[] uuidToBytes(UUID uuid) {
+    private boolean columnExists(String table, String column) throws SQLException {
+        try (Connection connection = this.factory.connection()) {
+            try (ResultSet rs = connection.getMetaData().getColumns(null, null, "%", "%")) {
+                while (rs.next()) {
+                    if (rs.getString(3).equalsIgnoreCase(table) && rs.getString(4).equalsIgnoreCase(column)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Resolves the SQL type of the given column, as defined by {@link Types}.
+     *
+     * @return The type of the column, or {@link Types#NULL} if no such column exists
+     */
+    private int columnType(String table, String column) throws SQLException {
+        try (Connection connection = this.factory.connection()) {
+            try (ResultSet rs = connection.getMetaData().getColumns(null, null, "%", "%")) {
+                while (rs.next()) {
+                    if (rs.getString(3).equalsIgnoreCase(table) && rs.getString(4).equalsIgnoreCase(column)) {
+                        return rs.getInt(5);
+                    }
+                }
+                return Types.NULL;
+            }
+        }
+    }
+
+    /**
+     * Encodes the given UUID as the 16 big-endian bytes stored within the uuid column. The returned array
+     * is the only allocation made.
+     */
+    public static byte[] uuidToBytes(UUID uuid) {
         byte[] bytes = new byte[16];
-        ByteBuffer.wrap(bytes)
-                .order(ByteOrder.BIG_ENDIAN)
-                .putLong(uuid.getMostSignificantBits())
-                .putLong(uuid.getLeastSignificantBits());
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+        for(int i = 0; i < 8; i++) {
+            int shift = 56 - (i << 3);
+            bytes[i] = (byte) (most >>> shift);
+            bytes[i + 8] = (byte) (least >>> shift);
+        }
 
         return bytes;
     }
 
-    private UUID bytesToUUID(byte[] bytes) {
-        ByteBuffer buffer = ByteBuffer.wrap(bytes);
-        return new UUID(buffer.getLong(), buffer.getLong());
+    public static UUID bytesToUUID(byte[] bytes) {
+        long most = 0;
+        long least = 0;
+        for(int i = 0; i < 8; i++) {
+            most = (most << 8) | (bytes[i] & 0xFF);
+            least = (least << 8) | (bytes[i + 8] & 0xFF);
+        }
+
+        return new UUID(most, least);
+    }
+
+    /**
+     * Walks the accounts of a currency in primary key order, fetching a single page at a time. Each page
+     * resumes after the last key of the previous page rather than relying on an offset, so every page
+     * costs an index seek regardless of how deep into the table the cursor is. A connection is only held
+     * for the duration of a page fetch.
+     */
+    private final class KeysetCursor implements Iterator<Account> {
+
+        private final Currency currency;
+        private List<Account> page = Collections.emptyList();
+        private int index;
+        private byte[] last;
+        private boolean exhausted;
+
+        private KeysetCursor(Currency currency) {
+            this.currency = currency;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if(this.index < this.page.size()) {
+                return true;
+            }
+
+            if(this.exhausted) {
+                return false;
+            }
+
+            try {
+                this.page = this.fetch();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to fetch accounts for currency " + this.currency.key().asString(), e);
+            }
+
+            this.index = 0;
+            this.exhausted = this.page.size() < PAGE_SIZE;
+            if(!this.page.isEmpty()) {
+                this.last = uuidToBytes(this.page.get(this.page.size() - 1).owner());
+            }
+
+            return !this.page.isEmpty();
+        }
+
+        @Override
+        public Account next() {
+            if(!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return this.page.get(this.index++);
+        }
+
+        private List<Account> fetch() throws Exception {
+            return query(this.last == null ? ACCOUNTS_FIRST_PAGE : ACCOUNTS_NEXT_PAGE, (connection, ps) -> {
+                int index = 1;
+                ps.setString(index++, this.currency.key().asString());
+                if(this.last != null) {
+                    ps.setBytes(index++, this.last);
+                }
+                ps.setInt(index, PAGE_SIZE);
+
+                return results(ps, results -> {
+                    List<Account> accounts = Lists.newArrayListWithCapacity(PAGE_SIZE);
+                    while(results.next()) {
+                        accounts.add(ImpactorAccount.load(
+                                this.currency,
+                                bytesToUUID(results.getBytes("uuid")),
+                                results.getBoolean("virtual"),
+                                results.getBigDecimal("balance")
+                        ));
+                    }
+
+                    return accounts;
+                });
+            });
+        }
+
     }
 
     @FunctionalInterface
@@ -263,12 +673,40 @@ public final class SQLProvider implements EconomyStorageImplementation {
 
     private <T> T query(String key, Query<T> action) throws Exception {
         try(Connection connection = this.factory.connection()) {
-            try(PreparedStatement ps = connection.prepareStatement(this.processor.apply(key))) {
+            try(PreparedStatement ps = connection.prepareStatement(this.statements.get(key))) {
                 return action.prepare(connection, ps);
             }
         }
     }
 
+    @FunctionalInterface
+    private interface Transaction {
+        boolean execute(Connection connection) throws Exception;
+    }
+
+    /**
+     * Runs the given action within a single database transaction. The transaction is committed only if
+     * the action returns true, and is rolled back otherwise or should the action fail.
+     */
+    private void transaction(Transaction action) throws Exception {
+        try(Connection connection = this.factory.connection()) {
+            boolean previous = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                if(action.execute(connection)) {
+                    connection.commit();
+                } else {
+                    connection.rollback();
+                }
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(previous);
+            }
+        }
+    }
+
     @FunctionalInterface
     private interface Results<T> {
         T results(ResultSet rs) throws Exception;
@@ -282,7 +720,7 @@ public final class SQLProvider implements EconomyStorageImplementation {
 
     private enum SchemaReaders {
         CREATE_TABLE((impl, in) -> in.startsWith("CREATE TABLE"), (impl, in) -> !impl.tableExists(getTable(in))),
-        ALTER_TABLE((impl, in) -> in.startsWith("ALTER TABLE"), (impl, in) -> impl.tableExists(getTable(in))),
+        ALTER_TABLE((impl, in) -> in.startsWith("ALTER TABLE"), (impl, in) -> impl.tableExists(getTable(in)) && !addsExistingColumn(impl, in) && !convertsDecimalColumn(impl, in)),
         ANY((impl, input) -> true, (impl, input) -> true);
 
         private final SchemaPredicate initial;
@@ -323,6 +761,37 @@ public final class SQLProvider implements EconomyStorageImplementation {
             }
         }
 
+        /**
+         * Checks whether the given statement adds a column which already exists, as not every supported
+         * database allows a column to be conditionally added.
+         */
+        private static boolean addsExistingColumn(SQLProvider impl, String in) throws SQLException {
+            int index = in.indexOf("ADD COLUMN");
+            if(index == -1) {
+                return false;
+            }
+
+            int start = in.indexOf('`', index);
+            String column = in.substring(start + 1, in.indexOf('`', start + 1));
+            return impl.columnExists(getTable(in), column);
+        }
+
+        /**
+         * Checks whether the given statement changes the type of a column which is already stored as a
+         * fixed-point decimal, so that the table is not rebuilt on every startup.
+         */
+        private static boolean convertsDecimalColumn(SQLProvider impl, String in) throws SQLException {
+            int index = in.indexOf("MODIFY COLUMN");
+            if(index == -1) {
+                return false;
+            }
+
+            int start = in.indexOf('`', index);
+            String column = in.substring(start + 1, in.indexOf('`', start + 1));
+            int type = impl.columnType(getTable(in), column);
+            return type == Types.DECIMAL || type == Types.NUMERIC;
+        }
+
         private static String getTable(String in) {
             int start = in.indexOf('`');
             return in.substring(start + 1, in.indexOf('`', start + 1));
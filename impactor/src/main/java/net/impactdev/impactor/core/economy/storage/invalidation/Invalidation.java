@@ -0,0 +1,55 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.storage.invalidation;
+
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.kyori.adventure.key.Key;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Identifies an account which has been changed by another server.
+ *
+ * @param currency The key of the currency of the account
+ * @param owner The owner of the account
+ * @param virtual Whether the account is virtual
+ * @param balance The balance the account was written with, or null if unknown, in which case the
+ *                account must be read again from storage
+ * @param updated The time, in epoch milliseconds, the change was written at
+ */
+public record Invalidation(Key currency, UUID owner, boolean virtual, @Nullable BigDecimal balance, long updated) {
+
+    public static Invalidation of(Account account) {
+        return new Invalidation(account.currency().key(), account.owner(), account.virtual(), account.balance(), System.currentTimeMillis());
+    }
+
+    public static Invalidation unknown(Account account) {
+        return new Invalidation(account.currency().key(), account.owner(), account.virtual(), null, System.currentTimeMillis());
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.storage.invalidation;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Carries notifications of account changes between the servers sharing a single economy storage. Each
+ * server publishes the accounts it has written, and is notified of the accounts written by every other
+ * server so that its cached copies can be brought up to date.
+ */
+public interface InvalidationChannel {
+
+    /**
+     * Begins listening for changes made by other servers. The listener may be invoked from any thread.
+     *
+     * @param listener The listener receiving changes made elsewhere
+     * @throws Exception If the channel could not be started
+     */
+    void start(Consumer<Collection<Invalidation>> listener) throws Exception;
+
+    /**
+     * Notifies other servers of accounts this server has written.
+     *
+     * @param invalidations The accounts which have changed
+     * @throws Exception If the notification could not be sent
+     */
+    void publish(Collection<Invalidation> invalidations) throws Exception;
+
+    void shutdown() throws Exception;
+
+    /**
+     * Provides a channel which neither publishes nor receives any changes, for storage that is not shared
+     * with any other server.
+     *
+     * @return A channel which does nothing
+     */
+    static InvalidationChannel none() {
+        return NoInvalidationChannel.INSTANCE;
+    }
+
+    final class NoInvalidationChannel implements InvalidationChannel {
+
+        private static final NoInvalidationChannel INSTANCE = new NoInvalidationChannel();
+
+        @Override
+        public void start(Consumer<Collection<Invalidation>> listener) {}
+
+        @Override
+        public void publish(Collection<Invalidation> invalidations) {}
+
+        @Override
+        public void shutdown() {}
+
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.storage.invalidation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A channel delivering changes between storages living within the same JVM. Every channel attached to
+ * the same {@link Bus} receives the changes published by every other channel on that bus.
+ */
+public final class LocalInvalidationChannel implements InvalidationChannel {
+
+    private final Bus bus;
+    private volatile Consumer<Collection<Invalidation>> listener;
+
+    public LocalInvalidationChannel(Bus bus) {
+        this.bus = bus;
+    }
+
+    @Override
+    public void start(Consumer<Collection<Invalidation>> listener) {
+        this.listener = listener;
+        this.bus.channels.add(this);
+    }
+
+    @Override
+    public void publish(Collection<Invalidation> invalidations) {
+        for(LocalInvalidationChannel channel : this.bus.channels) {
+            if(channel != this) {
+                channel.listener.accept(invalidations);
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        this.bus.channels.remove(this);
+    }
+
+    public static final class Bus {
+
+        private final List<LocalInvalidationChannel> channels = new CopyOnWriteArrayList<>();
+
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.storage.invalidation;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.impactdev.impactor.api.utility.ExceptionPrinter;
+import net.impactdev.impactor.core.plugin.BaseImpactorPlugin;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Detects changes made by other servers by polling storage for accounts whose update time has advanced
+ * since the previous poll. Every write stamps its account with the time it was made, so no explicit
+ * publishing is necessary.
+ *
+ * <p>Each poll reaches back over an overlap window rather than starting exactly where the previous poll
+ * ended. This tolerates small clock differences between servers, and writes which committed after the
+ * previous poll despite being stamped before it. Changes within the window are delivered more than
+ * once, which is harmless as applying a change is idempotent.
+ */
+public final class PollingInvalidationChannel implements InvalidationChannel {
+
+    private static final long MINIMUM_OVERLAP = TimeUnit.SECONDS.toMillis(5);
+
+    private final ChangeFeed feed;
+    private final long interval;
+    private final long overlap;
+    private final ScheduledExecutorService poller;
+
+    private long since;
+
+    public PollingInvalidationChannel(ChangeFeed feed, long interval) {
+        this.feed = feed;
+        this.interval = interval;
+        this.overlap = Math.max(MINIMUM_OVERLAP, interval * 2);
+        this.poller = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("Impactor Economy Invalidation Poller")
+                .setDaemon(true)
+                .build()
+        );
+    }
+
+    @Override
+    public void start(Consumer<Collection<Invalidation>> listener) {
+        this.since = System.currentTimeMillis();
+        this.poller.scheduleWithFixedDelay(() -> {
+            try {
+                long now = System.currentTimeMillis();
+                List<Invalidation> changes = this.feed.changes(this.since - this.overlap);
+                this.since = now;
+
+                if(!changes.isEmpty()) {
+                    listener.accept(changes);
+                }
+            } catch (Exception e) {
+                ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+            }
+        }, this.interval, this.interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void publish(Collection<Invalidation> invalidations) {}
+
+    @Override
+    public void shutdown() throws Exception {
+        this.poller.shutdown();
+        this.poller.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.storage.metrics;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import net.impactdev.impactor.api.utility.printing.PrettyPrinter;
+import net.impactdev.impactor.core.storage.hikari.PoolStatistics;
+import net.impactdev.impactor.core.utility.future.ThrowingSupplier;
+import net.impactdev.impactor.core.utility.metrics.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the time taken by operations performed against the underlying storage of the economy, along
+ * with how many storage tasks are waiting on or occupying the storage executor. Metrics are collected for
+ * the lifetime of the storage, and may be polled at any time through {@link #snapshot(CacheStats, Optional)}.
+ */
+public final class StorageMetrics {
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder rejections = new LongAdder();
+
+    public StorageMetrics() {
+        for(Operation operation : Operation.values()) {
+            this.latencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Marks a task as submitted to the executor. Every submission must be followed by a call to
+     * {@link #started()} once the task begins executing.
+     */
+    public void submitted() {
+        this.queued.incrementAndGet();
+    }
+
+    public void started() {
+        this.queued.decrementAndGet();
+        this.running.incrementAndGet();
+    }
+
+    public void finished() {
+        this.running.decrementAndGet();
+    }
+
+    /**
+     * Marks a submitted task as having been rejected by the executor, such that it will never start.
+     */
+    public void rejected() {
+        this.queued.decrementAndGet();
+        this.rejections.increment();
+    }
+
+    /**
+     * Performs an operation against the underlying storage, recording how long it took and whether it
+     * failed.
+     *
+     * @param operation The type of operation being performed
+     * @param action The operation to perform
+     * @return The result of the operation
+     * @throws Exception If the operation fails
+     */
+    public <T> T time(Operation operation, ThrowingSupplier<T> action) throws Exception {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = action.supply();
+            failed = false;
+            return result;
+        } finally {
+            this.latencies.get(operation).record(System.nanoTime() - start, failed);
+        }
+    }
+
+    public Snapshot snapshot(CacheStats cache, Optional<PoolStatistics> pool) {
+        Map<Operation, LatencyHistogram.Snapshot> latencies = new EnumMap<>(Operation.class);
+        this.latencies.forEach((operation, histogram) -> latencies.put(operation, histogram.snapshot()));
+
+        return new Snapshot(
+                Collections.unmodifiableMap(latencies),
+                this.queued.get(),
+                this.running.get(),
+                this.rejections.sum(),
+                cache.hitRate(),
+                cache.requestCount(),
+                cache.evictionCount(),
+                pool
+        );
+    }
+
+    public enum Operation {
+        HAS_ACCOUNT,
+        ACCOUNT,
+        SAVE,
+        ACCOUNTS,
+        DELETE,
+        ADJUST
+    }
+
+    /**
+     * A point in time view of the metrics of the economy storage.
+     *
+     * @param latencies The latency of each type of operation, in microseconds
+     * @param queued The number of storage tasks waiting for the storage executor
+     * @param running The number of storage tasks currently executing
+     * @param rejected The number of storage tasks rejected as the executor was saturated
+     * @param hitRate The ratio of account lookups served by the account cache
+     * @param requests The number of account lookups made against the account cache
+     * @param evictions The number of accounts evicted from the account cache
+     * @param pool The state of the connection pool, if the storage is backed by one
+     */
+    public record Snapshot(
+            Map<Operation, LatencyHistogram.Snapshot> latencies,
+            int queued,
+            int running,
+            long rejected,
+            double hitRate,
+            long requests,
+            long evictions,
+            Optional<PoolStatistics> pool
+    ) {
+
+        public void print(PrettyPrinter printer) {
+            printer.table("Operation", "Count", "Failures", "Mean", "p50", "p95", "p99", "Max");
+            this.latencies.forEach((operation, latency) -> printer.tr(
+                    operation.name(),
+                    String.valueOf(latency.count()),
+                    String.valueOf(latency.failures()),
+                    latency.mean() + "us",
+                    latency.p50() + "us",
+                    latency.p95() + "us",
+                    latency.p99() + "us",
+                    latency.max() + "us"
+            ));
+
+            printer.newline();
+            printer.kv("Queued Tasks", this.queued);
+            printer.kv("Running Tasks", this.running);
+            printer.kv("Rejected Tasks", this.rejected);
+            printer.kv("Cache Hit Rate", String.format("%.2f%%", this.hitRate * 100));
+            printer.kv("Cache Requests", this.requests);
+            printer.kv("Cache Evictions", this.evictions);
+            this.pool.ifPresent(pool -> {
+                printer.kv("Active Connections", pool.active());
+                printer.kv("Idle Connections", pool.idle());
+                printer.kv("Total Connections", pool.total());
+                printer.kv("Awaiting Connection", pool.waiting());
+            });
+        }
+
+    }
+
+}
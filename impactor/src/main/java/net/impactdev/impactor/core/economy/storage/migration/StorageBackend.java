@@ -0,0 +1,91 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.storage.migration;
+
+import net.impactdev.impactor.api.configuration.Config;
+import net.impactdev.impactor.api.storage.StorageType;
+import net.impactdev.impactor.core.economy.EconomyConfig;
+import net.impactdev.impactor.core.economy.storage.implementations.JournalProvider;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Identifies a storage backend which accounts may be migrated from or to. This is either one of the
+ * {@link StorageType storage types}, or the journal, which is selected through the storage method rather
+ * than as a storage type.
+ *
+ * @param type The storage type of the backend, or null if the backend is the journal
+ */
+public record StorageBackend(@Nullable StorageType type) {
+
+    public static final StorageBackend JOURNAL = new StorageBackend(null);
+
+    public static StorageBackend of(StorageType type) {
+        return new StorageBackend(type);
+    }
+
+    /**
+     * Resolves a backend by name, being either the journal or any of the storage types.
+     *
+     * @param name The name of the backend
+     * @return The backend of the given name, or empty if no such backend exists
+     */
+    public static Optional<StorageBackend> parse(String name) {
+        if(JournalProvider.METHOD.equalsIgnoreCase(name)) {
+            return Optional.of(JOURNAL);
+        }
+
+        return Arrays.stream(StorageType.values())
+                .filter(type -> type.name().equalsIgnoreCase(name) || type.getName().equalsIgnoreCase(name))
+                .findFirst()
+                .map(StorageBackend::of);
+    }
+
+    /**
+     * Resolves the backend the running economy has been configured to use.
+     *
+     * @param config The economy configuration
+     * @return The backend in use by the running economy
+     */
+    public static StorageBackend active(Config config) {
+        if(JournalProvider.METHOD.equalsIgnoreCase(config.get(EconomyConfig.STORAGE_METHOD))) {
+            return JOURNAL;
+        }
+
+        return of(Optional.ofNullable(config.get(EconomyConfig.STORAGE_TYPE)).orElse(StorageType.JSON));
+    }
+
+    public boolean journal() {
+        return this.type == null;
+    }
+
+    public String name() {
+        return this.type != null ? this.type.getName() : "Journal";
+    }
+
+}
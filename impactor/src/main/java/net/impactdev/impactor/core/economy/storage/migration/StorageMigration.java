@@ -0,0 +1,343 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.storage.migration;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.impactdev.impactor.api.economy.currency.Currency;
+import net.impactdev.impactor.api.storage.StorageType;
+import net.impactdev.impactor.core.economy.ImpactorEconomyService;
+import net.impactdev.impactor.core.economy.storage.EconomyStorageImplementation;
+import net.impactdev.impactor.core.economy.storage.StorageFactory;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Copies every account of a set of currencies from one storage implementation to another. Accounts are
+ * streamed from the source and handed to the writer through a bounded queue, so no more than a few
+ * batches of accounts are ever held in memory at once, regardless of how many accounts are stored.
+ *
+ * <p>Once a currency has been copied, the target is read back in full and compared against what was
+ * written, by both the number of accounts and an order-independent checksum of their contents. As the
+ * comparison covers the entire target, accounts which existed within the target beforehand will cause
+ * verification to fail.
+ *
+ * <p>Migrations run on threads of their own, rather than those shared with the running economy, as a
+ * migration may occupy them for as long as it takes to copy every account.
+ */
+public final class StorageMigration {
+
+    private static final Set<StorageType> FILE_TYPES = EnumSet.of(StorageType.JSON, StorageType.YAML, StorageType.HOCON);
+
+    /** The number of threads reading accounts from implementations which support parallel reads */
+    private static final int PARALLELISM = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    private final StorageBackend from;
+    private final StorageBackend to;
+    private final int batch;
+
+    public StorageMigration(StorageBackend from, StorageBackend to, int batch) {
+        this.from = from;
+        this.to = to;
+        this.batch = Math.max(1, batch);
+    }
+
+    /**
+     * Indicates whether accounts can be migrated between the given backends. File based types share
+     * the same directory of accounts, so migrating between them would read and overwrite the same files.
+     *
+     * @param from The backend to migrate from
+     * @param to The backend to migrate to
+     * @return true if a migration between the backends is possible
+     */
+    public static boolean supported(StorageBackend from, StorageBackend to) {
+        return !from.equals(to) && !(FILE_TYPES.contains(from.type()) && FILE_TYPES.contains(to.type()));
+    }
+
+    public StorageBackend from() {
+        return this.from;
+    }
+
+    public StorageBackend to() {
+        return this.to;
+    }
+
+    /**
+     * Starts migrating the accounts of every registered currency on a dedicated thread.
+     *
+     * @param service The running economy service
+     * @param progress Notified after each batch of accounts has been written
+     * @return A future supplying the outcome of verifying each currency
+     * @see #migrate(ImpactorEconomyService, Consumer)
+     */
+    public CompletableFuture<List<Verification>> start(ImpactorEconomyService service, Consumer<Progress> progress) {
+        CompletableFuture<List<Verification>> result = new CompletableFuture<>();
+        new ThreadFactoryBuilder()
+                .setNameFormat("Impactor Economy Migration")
+                .setDaemon(true)
+                .build()
+                .newThread(() -> {
+                    try {
+                        result.complete(this.migrate(service, progress));
+                    } catch (Throwable e) {
+                        result.completeExceptionally(e);
+                    }
+                })
+                .start();
+
+        return result;
+    }
+
+    /**
+     * Migrates the accounts of every registered currency. Any modifications staged by the running economy
+     * are written beforehand, and the implementation of the running economy is reused for whichever side
+     * of the migration it backs. Should that be the target, every account the running economy holds in
+     * memory is reloaded afterwards, so none are left holding balances the migration has overwritten.
+     * This blocks until the migration completes, and must not be invoked on the main thread.
+     *
+     * @param service The running economy service
+     * @param progress Notified after each batch of accounts has been written
+     * @return The outcome of verifying each currency
+     * @throws Exception If any account could not be read or written
+     */
+    public List<Verification> migrate(ImpactorEconomyService service, Consumer<Progress> progress) throws Exception {
+        service.storage().drain().join();
+
+        EconomyStorageImplementation source = this.open(service, this.from);
+        try {
+            EconomyStorageImplementation target = this.open(service, this.to);
+            try {
+                List<Verification> results = this.migrate(source, target, service.currencies().registered(), progress);
+                if(target == service.storage().implementation()) {
+                    service.storage().reload();
+                }
+
+                return results;
+            } finally {
+                this.close(service, target);
+            }
+        } finally {
+            this.close(service, source);
+        }
+    }
+
+    /**
+     * Copies and then verifies the accounts of each given currency, one currency at a time.
+     *
+     * @param source The implementation to read accounts from
+     * @param target The implementation to write accounts to
+     * @param currencies The currencies to migrate the accounts of
+     * @param progress Notified after each batch of accounts has been written
+     * @return The outcome of verifying each currency, in the order the currencies were supplied
+     * @throws Exception If any account could not be read or written
+     */
+    public List<Verification> migrate(
+            EconomyStorageImplementation source,
+            EconomyStorageImplementation target,
+            Collection<Currency> currencies,
+            Consumer<Progress> progress
+    ) throws Exception {
+        // Parallel streams run within the pool they are consumed from, keeping reads off of the common pool
+        ForkJoinPool reader = new ForkJoinPool(source.parallelReads() ? PARALLELISM : 1, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Impactor Economy Migration Reader-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+
+        try {
+            List<Verification> results = Lists.newArrayListWithCapacity(currencies.size());
+            for(Currency currency : currencies) {
+                Tally written = this.transfer(source, target, currency, reader, progress);
+
+                Tally stored = new Tally();
+                try(Stream<Account> accounts = target.accounts(currency)) {
+                    accounts.forEach(stored::add);
+                }
+
+                results.add(new Verification(currency, written.count, stored.count, written.checksum == stored.checksum));
+            }
+
+            return results;
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    private EconomyStorageImplementation open(ImpactorEconomyService service, StorageBackend backend) throws Exception {
+        if(backend.equals(StorageBackend.active(service.config()))) {
+            return service.storage().implementation();
+        }
+
+        EconomyStorageImplementation implementation = backend.journal()
+                ? StorageFactory.journal()
+                : StorageFactory.implementation(backend.type(), service.config());
+        implementation.init();
+        return implementation;
+    }
+
+    private void close(ImpactorEconomyService service, EconomyStorageImplementation implementation) throws Exception {
+        if(implementation != service.storage().implementation()) {
+            implementation.shutdown();
+        }
+    }
+
+    private Tally transfer(
+            EconomyStorageImplementation source,
+            EconomyStorageImplementation target,
+            Currency currency,
+            ForkJoinPool reader,
+            Consumer<Progress> progress
+    ) throws Exception {
+        BlockingQueue<Account> queue = new ArrayBlockingQueue<>(this.batch * 2);
+        AtomicBoolean aborted = new AtomicBoolean();
+
+        CompletableFuture<Void> reading = CompletableFuture.runAsync(() -> {
+            try(Stream<Account> accounts = source.accounts(currency)) {
+                Stream<Account> stream = source.parallelReads() ? accounts.parallel() : accounts;
+                stream.forEach(account -> {
+                    try {
+                        while(!queue.offer(account, 100, TimeUnit.MILLISECONDS)) {
+                            if(aborted.get()) {
+                                throw new CancellationException();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new CancellationException();
+                    }
+                });
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, reader);
+
+        Tally tally = new Tally();
+        List<Account> pending = Lists.newArrayListWithCapacity(this.batch);
+        try {
+            while(true) {
+                Account account = queue.poll(100, TimeUnit.MILLISECONDS);
+                if(account == null) {
+                    // The reader only completes after its final account has been queued
+                    if(reading.isDone() && queue.isEmpty()) {
+                        break;
+                    }
+
+                    continue;
+                }
+
+                pending.add(account);
+                queue.drainTo(pending, this.batch - pending.size());
+                if(pending.size() >= this.batch) {
+                    this.write(target, currency, pending, tally, progress);
+                }
+            }
+
+            if(!pending.isEmpty()) {
+                this.write(target, currency, pending, tally, progress);
+            }
+
+            reading.get();
+            return tally;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            aborted.set(true);
+        }
+    }
+
+    private void write(EconomyStorageImplementation target, Currency currency, List<Account> pending, Tally tally, Consumer<Progress> progress) throws Exception {
+        target.save(pending);
+        pending.forEach(tally::add);
+        pending.clear();
+
+        progress.accept(new Progress(currency, tally.count));
+    }
+
+    /**
+     * Reports the number of accounts of a currency written so far.
+     */
+    public record Progress(Currency currency, long migrated) {}
+
+    /**
+     * Describes the outcome of verifying a single currency, where the accounts read from the source
+     * are compared against those held by the target once the copy has completed.
+     */
+    public record Verification(Currency currency, long source, long target, boolean checksums) {
+
+        public boolean valid() {
+            return this.source == this.target && this.checksums;
+        }
+
+    }
+
+    private static final class Tally {
+
+        private long count;
+        private long checksum;
+
+        private void add(Account account) {
+            UUID owner = account.owner();
+            long hash = owner.getMostSignificantBits();
+            hash = hash * 31 + owner.getLeastSignificantBits();
+            hash = hash * 31 + account.balance().stripTrailingZeros().hashCode();
+            hash = hash * 31 + (account.virtual() ? 1 : 0);
+
+            // Summing mixed hashes keeps the checksum independent of the order accounts are visited in
+            this.count++;
+            this.checksum += mix(hash);
+        }
+
+        private static long mix(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+
+    }
+
+}
@@ -0,0 +1,455 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.storage.ranking;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.impactdev.impactor.api.economy.accounts.Account;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Maintains the accounts of a single currency ordered by balance, highest first. Entries are held
+ * within an order-statistic treap, allowing updates, rank lookups, and the first entry of a top-N
+ * query to each be served in O(log n).
+ *
+ * <p>An index starts out empty and unbuilt. Updates received before a build has begun are ignored,
+ * as the build will observe them from storage. Updates and removals received while a build is in
+ * progress are held aside and applied over the built snapshot, as they are guaranteed to be newer
+ * than it. The snapshot is read into a tree of its own without holding the lock of the index, which
+ * is only taken to apply what was held aside and swap the new tree in, so updates are never held up
+ * by a build.
+ *
+ * <p>Clearing the index abandons any build in progress. The snapshot of an abandoned build predates
+ * the clear, so it is discarded once it arrives rather than being applied to the index.
+ */
+public final class BalanceIndex {
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::balance)
+            .reversed()
+            .thenComparing(Entry::owner);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<UUID, Entry> entries = Maps.newHashMap();
+    private Node root;
+
+    private State state = State.UNBUILT;
+
+    /** Changes received during a build, keyed by owner, where a null entry marks a removal */
+    private Map<UUID, Entry> pending;
+    private CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    /** Incremented each time the index is cleared, identifying the builds which have been abandoned */
+    private long generation;
+
+    /**
+     * Attempts to claim the responsibility of building this index. Only one caller will ever
+     * receive a build until it either completes, fails, or is abandoned by clearing the index.
+     *
+     * @return The build the caller should complete, or empty if the index is built or being built
+     */
+    public Optional<Build> begin() {
+        this.lock.writeLock().lock();
+        try {
+            if(this.state != State.UNBUILT) {
+                return Optional.empty();
+            }
+
+            this.state = State.BUILDING;
+            this.pending = Maps.newHashMap();
+            return Optional.of(new Build(this.generation));
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    public CompletableFuture<Void> ready() {
+        this.lock.readLock().lock();
+        try {
+            return this.ready;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    public void update(Account account) {
+        Entry entry = new Entry(account.owner(), account.balance(), account.virtual());
+        this.lock.writeLock().lock();
+        try {
+            switch (this.state) {
+                case BUILDING -> this.pending.put(entry.owner(), entry);
+                case READY -> this.insert(entry);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID owner) {
+        this.lock.writeLock().lock();
+        try {
+            switch (this.state) {
+                case BUILDING -> this.pending.put(owner, null);
+                case READY -> this.delete(owner);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Discards all entries held by this index, returning it to an unbuilt state. The next query
+     * against the index will rebuild it from storage. Any build in progress is abandoned, and those
+     * waiting on it are cancelled.
+     */
+    public void clear() {
+        CompletableFuture<Void> previous;
+        this.lock.writeLock().lock();
+        try {
+            this.reset();
+            this.generation++;
+            previous = this.ready;
+            this.ready = new CompletableFuture<>();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+
+        previous.cancel(false);
+    }
+
+    private void reset() {
+        this.entries.clear();
+        this.root = null;
+        this.pending = null;
+        this.state = State.UNBUILT;
+    }
+
+    /**
+     * Locates the position of the given owner within this index, where 1 represents the highest
+     * balance.
+     *
+     * @param owner The owner of the account to locate
+     * @return The 1-based rank of the account, or empty if the index holds no such account
+     */
+    public Optional<Integer> rank(UUID owner) {
+        this.lock.readLock().lock();
+        try {
+            Entry entry = this.entries.get(owner);
+            if(entry == null) {
+                return Optional.empty();
+            }
+
+            int rank = 0;
+            Node node = this.root;
+            while(node != null) {
+                int comparison = ORDER.compare(entry, node.entry);
+                if(comparison < 0) {
+                    node = node.left;
+                } else if(comparison == 0) {
+                    return Optional.of(rank + size(node.left) + 1);
+                } else {
+                    rank += size(node.left) + 1;
+                    node = node.right;
+                }
+            }
+
+            return Optional.empty();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Collects up to the given number of entries in descending order of balance.
+     *
+     * @param count The maximum number of entries to return
+     * @param virtual Whether virtual accounts should be included in the results
+     * @return The highest ranked entries of this index
+     */
+    public List<Entry> top(int count, boolean virtual) {
+        List<Entry> results = Lists.newArrayListWithCapacity(Math.max(0, count));
+        this.lock.readLock().lock();
+        try {
+            Deque<Node> stack = new ArrayDeque<>();
+            Node node = this.root;
+            while((node != null || !stack.isEmpty()) && results.size() < count) {
+                while(node != null) {
+                    stack.push(node);
+                    node = node.left;
+                }
+
+                node = stack.pop();
+                if(virtual || !node.entry.virtual()) {
+                    results.add(node.entry);
+                }
+                node = node.right;
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        return results;
+    }
+
+    public int size() {
+        this.lock.readLock().lock();
+        try {
+            return size(this.root);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void insert(Entry entry) {
+        Entry existing = this.entries.put(entry.owner(), entry);
+        if(existing != null) {
+            this.root = remove(this.root, existing);
+        }
+
+        this.root = insert(this.root, new Node(entry));
+    }
+
+    private void delete(UUID owner) {
+        Entry existing = this.entries.remove(owner);
+        if(existing != null) {
+            this.root = remove(this.root, existing);
+        }
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void resize(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static Node insert(Node node, Node target) {
+        if(node == null) {
+            return target;
+        }
+
+        if(target.priority > node.priority) {
+            Node[] parts = split(node, target.entry);
+            target.left = parts[0];
+            target.right = parts[1];
+            resize(target);
+            return target;
+        }
+
+        if(ORDER.compare(target.entry, node.entry) < 0) {
+            node.left = insert(node.left, target);
+        } else {
+            node.right = insert(node.right, target);
+        }
+
+        resize(node);
+        return node;
+    }
+
+    private static Node remove(Node node, Entry key) {
+        if(node == null) {
+            return null;
+        }
+
+        int comparison = ORDER.compare(key, node.entry);
+        if(comparison == 0) {
+            return merge(node.left, node.right);
+        }
+
+        if(comparison < 0) {
+            node.left = remove(node.left, key);
+        } else {
+            node.right = remove(node.right, key);
+        }
+
+        resize(node);
+        return node;
+    }
+
+    /**
+     * Splits the given subtree into the entries ordered before the key, and those ordered
+     * at or after the key.
+     */
+    private static Node[] split(Node node, Entry key) {
+        if(node == null) {
+            return new Node[2];
+        }
+
+        if(ORDER.compare(node.entry, key) < 0) {
+            Node[] parts = split(node.right, key);
+            node.right = parts[0];
+            resize(node);
+            return new Node[] { node, parts[1] };
+        }
+
+        Node[] parts = split(node.left, key);
+        node.left = parts[1];
+        resize(node);
+        return new Node[] { parts[0], node };
+    }
+
+    /**
+     * Merges two subtrees, where every entry of the left subtree is ordered before every
+     * entry of the right subtree.
+     */
+    private static Node merge(Node left, Node right) {
+        if(left == null) {
+            return right;
+        }
+
+        if(right == null) {
+            return left;
+        }
+
+        if(left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            resize(left);
+            return left;
+        }
+
+        right.left = merge(left, right.left);
+        resize(right);
+        return right;
+    }
+
+    public record Entry(UUID owner, BigDecimal balance, boolean virtual) {}
+
+    /**
+     * A build of the index claimed through {@link #begin()}. Should the index be cleared before the
+     * build finishes, its outcome is ignored.
+     */
+    public final class Build {
+
+        private final long generation;
+
+        private Build(long generation) {
+            this.generation = generation;
+        }
+
+        /**
+         * Builds the index from a snapshot of every account. The snapshot may be read lazily from
+         * storage, and is consumed before the lock of the index is taken.
+         *
+         * @param snapshot Every account of the currency, as held by storage
+         */
+        public void complete(Iterable<Account> snapshot) {
+            Map<UUID, Entry> entries = Maps.newHashMap();
+            Node root = null;
+            for(Account account : snapshot) {
+                Entry entry = new Entry(account.owner(), account.balance(), account.virtual());
+                Entry existing = entries.put(entry.owner(), entry);
+                if(existing != null) {
+                    root = remove(root, existing);
+                }
+
+                root = insert(root, new Node(entry));
+            }
+
+            BalanceIndex index = BalanceIndex.this;
+            CompletableFuture<Void> ready;
+            index.lock.writeLock().lock();
+            try {
+                if(this.abandoned()) {
+                    return;
+                }
+
+                index.entries = entries;
+                index.root = root;
+                index.pending.forEach((owner, entry) -> {
+                    if(entry == null) {
+                        index.delete(owner);
+                    } else {
+                        index.insert(entry);
+                    }
+                });
+                index.pending = null;
+                index.state = State.READY;
+                ready = index.ready;
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+
+            ready.complete(null);
+        }
+
+        public void fail(Throwable error) {
+            BalanceIndex index = BalanceIndex.this;
+            CompletableFuture<Void> ready;
+            index.lock.writeLock().lock();
+            try {
+                if(this.abandoned()) {
+                    return;
+                }
+
+                index.reset();
+                ready = index.ready;
+                index.ready = new CompletableFuture<>();
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+
+            ready.completeExceptionally(error);
+        }
+
+        private boolean abandoned() {
+            return this.generation != BalanceIndex.this.generation;
+        }
+
+    }
+
+    private enum State {
+        UNBUILT,
+        BUILDING,
+        READY
+    }
+
+    private static final class Node {
+
+        private final Entry entry;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        private Node(Entry entry) {
+            this.entry = entry;
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.economy.transactions.bulk;
+
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.impactdev.impactor.api.economy.transactions.EconomyTransaction;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyResultType;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyTransactionType;
+import net.impactdev.impactor.core.economy.transactions.ImpactorEconomyTransaction;
+
+import java.math.BigDecimal;
+
+/**
+ * Represents a single operation of a bulk transaction.
+ *
+ * @param account The account to operate on
+ * @param type The type of operation, being one of SET, WITHDRAW, DEPOSIT, or RESET
+ * @param amount The amount of the operation, ignored by RESET
+ */
+public record BulkOperation(Account account, EconomyTransactionType type, BigDecimal amount) {
+
+    public static BulkOperation deposit(Account account, BigDecimal amount) {
+        return new BulkOperation(account, EconomyTransactionType.DEPOSIT, amount);
+    }
+
+    public static BulkOperation withdraw(Account account, BigDecimal amount) {
+        return new BulkOperation(account, EconomyTransactionType.WITHDRAW, amount);
+    }
+
+    public static BulkOperation set(Account account, BigDecimal amount) {
+        return new BulkOperation(account, EconomyTransactionType.SET, amount);
+    }
+
+    public static BulkOperation reset(Account account) {
+        return new BulkOperation(account, EconomyTransactionType.RESET, account.currency().defaultAccountBalance());
+    }
+
+    /**
+     * Creates the transaction reporting the outcome of this operation.
+     *
+     * @param result The result of the operation
+     * @return A transaction representing this operation
+     */
+    public EconomyTransaction transaction(EconomyResultType result) {
+        return ImpactorEconomyTransaction.builder()
+                .account(this.account)
+                .currency(this.account.currency())
+                .amount(this.amount)
+                .type(this.type)
+                .result(result)
+                .build();
+    }
+
+}
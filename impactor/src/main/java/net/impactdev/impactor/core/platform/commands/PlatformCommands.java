@@ -33,7 +33,10 @@ import net.impactdev.impactor.api.Impactor;
 import net.impactdev.impactor.api.commands.CommandSource;
 import net.impactdev.impactor.api.utility.Context;
 import net.impactdev.impactor.api.utility.printing.PrettyPrinter;
+import net.impactdev.impactor.core.plugin.BaseImpactorPlugin;
 import net.impactdev.impactor.core.translations.internal.ImpactorTranslations;
+import net.impactdev.impactor.core.utility.future.AsyncTasks;
+import net.impactdev.impactor.core.utility.future.MainThreadExecutor;
 
 import java.io.BufferedOutputStream;
 import java.io.PrintStream;
@@ -72,4 +75,18 @@ public class PlatformCommands {
         }
     }
 
+    @CommandMethod("impactor platform tasks")
+    @CommandPermission("impactor.commands.platform.tasks")
+    public void tasks(final CommandSource source) {
+        PrettyPrinter printer = new PrettyPrinter(80);
+        printer.title("Platform Tasks");
+        AsyncTasks.statistics().forEach(statistics -> statistics.print(printer));
+        if(Impactor.instance().scheduler().sync() instanceof MainThreadExecutor sync) {
+            sync.statistics().print(printer);
+        }
+        printer.log(BaseImpactorPlugin.instance().logger());
+
+        ImpactorTranslations.PLATFORM_TASKS_PRINTED.send(source, Context.empty());
+    }
+
 }
@@ -26,6 +26,7 @@
 package net.impactdev.impactor.core.plugin;
 
 import net.impactdev.impactor.api.Impactor;
+import net.impactdev.impactor.api.economy.EconomyService;
 import net.impactdev.impactor.api.scheduler.AbstractJavaScheduler;
 import net.impactdev.impactor.core.commands.CommandsModule;
 import net.impactdev.impactor.core.commands.ImpactorCommandRegistry;
@@ -44,6 +45,7 @@ import net.impactdev.impactor.core.modules.ModuleInitializer;
 import net.impactdev.impactor.core.permissions.LuckPermsPermissionsService;
 import net.impactdev.impactor.core.permissions.NoOpPermissionsService;
 import net.impactdev.impactor.core.economy.EconomyModule;
+import net.impactdev.impactor.core.economy.ImpactorEconomyService;
 import net.impactdev.impactor.core.permissions.PermissionsModule;
 import net.impactdev.impactor.core.text.TextModule;
 import net.impactdev.impactor.core.translations.TranslationsModule;
@@ -152,6 +154,12 @@ public abstract class BaseImpactorPlugin implements ImpactorPlugin, Configurable
 
     @Override
     public void shutdown() {
+        EconomyService economy = Impactor.instance().services().provide(EconomyService.class);
+        if(economy instanceof ImpactorEconomyService) {
+            this.logger().info("Flushing pending economy data...");
+            ((ImpactorEconomyService) economy).shutdown();
+        }
+
         this.logger().info("Shutting down Impactor scheduler");
         AbstractJavaScheduler scheduler = (AbstractJavaScheduler) Impactor.instance().scheduler();
         scheduler.shutdownExecutor();
@@ -28,6 +28,7 @@ package net.impactdev.impactor.core.storage.hikari;
 import com.google.common.base.Preconditions;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import net.impactdev.impactor.api.storage.StorageCredentials;
 import net.impactdev.impactor.api.storage.connection.sql.SQLConnection;
 import net.impactdev.impactor.api.utility.printing.PrettyPrinter;
@@ -38,6 +39,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 public abstract class HikariConnection implements SQLConnection {
@@ -68,6 +70,10 @@ public abstract class HikariConnection implements SQLConnection {
 
     protected void postInitialize() {}
 
+    protected String pingQuery() {
+        return "/* ping /* SELECT 1";
+    }
+
     @Override
     public void init() throws Exception {
         HikariConfig config = new HikariConfig();
@@ -116,7 +122,7 @@ public abstract class HikariConnection implements SQLConnection {
         long start = System.currentTimeMillis();
         try(Connection connection = this.connection()) {
             try(Statement s = connection.createStatement()) {
-                s.execute("/* ping /* SELECT 1");
+                s.execute(this.pingQuery());
             }
 
             int duration = (int) (System.currentTimeMillis() - start);
@@ -124,6 +130,33 @@ public abstract class HikariConnection implements SQLConnection {
         } catch (Exception e) {
             printer.add("Connection failed...");
         }
+
+        this.statistics().ifPresent(pool -> printer.add("Connections: %d active, %d idle, %d total, %d waiting",
+                pool.active(), pool.idle(), pool.total(), pool.waiting()
+        ));
+    }
+
+    /**
+     * Reads the current state of the connection pool.
+     *
+     * @return The state of the pool, or empty if the pool has not yet been initialized
+     */
+    public Optional<PoolStatistics> statistics() {
+        if(this.hikari == null) {
+            return Optional.empty();
+        }
+
+        HikariPoolMXBean pool = this.hikari.getHikariPoolMXBean();
+        if(pool == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new PoolStatistics(
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getTotalConnections(),
+                pool.getThreadsAwaitingConnection()
+        ));
     }
 
     protected record StorageConfiguration(String address, String port) {}
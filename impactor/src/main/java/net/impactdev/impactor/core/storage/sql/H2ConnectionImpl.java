@@ -0,0 +1,88 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.storage.sql;
+
+import com.zaxxer.hikari.HikariConfig;
+import net.impactdev.impactor.api.storage.StorageCredentials;
+import net.impactdev.impactor.core.storage.hikari.HikariConnection;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Provides a connection to an embedded H2 database stored locally on disk. The database runs in MySQL
+ * compatibility mode, allowing it to share the statements used against MySQL and MariaDB.
+ */
+public final class H2ConnectionImpl extends HikariConnection {
+
+    /**
+     * The number of parsed statements H2 keeps per session. The default of 8 is smaller than the set of
+     * statements used by the economy, which would otherwise see each of them re-parsed as they cycle.
+     */
+    private static final int QUERY_CACHE_SIZE = 32;
+
+    private final Path file;
+
+    public H2ConnectionImpl(StorageCredentials credentials, Path file) {
+        super(credentials);
+        this.file = file;
+    }
+
+    @Override
+    public String name() {
+        return "H2";
+    }
+
+    @Override
+    protected String defaultPort() {
+        return "";
+    }
+
+    @Override
+    protected void configure(HikariConfig config, StorageCredentials credentials, StorageConfiguration configuration) {
+        config.setDriverClassName("org.h2.Driver");
+        config.setJdbcUrl("jdbc:h2:file:" + this.file.toAbsolutePath() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;QUERY_CACHE_SIZE=" + QUERY_CACHE_SIZE);
+        config.setUsername("sa");
+        config.setPassword("");
+    }
+
+    @Override
+    protected void overrideProperties(Map<String, Object> properties) {
+        // H2 rejects connection settings it does not recognize, so the remote database
+        // defaults applied by the parent are intentionally skipped
+    }
+
+    @Override
+    protected String pingQuery() {
+        return "SELECT 1";
+    }
+
+    @Override
+    public Function<String, String> statementProcessor() {
+        return s -> s.replace('\'', '`'); // use backticks for quotes
+    }
+}
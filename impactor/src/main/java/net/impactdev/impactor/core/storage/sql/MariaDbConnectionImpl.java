@@ -29,6 +29,7 @@ import net.impactdev.impactor.api.storage.StorageCredentials;
 import net.impactdev.impactor.api.storage.connection.sql.hikari.MariaDBConnection;
 import net.impactdev.impactor.core.storage.hikari.DriverBasedHikariConnection;
 
+import java.util.Map;
 import java.util.function.Function;
 
 public class MariaDbConnectionImpl extends DriverBasedHikariConnection implements MariaDBConnection {
@@ -46,6 +47,16 @@ public class MariaDbConnectionImpl extends DriverBasedHikariConnection implement
         return s -> s.replace('\'', '`'); // use backticks for quotes
     }
 
+    @Override
+    protected void overrideProperties(Map<String, Object> properties) {
+        // Reuse server side prepared statements across executions on the same connection
+        properties.putIfAbsent("useServerPrepStmts", "true");
+        properties.putIfAbsent("cachePrepStmts", "true");
+        properties.putIfAbsent("prepStmtCacheSize", "250");
+
+        super.overrideProperties(properties);
+    }
+
     @Override
     protected String driverClassName() {
         return "org.mariadb.jdbc.Driver";
@@ -0,0 +1,70 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.storage.sql;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Holds the final form of a set of SQL statement templates, as produced by a statement processor. Each
+ * template is processed once, rather than every time the statement is prepared, so preparing a statement
+ * costs no more than a map lookup before it reaches the driver.
+ */
+public final class StatementTemplates {
+
+    private final Function<String, String> processor;
+    private final Map<String, String> processed = new ConcurrentHashMap<>();
+
+    /**
+     * @param processor The processor converting a template into the SQL understood by the database
+     * @param templates The templates which are known ahead of time, and can be processed immediately
+     */
+    public StatementTemplates(Function<String, String> processor, Collection<String> templates) {
+        this.processor = processor;
+        for(String template : templates) {
+            this.processed.put(template, processor.apply(template));
+        }
+    }
+
+    /**
+     * Provides the processed form of the given template. Templates which were not supplied at construction
+     * are processed on first use, and remembered thereafter.
+     *
+     * @param template The template to resolve
+     * @return The SQL the template represents
+     */
+    public String get(String template) {
+        String result = this.processed.get(template);
+        if(result != null) {
+            return result;
+        }
+
+        return this.processed.computeIfAbsent(template, this.processor);
+    }
+
+}
@@ -36,6 +36,8 @@ import net.impactdev.impactor.api.text.placeholders.PlaceholderArguments;
 import net.impactdev.impactor.api.translations.metadata.LanguageInfo;
 import net.impactdev.impactor.core.economy.context.TransactionContext;
 import net.impactdev.impactor.core.economy.context.TransferTransactionContext;
+import net.impactdev.impactor.core.economy.storage.EconomyStorage;
+import net.impactdev.impactor.core.economy.storage.migration.StorageMigration;
 import net.kyori.adventure.key.Key;
 import org.intellij.lang.annotations.Pattern;
 import org.intellij.lang.annotations.Subst;
@@ -193,6 +195,50 @@ public final class ImpactorPlaceholders {
                 return empty();
             }
     );
+    public static final ImpactorPlaceholder ECONOMY_MIGRATION = new ImpactorPlaceholder(
+            impactor("migration"),
+            (viewer, ctx) -> {
+                PlaceholderArguments arguments = ctx.require(PlaceholderArguments.class);
+                if(!arguments.hasNext()) {
+                    return empty();
+                }
+
+                switch (arguments.pop()) {
+                    case "from":
+                        return text(ctx.require(StorageMigration.class).from().name());
+                    case "to":
+                        return text(ctx.require(StorageMigration.class).to().name());
+                    case "migrated":
+                        return text(ctx.require(StorageMigration.Progress.class).migrated());
+                    case "source":
+                        return text(ctx.require(StorageMigration.Verification.class).source());
+                    case "target":
+                        return text(ctx.require(StorageMigration.Verification.class).target());
+                    case "checksums":
+                        return text(ctx.require(StorageMigration.Verification.class).checksums() ? "matching" : "differing");
+                }
+
+                return empty();
+            }
+    );
+    public static final ImpactorPlaceholder ECONOMY_RESTORATION = new ImpactorPlaceholder(
+            impactor("restoration"),
+            (viewer, ctx) -> {
+                PlaceholderArguments arguments = ctx.require(PlaceholderArguments.class);
+                if(!arguments.hasNext()) {
+                    return empty();
+                }
+
+                switch (arguments.pop()) {
+                    case "restored":
+                        return text(ctx.require(EconomyStorage.Restoration.class).restored());
+                    case "failed":
+                        return text(ctx.require(EconomyStorage.Restoration.class).failed());
+                }
+
+                return empty();
+            }
+    );
     public static final ImpactorPlaceholder PAYMENT = new ImpactorPlaceholder(
             impactor("payment"),
             (viewer, ctx) -> {
@@ -73,6 +73,19 @@ public interface ImpactorTranslations {
     TranslationProvider<Component> ECONOMY_BALTOP_FOOTER = create("economy.baltop.footer");
     TranslationProvider<Component> ECONOMY_TRANSFER_NOT_ALLOWED = create("economy.transactions.transfer.not-allowed");
     TranslationProvider<Component> ECONOMY_RECEIVE_PAYMENT = create("economy.payments.receive");
+    TranslationProvider<Component> ECONOMY_LEDGER_REPLAYING = create("economy.ledger.replaying");
+    TranslationProvider<Component> ECONOMY_LEDGER_REPLAYED = create("economy.ledger.replayed");
+    TranslationProvider<Component> ECONOMY_LEDGER_INCOMPLETE = create("economy.ledger.incomplete");
+    TranslationProvider<Component> ECONOMY_LEDGER_FAILED = create("economy.ledger.failed");
+    TranslationProvider<Component> ECONOMY_MIGRATION_STARTED = create("economy.migration.started");
+    TranslationProvider<Component> ECONOMY_MIGRATION_PROGRESS = create("economy.migration.progress");
+    TranslationProvider<Component> ECONOMY_MIGRATION_VERIFIED = create("economy.migration.verified");
+    TranslationProvider<Component> ECONOMY_MIGRATION_MISMATCH = create("economy.migration.mismatch");
+    TranslationProvider<Component> ECONOMY_MIGRATION_FAILED = create("economy.migration.failed");
+    TranslationProvider<Component> ECONOMY_MIGRATION_UNSUPPORTED = create("economy.migration.unsupported");
+    TranslationProvider<Component> ECONOMY_MIGRATION_UNKNOWN = create("economy.migration.unknown");
+    TranslationProvider<Component> ECONOMY_METRICS_PRINTED = create("economy.metrics.printed");
+    TranslationProvider<Component> ECONOMY_COMMAND_FAILED = create("economy.command-failed");
 
     // Translations
     TranslationProvider<Component> TRANSLATIONS_SEARCHING = create("translations.searching");
@@ -89,6 +102,7 @@ public interface ImpactorTranslations {
     TranslationProvider<Component> TRANSLATIONS_INSTALL_FAILED = create("translations.install-failed");
 
     TranslationProvider<Component> PLATFORM_INFO_GENERATED = create("platform.info.notify-generated");
+    TranslationProvider<Component> PLATFORM_TASKS_PRINTED = create("platform.tasks.printed");
 
     @SuppressWarnings("unchecked")
     static <T> TranslationProvider<T> create(final @NotNull String key) {
@@ -42,6 +42,7 @@ import net.impactdev.impactor.core.translations.ImpactorTranslationManager;
 import net.impactdev.impactor.core.translations.builders.ImpactorTranslationRepositoryBuilder;
 import net.impactdev.impactor.core.translations.internal.ImpactorTranslations;
 import net.impactdev.impactor.core.utility.future.Futures;
+import net.impactdev.impactor.core.utility.future.TaskClass;
 import net.kyori.adventure.audience.Audience;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -88,12 +89,12 @@ public class ImpactorTranslationRepository implements TranslationRepository {
 
     @Override
     public CompletableFuture<Set<LanguageInfo>> available() {
-        return Futures.execute(() -> this.fetchTranslationsMetadata().languages());
+        return Futures.execute(TaskClass.NETWORK, () -> this.fetchTranslationsMetadata().languages());
     }
 
     @Override
     public CompletableFuture<Boolean> refresh() {
-        return Futures.execute(() -> {
+        return Futures.execute(TaskClass.NETWORK, () -> {
             long last = this.readLastRefreshTime();
             long since = System.currentTimeMillis() - last;
 
@@ -120,7 +121,7 @@ public class ImpactorTranslationRepository implements TranslationRepository {
 
     @Override
     public CompletableFuture<Void> downloadAndInstall(@NotNull Set<LanguageInfo> languages, @NotNull Audience audience, boolean update) {
-        return Futures.execute(() -> {
+        return Futures.execute(TaskClass.NETWORK, () -> {
             try {
                 Path target = this.manager.root().resolve("repository");
                 this.clear(target, ImpactorTranslationManager::isConfigurationFile);
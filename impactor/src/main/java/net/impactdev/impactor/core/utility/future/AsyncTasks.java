@@ -0,0 +1,100 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.utility.future;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The single entry point for asynchronous work performed by Impactor. Work is submitted to the executor
+ * of its {@link TaskClass}, each of which limits how much of its work runs at once. Every class shares a
+ * single elastic pool of platform threads, which grows with demand and releases threads once they have
+ * been idle for a minute.
+ */
+public final class AsyncTasks {
+
+    private static final ThreadPoolExecutor PLATFORM = new ThreadPoolExecutor(
+            0,
+            Integer.MAX_VALUE,
+            60,
+            TimeUnit.SECONDS,
+            new SynchronousQueue<>(),
+            new ThreadFactoryBuilder()
+                    .setNameFormat("Impactor Async Executor - #%d")
+                    .setDaemon(true)
+                    .build()
+    );
+
+    private static final Map<TaskClass, TaskExecutor> EXECUTORS = create();
+
+    public static TaskExecutor executor(TaskClass type) {
+        return EXECUTORS.get(type);
+    }
+
+    public static List<TaskExecutor.Statistics> statistics() {
+        return EXECUTORS.values().stream().map(TaskExecutor::statistics).toList();
+    }
+
+    /**
+     * Waits for all submitted work to complete, and then shuts down each class of tasks before releasing
+     * the threads of the shared pool. Any work submitted afterwards is rejected.
+     *
+     * @param timeout The maximum amount of time to wait for each class of tasks
+     * @param unit The unit of the timeout
+     * @return true if all work completed, false if the timeout elapsed first
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public static boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        boolean idle = true;
+        for(TaskExecutor executor : EXECUTORS.values()) {
+            idle &= executor.awaitIdle(timeout, unit);
+        }
+
+        for(TaskExecutor executor : EXECUTORS.values()) {
+            executor.shutdown();
+        }
+
+        PLATFORM.shutdown();
+        return idle;
+    }
+
+    private static Map<TaskClass, TaskExecutor> create() {
+        Map<TaskClass, TaskExecutor> executors = new EnumMap<>(TaskClass.class);
+        for(TaskClass type : TaskClass.values()) {
+            executors.put(type, new TaskExecutor(type, PLATFORM));
+        }
+
+        return Collections.unmodifiableMap(executors);
+    }
+
+}
@@ -37,8 +37,7 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -49,18 +48,24 @@ import java.util.stream.Collectors;
 
 public final class Futures {
 
-    public static final ExecutorService ASYNC_EXECUTOR = Executors.newFixedThreadPool(
-            8,
-            new ThreadFactoryBuilder()
-                    .setNameFormat("Impactor Async Executor - #%d")
-                    .setDaemon(true)
-                    .build()
-    );
+    public static final ExecutorService ASYNC_EXECUTOR = AsyncTasks.executor(TaskClass.GENERAL);
+
+    /**
+     * The single thread responsible for every delayed action. Scheduled actions only ever hand their work
+     * off to another executor, so one thread is sufficient regardless of how many delays are pending.
+     * Cancelled actions are removed from the queue immediately, rather than lingering until their delay
+     * would have elapsed.
+     */
+    private static final ScheduledThreadPoolExecutor TIMER = timer();
 
     public static <T> CompletableFuture<T> execute(Callable<T> method) {
         return execute(ASYNC_EXECUTOR, method);
     }
 
+    public static <T> CompletableFuture<T> execute(TaskClass type, Callable<T> method) {
+        return execute(AsyncTasks.executor(type), method);
+    }
+
     public static <T> CompletableFuture<T> execute(Executor executor, Callable<T> method) {
         return CompletableFuture.supplyAsync(() -> {
             try {
@@ -76,6 +81,10 @@ public final class Futures {
         return execute(ASYNC_EXECUTOR, runnable);
     }
 
+    public static CompletableFuture<Void> execute(TaskClass type, ThrowingRunnable runnable) {
+        return execute(AsyncTasks.executor(type), runnable);
+    }
+
     public static CompletableFuture<Void> execute(Executor executor, ThrowingRunnable runnable) {
         return CompletableFuture.runAsync(() -> {
             try {
@@ -88,45 +97,64 @@ public final class Futures {
     }
 
     public static <T> CompletableFuture<T> makeFutureDelayed(Callable<T> callable, long delay, TimeUnit unit) {
-        ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(1);
-
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return callable.call();
-            } catch (Exception e) {
-                if (e instanceof RuntimeException) {
-                    throw (RuntimeException) e;
-                }
-                throw new CompletionException(e);
-            }
-        }, r -> scheduler.schedule(() -> ASYNC_EXECUTOR.execute(r), delay, unit));
+        return makeFutureDelayed(callable, ASYNC_EXECUTOR, delay, unit);
     }
 
+    /**
+     * Creates a future which will be completed by the given callable once the delay has elapsed. Should
+     * the returned future be completed or cancelled before then, the pending action is discarded and
+     * the callable is never invoked.
+     *
+     * @param callable The action supplying the result of the future
+     * @param executor The executor to invoke the callable on
+     * @param delay The amount of time to wait before invoking the callable
+     * @param unit The unit of the delay
+     * @return A future completed with the result of the callable
+     */
     public static <T> CompletableFuture<T> makeFutureDelayed(Callable<T> callable, Executor executor, long delay, TimeUnit unit) {
-        ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(1);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ScheduledFuture<?> scheduled = TIMER.schedule(() -> executor.execute(() -> {
+            if(result.isDone()) {
+                return;
+            }
 
-        return CompletableFuture.supplyAsync(() -> {
             try {
-                return callable.call();
-            } catch (Exception e) {
-                if (e instanceof RuntimeException) {
-                    throw (RuntimeException) e;
-                }
-                throw new CompletionException(e);
+                result.complete(callable.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
             }
-        }, r -> scheduler.schedule(() -> executor.execute(r), delay, unit));
+        }), delay, unit);
+
+        result.whenComplete((ignore, error) -> scheduled.cancel(false));
+        return result;
+    }
+
+    /**
+     * Bounds the time a future may take to complete. The returned future completes alongside the given
+     * future, or exceptionally with a {@link TimeoutException} if the duration elapses first. The pending
+     * timeout is discarded as soon as the given future completes.
+     *
+     * @param future The future to bound
+     * @param duration The maximum amount of time the future may take
+     * @param unit The unit of the duration
+     * @return A future completing with the result of the given future, or a timeout
+     */
+    public static <T> CompletableFuture<T> within(CompletableFuture<T> future, long duration, TimeUnit unit) {
+        CompletableFuture<T> timeout = timeoutAfter(duration, unit);
+        future.whenComplete((ignore, error) -> timeout.cancel(false));
+        return future.applyToEither(timeout, value -> value);
     }
 
     public static CompletableFuture<Void> timed(ThrowingRunnable runnable, long duration, TimeUnit unit) {
-        return execute(runnable).acceptEither(timeoutAfter(duration, unit), ignore -> {});
+        return within(execute(runnable), duration, unit);
     }
 
     public static CompletableFuture<Void> timed(ThrowingRunnable runnable, Executor executor, long duration, TimeUnit unit) {
-        return execute(executor, runnable).acceptEither(timeoutAfter(duration, unit), ignore -> {});
+        return within(execute(executor, runnable), duration, unit);
     }
 
     public static <T> CompletableFuture<T> timed(Callable<T> callable, long duration, TimeUnit unit) {
-        return execute(callable).applyToEither(timeoutAfter(duration, unit), value -> value);
+        return within(execute(callable), duration, unit);
     }
 
     /**
@@ -182,17 +210,27 @@ public final class Futures {
     }
 
     public static void shutdown() {
-        ASYNC_EXECUTOR.shutdown();
+        TIMER.shutdownNow();
         try {
-            if (!ASYNC_EXECUTOR.awaitTermination(10, TimeUnit.SECONDS)) {
+            if (!AsyncTasks.shutdown(10, TimeUnit.SECONDS)) {
                 BaseImpactorPlugin.instance().logger().severe("Timed out waiting for the Impactor worker thread pool to terminate");
-                reportRunningTasks(thread -> thread.getName().startsWith("Impactor Async Executor"));
+                reportRunningTasks(thread -> thread.getName().startsWith("Impactor Async"));
             }
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
     }
 
+    private static ScheduledThreadPoolExecutor timer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setNameFormat("Impactor Timer")
+                .setDaemon(true)
+                .build()
+        );
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
     public static void reportRunningTasks(Predicate<Thread> predicate) {
         Thread.getAllStackTraces().forEach((thread, stack) -> {
             if (predicate.test(thread)) {
@@ -0,0 +1,268 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.utility.future;
+
+import net.impactdev.impactor.api.Impactor;
+import net.impactdev.impactor.api.utility.ExceptionPrinter;
+import net.impactdev.impactor.api.utility.printing.PrettyPrinter;
+import net.impactdev.impactor.core.plugin.BaseImpactorPlugin;
+import net.impactdev.impactor.core.utility.metrics.LatencyHistogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Executes tasks on the main thread of the server without ever blocking the thread submitting them.
+ * Tasks submitted from the main thread run immediately, unless of {@link Priority#LOW low} priority,
+ * while tasks submitted from any other thread are queued and later run by {@link #drain()}, which the
+ * platform invokes once per tick.
+ *
+ * <p>Each drain is limited to a time budget. Once the budget is spent, any remaining tasks are carried
+ * over to the next tick, so a burst of submissions is spread across several ticks rather than
+ * extending a single one. Queued tasks are run in order of their {@link Priority}, though every
+ * priority with queued tasks runs at least one task per tick, so low priority work is never starved.
+ */
+public final class MainThreadExecutor implements Executor {
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final BooleanSupplier primary;
+    private final long budget;
+
+    private final Map<Priority, Queue<Task>> queues = new EnumMap<>(Priority.class);
+    private final Map<Priority, AtomicInteger> backlog = new EnumMap<>(Priority.class);
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final LongAdder inline = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LatencyHistogram waiting = new LatencyHistogram();
+    private final LatencyHistogram execution = new LatencyHistogram();
+
+    /**
+     * @param primary Indicates whether the calling thread is the main thread of the server
+     * @param budget The amount of time each drain may spend running tasks
+     * @param unit The unit of the budget
+     */
+    public MainThreadExecutor(BooleanSupplier primary, long budget, TimeUnit unit) {
+        this.primary = primary;
+        this.budget = unit.toNanos(budget);
+
+        for(Priority priority : PRIORITIES) {
+            this.queues.put(priority, new ConcurrentLinkedQueue<>());
+            this.backlog.put(priority, new AtomicInteger());
+        }
+    }
+
+    /**
+     * Provides an executor submitting tasks to the main thread of the server with the given priority. Should
+     * the platform not schedule main thread work through a {@link MainThreadExecutor}, tasks are submitted
+     * to its executor as they are.
+     *
+     * @param priority The priority of tasks submitted to the returned executor
+     * @return An executor submitting tasks to the main thread with the given priority
+     */
+    public static Executor sync(Priority priority) {
+        Executor sync = Impactor.instance().scheduler().sync();
+        return sync instanceof MainThreadExecutor executor ? executor.priority(priority) : sync;
+    }
+
+    /**
+     * Provides a view of this executor which submits each task with the given priority.
+     *
+     * @param priority The priority of tasks submitted to the returned executor
+     * @return An executor submitting tasks with the given priority
+     */
+    public Executor priority(Priority priority) {
+        return command -> this.execute(command, priority);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        this.execute(command, Priority.NORMAL);
+    }
+
+    public void execute(Runnable command, Priority priority) {
+        Objects.requireNonNull(command, "command");
+        Objects.requireNonNull(priority, "priority");
+        if(priority != Priority.LOW && this.primary.getAsBoolean()) {
+            this.inline.increment();
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                command.run();
+                failed = false;
+            } finally {
+                this.execution.record(System.nanoTime() - start, failed);
+            }
+
+            return;
+        }
+
+        this.backlog.get(priority).incrementAndGet();
+        this.queues.get(priority).offer(new Task(command, System.nanoTime()));
+        this.peak.accumulateAndGet(this.queued.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * Runs queued tasks, highest priority first, until either every queue is empty or the time budget
+     * is spent. One task of each priority is run before the budget is considered, ensuring queued work
+     * makes progress regardless of the budget. This must only be invoked from the main thread.
+     */
+    public void drain() {
+        long deadline = System.nanoTime() + this.budget;
+        for(Priority priority : PRIORITIES) {
+            Task task = this.poll(priority);
+            if(task != null) {
+                this.run(task);
+            }
+        }
+
+        for(Priority priority : PRIORITIES) {
+            Task task;
+            while(System.nanoTime() - deadline < 0 && (task = this.poll(priority)) != null) {
+                this.run(task);
+            }
+        }
+
+        if(this.queued.get() > 0) {
+            this.deferred.increment();
+        }
+    }
+
+    /**
+     * Runs every queued task regardless of the time budget. This is intended for use as the server stops,
+     * where no further ticks will drain the queue.
+     */
+    public void flush() {
+        for(Priority priority : PRIORITIES) {
+            Task task;
+            while((task = this.poll(priority)) != null) {
+                this.run(task);
+            }
+        }
+    }
+
+    public Statistics statistics() {
+        Map<Priority, Integer> backlog = new EnumMap<>(Priority.class);
+        this.backlog.forEach((priority, count) -> backlog.put(priority, count.get()));
+
+        return new Statistics(
+                TimeUnit.NANOSECONDS.toMicros(this.budget),
+                this.queued.get(),
+                backlog,
+                this.peak.get(),
+                this.inline.sum(),
+                this.deferred.sum(),
+                this.waiting.snapshot(),
+                this.execution.snapshot()
+        );
+    }
+
+    private Task poll(Priority priority) {
+        Task task = this.queues.get(priority).poll();
+        if(task != null) {
+            this.backlog.get(priority).decrementAndGet();
+            this.queued.decrementAndGet();
+        }
+
+        return task;
+    }
+
+    private void run(Task task) {
+        long start = System.nanoTime();
+        this.waiting.record(start - task.submitted(), false);
+
+        boolean failed = true;
+        try {
+            task.command().run();
+            failed = false;
+        } catch (Throwable e) {
+            ExceptionPrinter.print(BaseImpactorPlugin.instance().logger(), e);
+        } finally {
+            this.execution.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    private record Task(Runnable command, long submitted) {}
+
+    public enum Priority {
+        /** Work which should run as early within the tick as possible */
+        HIGH,
+        /** The priority of tasks submitted without one */
+        NORMAL,
+        /**
+         * Work which may be freely deferred to a later tick. Unlike other priorities, these tasks are
+         * queued even when submitted from the main thread.
+         */
+        LOW
+    }
+
+    /**
+     * A point in time view of the work performed on the main thread.
+     *
+     * @param budget The time each tick may spend running tasks, in microseconds
+     * @param queued The number of tasks waiting for a tick
+     * @param backlog The number of tasks waiting for a tick, by priority
+     * @param peak The largest number of tasks which have waited at once
+     * @param inline The number of tasks run immediately, having been submitted from the main thread
+     * @param deferred The number of ticks which spent their budget before the queue was emptied
+     * @param waiting The time queued tasks spent waiting to run, in microseconds
+     * @param execution The time tasks spent running, in microseconds
+     */
+    public record Statistics(
+            long budget,
+            int queued,
+            Map<Priority, Integer> backlog,
+            int peak,
+            long inline,
+            long deferred,
+            LatencyHistogram.Snapshot waiting,
+            LatencyHistogram.Snapshot execution
+    ) {
+
+        public void print(PrettyPrinter printer) {
+            printer.add("MAIN (budget %dus per tick)", this.budget);
+            printer.add("  Queued: %d, Peak: %d, Inline: %d, Deferred Ticks: %d", this.queued, this.peak, this.inline, this.deferred);
+            printer.add("  Backlog: High %d, Normal %d, Low %d",
+                    this.backlog.get(Priority.HIGH), this.backlog.get(Priority.NORMAL), this.backlog.get(Priority.LOW)
+            );
+            printer.add("  Wait: mean %dus, p95 %dus, max %dus", this.waiting.mean(), this.waiting.p95(), this.waiting.max());
+            printer.add("  Run: mean %dus, p95 %dus, max %dus (%d completed, %d failed)",
+                    this.execution.mean(), this.execution.p95(), this.execution.max(), this.execution.count(), this.execution.failures()
+            );
+        }
+
+    }
+
+}
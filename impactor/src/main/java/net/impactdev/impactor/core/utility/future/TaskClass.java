@@ -0,0 +1,66 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.utility.future;
+
+/**
+ * Categorizes the asynchronous work performed by Impactor. Each class of task is served by its own
+ * {@link TaskExecutor}, with its own concurrency limit and queue, so that work of one class can never
+ * occupy the threads needed by another.
+ *
+ * <p>Text rendering and user interfaces have no class of their own, as both run on the server thread
+ * rather than asynchronously. Their work is instead ordered by the {@link MainThreadExecutor.Priority
+ * priority} it is submitted to the {@link MainThreadExecutor} with. Between the classes below, no priority
+ * is needed, as each is limited separately and they share a pool which grows with demand.
+ */
+public enum TaskClass {
+
+    /** Reads and writes against persistent storage, such as the economy database */
+    STORAGE(Runtime.getRuntime().availableProcessors(), 1024),
+    /** Requests made to remote services, such as translation downloads */
+    NETWORK(4, 256),
+    /**
+     * Any other work, including that submitted through the scheduler by other plugins. This class is
+     * left unbounded, as tasks submitted by other plugins may well block on one another.
+     */
+    GENERAL(Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final int concurrency;
+    private final int capacity;
+
+    TaskClass(int concurrency, int capacity) {
+        this.concurrency = concurrency;
+        this.capacity = capacity;
+    }
+
+    public int concurrency() {
+        return this.concurrency;
+    }
+
+    public int capacity() {
+        return this.capacity;
+    }
+
+}
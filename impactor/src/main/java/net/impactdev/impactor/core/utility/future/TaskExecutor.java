@@ -0,0 +1,276 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.utility.future;
+
+import net.impactdev.impactor.api.utility.printing.PrettyPrinter;
+import net.impactdev.impactor.core.utility.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executes a single {@link TaskClass class} of tasks, running no more than a set number of them at once.
+ * Tasks beyond the concurrency limit wait within a bounded queue, and are rejected once the queue is full.
+ *
+ * <p>Tasks are handed to a backing executor only once they are permitted to run, so a class which has
+ * reached its limit never occupies threads needed by another class. The time each task spends waiting
+ * and running is recorded, and may be inspected through {@link #statistics()}.
+ */
+public final class TaskExecutor extends AbstractExecutorService {
+
+    private final TaskClass type;
+    private final Executor platform;
+
+    private final Queue<Task> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LatencyHistogram waiting = new LatencyHistogram();
+    private final LatencyHistogram execution = new LatencyHistogram();
+
+    private volatile int concurrency;
+    private volatile int capacity;
+    private volatile Executor backing;
+    private volatile boolean shutdown;
+
+    public TaskExecutor(TaskClass type, Executor platform) {
+        this.type = type;
+        this.platform = platform;
+        this.backing = platform;
+        this.concurrency = type.concurrency();
+        this.capacity = type.capacity();
+    }
+
+    public TaskClass type() {
+        return this.type;
+    }
+
+    /**
+     * Updates the limits of this executor. Tasks already running are unaffected, though no further tasks
+     * will start until the number running falls below the new limit.
+     *
+     * @param concurrency The maximum number of tasks which may run at once
+     * @param capacity The maximum number of tasks which may wait to run
+     * @param virtual Whether tasks should run on virtual threads, where supported by the runtime
+     * @return This executor
+     */
+    public TaskExecutor configure(int concurrency, int capacity, boolean virtual) {
+        this.concurrency = Math.max(1, concurrency);
+        this.capacity = Math.max(1, capacity);
+
+        ThreadFactory factory = virtual ? VirtualThreads.factory("Impactor Async (" + this.type.name() + ") - #").orElse(null) : null;
+        this.backing = factory != null ? command -> factory.newThread(command).start() : this.platform;
+
+        this.dispatch();
+        return this;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if(this.shutdown) {
+            this.rejected.increment();
+            throw new RejectedExecutionException("The " + this.type.name() + " task executor has been shutdown");
+        }
+
+        if(this.queued.incrementAndGet() > this.capacity) {
+            this.queued.decrementAndGet();
+            this.rejected.increment();
+            throw new RejectedExecutionException("The " + this.type.name() + " task queue is full");
+        }
+
+        this.queue.offer(new Task(command, System.nanoTime()));
+        this.dispatch();
+    }
+
+    /**
+     * Waits for every task submitted to this executor to complete.
+     *
+     * @param timeout The maximum amount of time to wait
+     * @param unit The unit of the timeout
+     * @return true if every task completed, false if the timeout elapsed first
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while(this.queued.get() > 0 || this.running.get() > 0) {
+            if(System.nanoTime() >= deadline) {
+                return false;
+            }
+
+            Thread.sleep(10);
+        }
+
+        return true;
+    }
+
+    @Override
+    public void shutdown() {
+        this.shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        this.shutdown = true;
+
+        List<Runnable> pending = new ArrayList<>();
+        Task task;
+        while((task = this.queue.poll()) != null) {
+            this.queued.decrementAndGet();
+            pending.add(task.command());
+        }
+
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return this.shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return this.shutdown && this.queued.get() == 0 && this.running.get() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.awaitIdle(timeout, unit);
+    }
+
+    public Statistics statistics() {
+        return new Statistics(
+                this.type,
+                this.concurrency,
+                this.capacity,
+                this.queued.get(),
+                this.running.get(),
+                this.rejected.sum(),
+                this.waiting.snapshot(),
+                this.execution.snapshot()
+        );
+    }
+
+    /**
+     * Starts as many queued tasks as the concurrency limit allows. This is invoked whenever a task is
+     * queued or finishes, so a queued task is always started by one or the other.
+     */
+    private void dispatch() {
+        while(true) {
+            int current = this.running.get();
+            if(current >= this.concurrency || this.queue.isEmpty()) {
+                return;
+            }
+
+            if(!this.running.compareAndSet(current, current + 1)) {
+                continue;
+            }
+
+            Task task = this.queue.poll();
+            if(task == null) {
+                this.running.decrementAndGet();
+                continue;
+            }
+
+            this.queued.decrementAndGet();
+            try {
+                this.backing.execute(() -> this.run(task));
+            } catch (RejectedExecutionException e) {
+                // The task has already been taken from the queue, so rather than losing it, it is run by
+                // the thread dispatching it, such as when the backing pool has been shut down
+                this.perform(task);
+            }
+        }
+    }
+
+    private void run(Task task) {
+        this.perform(task);
+        this.dispatch();
+    }
+
+    private void perform(Task task) {
+        long start = System.nanoTime();
+        this.waiting.record(start - task.submitted(), false);
+
+        boolean failed = true;
+        try {
+            task.command().run();
+            failed = false;
+        } finally {
+            this.execution.record(System.nanoTime() - start, failed);
+            this.running.decrementAndGet();
+        }
+    }
+
+    private record Task(Runnable command, long submitted) {}
+
+    /**
+     * A point in time view of the work performed by an executor.
+     *
+     * @param type The class of tasks served by the executor
+     * @param concurrency The maximum number of tasks which may run at once
+     * @param capacity The maximum number of tasks which may wait to run
+     * @param queued The number of tasks waiting to run
+     * @param running The number of tasks currently running
+     * @param rejected The number of tasks rejected as the queue was full
+     * @param waiting The time tasks spent waiting to run, in microseconds
+     * @param execution The time tasks spent running, in microseconds
+     */
+    public record Statistics(
+            TaskClass type,
+            int concurrency,
+            int capacity,
+            int queued,
+            int running,
+            long rejected,
+            LatencyHistogram.Snapshot waiting,
+            LatencyHistogram.Snapshot execution
+    ) {
+
+        public void print(PrettyPrinter printer) {
+            printer.add("%s (limit %s, queue %s)", this.type.name(), bound(this.concurrency), bound(this.capacity));
+            printer.add("  Queued: %d, Running: %d, Rejected: %d", this.queued, this.running, this.rejected);
+            printer.add("  Wait: mean %dus, p95 %dus, max %dus", this.waiting.mean(), this.waiting.p95(), this.waiting.max());
+            printer.add("  Run: mean %dus, p95 %dus, max %dus (%d completed, %d failed)",
+                    this.execution.mean(), this.execution.p95(), this.execution.max(), this.execution.count(), this.execution.failures()
+            );
+        }
+
+        private static String bound(int value) {
+            return value == Integer.MAX_VALUE ? "unbounded" : String.valueOf(value);
+        }
+
+    }
+
+}
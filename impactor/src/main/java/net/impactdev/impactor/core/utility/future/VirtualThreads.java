@@ -0,0 +1,80 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.utility.future;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Provides access to virtual threads when running on a Java runtime which supports them. Impactor
+ * targets Java 17, so virtual threads are only ever located reflectively, and callers must be prepared
+ * to fall back to platform threads.
+ */
+public final class VirtualThreads {
+
+    private static final MethodHandle OF_VIRTUAL = locate();
+
+    public static boolean supported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates a factory producing virtual threads, named with the given prefix followed by an
+     * incrementing counter.
+     *
+     * @param prefix The prefix of the name given to each thread
+     * @return A factory of virtual threads, or empty if the runtime does not support them
+     */
+    public static Optional<ThreadFactory> factory(String prefix) {
+        if(OF_VIRTUAL == null) {
+            return Optional.empty();
+        }
+
+        try {
+            Class<?> type = Class.forName("java.lang.Thread$Builder");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+            Object builder = OF_VIRTUAL.invoke();
+            builder = lookup.findVirtual(type, "name", MethodType.methodType(type, String.class, long.class)).invoke(builder, prefix, 0L);
+            return Optional.of((ThreadFactory) lookup.findVirtual(type, "factory", MethodType.methodType(ThreadFactory.class)).invoke(builder));
+        } catch (Throwable e) {
+            return Optional.empty();
+        }
+    }
+
+    private static MethodHandle locate() {
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            return MethodHandles.publicLookup().findStatic(Thread.class, "ofVirtual", MethodType.methodType(builder));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.core.utility.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records durations into buckets of exponentially increasing width, where each bucket covers twice the
+ * range of microseconds of the bucket before it. Recording is lock-free and allocation free, making it
+ * suitable for operations recorded from many threads at once. Percentiles are approximate, reported as
+ * the upper bound of the bucket they fall within.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 32;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram() {
+        for(int i = 0; i < BUCKETS; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos, boolean failed) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+
+        this.buckets[bucket].increment();
+        this.count.increment();
+        this.total.add(micros);
+        this.max.accumulateAndGet(micros, Math::max);
+        if(failed) {
+            this.failures.increment();
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long recorded = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.buckets[i].sum();
+            recorded += counts[i];
+        }
+
+        return new Snapshot(
+                recorded,
+                this.failures.sum(),
+                recorded == 0 ? 0 : this.total.sum() / recorded,
+                percentile(counts, recorded, 0.50),
+                percentile(counts, recorded, 0.95),
+                percentile(counts, recorded, 0.99),
+                this.max.get()
+        );
+    }
+
+    private static long percentile(long[] counts, long recorded, double quantile) {
+        if(recorded == 0) {
+            return 0;
+        }
+
+        long threshold = (long) Math.ceil(recorded * quantile);
+        long seen = 0;
+        for(int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if(seen >= threshold) {
+                return i == 0 ? 0 : 1L << i;
+            }
+        }
+
+        return 1L << (counts.length - 1);
+    }
+
+    /**
+     * A point in time view of a histogram, with all durations expressed in microseconds.
+     */
+    public record Snapshot(long count, long failures, long mean, long p50, long p95, long p99, long max) {}
+
+}
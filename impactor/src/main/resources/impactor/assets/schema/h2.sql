@@ -0,0 +1,25 @@
+CREATE TABLE `{prefix}accounts` (
+    `uuid`      BINARY(16)          NOT NULL,
+    `currency`  VARCHAR(100)        NOT NULL,
+    `virtual`   BOOLEAN             NOT NULL    DEFAULT false,
+    `balance`   DECIMAL(38, 12)     NOT NULL,
+    `updated`   BIGINT              NOT NULL    DEFAULT 0,
+    PRIMARY KEY (`uuid`, `currency`)
+);
+
+CREATE INDEX IF NOT EXISTS `{prefix}accounts_updated` ON `{prefix}accounts` (`updated`);
+
+CREATE TABLE `{prefix}ledger` (
+    `id`                BIGINT              NOT NULL,
+    `origin`            BIGINT              NOT NULL    DEFAULT 0,
+    `uuid`              BINARY(16)          NOT NULL,
+    `currency`          VARCHAR(100)        NOT NULL,
+    `created`           BIGINT              NOT NULL,
+    `type`              VARCHAR(16)         NOT NULL,
+    `amount`            DECIMAL(38, 12)     NOT NULL,
+    `balance_before`    DECIMAL(38, 12)     NOT NULL,
+    `balance_after`     DECIMAL(38, 12)     NOT NULL,
+    `result`            VARCHAR(24)         NOT NULL,
+    `counterparty`      BINARY(16),
+    PRIMARY KEY (`uuid`, `currency`, `id`, `origin`)
+);
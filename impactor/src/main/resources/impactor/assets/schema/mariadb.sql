@@ -2,6 +2,27 @@ CREATE TABLE `{prefix}accounts` (
     `uuid`      BINARY(16)          NOT NULL,
     `currency`  VARCHAR(100)        NOT NULL,
     `virtual`   BOOLEAN             NOT NULL    DEFAULT false,
-    `balance`   DOUBLE              NOT NULL,
-    PRIMARY KEY (`uuid`, `currency`)
-) DEFAULT CHARSET = utf8;
\ No newline at end of file
+    `balance`   DECIMAL(38, 12)     NOT NULL,
+    `updated`   BIGINT              NOT NULL    DEFAULT 0,
+    PRIMARY KEY (`uuid`, `currency`),
+    INDEX `{prefix}accounts_updated` (`updated`)
+) DEFAULT CHARSET = utf8;
+
+ALTER TABLE `{prefix}accounts` ADD COLUMN `updated` BIGINT NOT NULL DEFAULT 0, ADD INDEX `{prefix}accounts_updated` (`updated`);
+
+ALTER TABLE `{prefix}accounts` MODIFY COLUMN `balance` DECIMAL(38, 12) NOT NULL;
+
+CREATE TABLE `{prefix}ledger` (
+    `id`                BIGINT              NOT NULL,
+    `origin`            BIGINT              NOT NULL    DEFAULT 0,
+    `uuid`              BINARY(16)          NOT NULL,
+    `currency`          VARCHAR(100)        NOT NULL,
+    `created`           BIGINT              NOT NULL,
+    `type`              VARCHAR(16)         NOT NULL,
+    `amount`            DECIMAL(38, 12)     NOT NULL,
+    `balance_before`    DECIMAL(38, 12)     NOT NULL,
+    `balance_after`     DECIMAL(38, 12)     NOT NULL,
+    `result`            VARCHAR(24)         NOT NULL,
+    `counterparty`      BINARY(16),
+    PRIMARY KEY (`uuid`, `currency`, `id`, `origin`)
+) DEFAULT CHARSET = utf8;
@@ -0,0 +1,160 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.test.economy;
+
+import net.impactdev.impactor.api.Impactor;
+import net.impactdev.impactor.api.economy.EconomyService;
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.impactdev.impactor.api.economy.currency.Currency;
+import net.impactdev.impactor.core.economy.ImpactorEconomyService;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccountConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS = 1000;
+
+    @AfterAll
+    public static void clean() {
+        EconomyService service = Impactor.instance().services().provide(EconomyService.class);
+        ((ImpactorEconomyService) service).storage().purge().join();
+
+        try {
+            Path config = Paths.get("config");
+            if(Files.exists(config)) {
+                FileUtils.cleanDirectory(config.toFile());
+                Files.delete(config);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void concurrentDepositsAreNotLost() throws Exception {
+        EconomyService service = Impactor.instance().services().provide(EconomyService.class);
+        Currency currency = service.currencies().primary();
+        Account account = service.account(currency, UUID.randomUUID()).join();
+        BigDecimal initial = account.balance();
+
+        this.hammer(() -> account.deposit(BigDecimal.ONE));
+
+        assertEquals(0, initial.add(BigDecimal.valueOf((long) THREADS * OPERATIONS)).compareTo(account.balance()));
+    }
+
+    @Test
+    public void concurrentWithdrawalsNeverOverdraw() throws Exception {
+        EconomyService service = Impactor.instance().services().provide(EconomyService.class);
+        Currency currency = service.currencies().primary();
+        Account account = service.account(currency, UUID.randomUUID()).join();
+        account.set(BigDecimal.valueOf(OPERATIONS));
+
+        this.hammer(() -> account.withdraw(BigDecimal.ONE));
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(account.balance()));
+    }
+
+    @Test
+    public void opposingTransfersConserveFunds() throws Exception {
+        EconomyService service = Impactor.instance().services().provide(EconomyService.class);
+        Currency currency = service.currencies().primary();
+        Account first = service.account(currency, UUID.randomUUID()).join();
+        Account second = service.account(currency, UUID.randomUUID()).join();
+
+        BigDecimal funds = BigDecimal.valueOf((long) THREADS * OPERATIONS);
+        first.set(funds);
+        second.set(funds);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(THREADS);
+        for(int i = 0; i < THREADS; i++) {
+            boolean forward = i % 2 == 0;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for(int j = 0; j < OPERATIONS; j++) {
+                        if(forward) {
+                            first.transfer(second, BigDecimal.ONE);
+                        } else {
+                            second.transfer(first, BigDecimal.ONE);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+
+        start.countDown();
+        assertTrue(finished.await(1, TimeUnit.MINUTES), "Transfers failed to complete, likely due to a deadlock");
+        executor.shutdown();
+
+        assertEquals(0, funds.add(funds).compareTo(first.balance().add(second.balance())));
+    }
+
+    private void hammer(Runnable operation) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(THREADS);
+        for(int i = 0; i < THREADS; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for(int j = 0; j < OPERATIONS; j++) {
+                        operation.run();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+
+        start.countDown();
+        assertTrue(finished.await(1, TimeUnit.MINUTES));
+        executor.shutdown();
+    }
+
+}
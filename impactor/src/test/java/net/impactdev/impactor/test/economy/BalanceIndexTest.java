@@ -0,0 +1,164 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.test.economy;
+
+import net.impactdev.impactor.api.Impactor;
+import net.impactdev.impactor.api.economy.EconomyService;
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.impactdev.impactor.api.economy.currency.Currency;
+import net.impactdev.impactor.core.economy.accounts.ImpactorAccount;
+import net.impactdev.impactor.core.economy.storage.ranking.BalanceIndex;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BalanceIndexTest {
+
+    @Test
+    public void servesTopBalancesInOrder() {
+        BalanceIndex index = new BalanceIndex();
+        List<Account> accounts = IntStream.range(0, 100)
+                .mapToObj(i -> this.account(UUID.randomUUID(), i, i % 10 == 0))
+                .toList();
+        this.build(index, accounts);
+
+        List<BalanceIndex.Entry> top = index.top(5, true);
+        assertEquals(List.of(99, 98, 97, 96, 95), top.stream().map(entry -> entry.balance().intValue()).toList());
+
+        List<BalanceIndex.Entry> players = index.top(5, false);
+        assertEquals(List.of(99, 98, 97, 96, 95), players.stream().map(entry -> entry.balance().intValue()).toList());
+        assertTrue(index.top(100, false).stream().noneMatch(BalanceIndex.Entry::virtual));
+        assertEquals(90, index.top(100, false).size());
+    }
+
+    @Test
+    public void ranksAccountsByBalance() {
+        BalanceIndex index = new BalanceIndex();
+        Account first = this.account(UUID.randomUUID(), 300, false);
+        Account second = this.account(UUID.randomUUID(), 200, false);
+        Account third = this.account(UUID.randomUUID(), 100, false);
+        this.build(index, List.of(third, first, second));
+
+        assertEquals(Optional.of(1), index.rank(first.owner()));
+        assertEquals(Optional.of(2), index.rank(second.owner()));
+        assertEquals(Optional.of(3), index.rank(third.owner()));
+        assertEquals(Optional.empty(), index.rank(UUID.randomUUID()));
+
+        index.update(this.account(third.owner(), 400, false));
+        assertEquals(Optional.of(1), index.rank(third.owner()));
+        assertEquals(Optional.of(3), index.rank(second.owner()));
+
+        index.remove(first.owner());
+        assertEquals(Optional.empty(), index.rank(first.owner()));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void appliesChangesMadeDuringABuild() throws Exception {
+        BalanceIndex index = new BalanceIndex();
+        Account updated = this.account(UUID.randomUUID(), 10, false);
+        Account removed = this.account(UUID.randomUUID(), 20, false);
+        Account untouched = this.account(UUID.randomUUID(), 30, false);
+        Account created = this.account(UUID.randomUUID(), 40, false);
+
+        BalanceIndex.Build build = index.begin().orElseThrow();
+        assertTrue(index.begin().isEmpty());
+
+        // Changes are made from another thread while the snapshot is being read, which would block
+        // should the build hold the lock of the index whilst reading
+        Iterable<Account> snapshot = () -> new Iterator<>() {
+            private final Iterator<Account> delegate = List.of(updated, removed, untouched).iterator();
+
+            @Override
+            public boolean hasNext() {
+                return this.delegate.hasNext();
+            }
+
+            @Override
+            public Account next() {
+                Account next = this.delegate.next();
+                if(next == removed) {
+                    CompletableFuture.runAsync(() -> {
+                        index.update(BalanceIndexTest.this.account(updated.owner(), 50, false));
+                        index.remove(removed.owner());
+                        index.update(created);
+                    }).orTimeout(5, TimeUnit.SECONDS).join();
+                }
+
+                return next;
+            }
+        };
+
+        build.complete(snapshot);
+        assertTrue(index.ready().isDone());
+
+        assertEquals(3, index.size());
+        assertEquals(Optional.of(1), index.rank(updated.owner()));
+        assertEquals(Optional.of(2), index.rank(created.owner()));
+        assertEquals(Optional.of(3), index.rank(untouched.owner()));
+        assertEquals(Optional.empty(), index.rank(removed.owner()));
+    }
+
+    @Test
+    public void clearingAbandonsABuild() {
+        BalanceIndex index = new BalanceIndex();
+        BalanceIndex.Build build = index.begin().orElseThrow();
+        CompletableFuture<Void> ready = index.ready();
+
+        index.clear();
+        assertTrue(ready.isCancelled());
+
+        build.complete(List.of(this.account(UUID.randomUUID(), 10, false)));
+        assertEquals(0, index.size());
+        assertFalse(index.ready().isDone());
+
+        BalanceIndex.Build rebuild = index.begin().orElseThrow();
+        rebuild.complete(List.of(this.account(UUID.randomUUID(), 20, false)));
+        assertEquals(1, index.size());
+        assertTrue(index.ready().isDone());
+    }
+
+    private void build(BalanceIndex index, List<Account> accounts) {
+        index.begin().orElseThrow().complete(accounts);
+    }
+
+    private Account account(UUID owner, int balance, boolean virtual) {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        return ImpactorAccount.load(currency, owner, virtual, BigDecimal.valueOf(balance));
+    }
+
+}
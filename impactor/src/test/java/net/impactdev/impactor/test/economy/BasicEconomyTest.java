@@ -37,6 +37,7 @@ import net.impactdev.impactor.api.economy.transactions.EconomyTransaction;
 import net.impactdev.impactor.api.economy.transactions.details.EconomyTransactionType;
 import net.impactdev.impactor.api.platform.sources.PlatformSource;
 import net.impactdev.impactor.core.economy.ImpactorEconomyService;
+import net.impactdev.impactor.core.economy.storage.metrics.StorageMetrics;
 import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.audience.MessageType;
 import net.kyori.adventure.identity.Identity;
@@ -177,7 +178,7 @@ public class BasicEconomyTest {
                 .sorted(Comparator.<Account, BigDecimal>comparing(Account::balance).reversed())
                 .toList();
 
-        assertEquals(BigDecimal.valueOf(1000.0), sorted.get(0).balance());
+        assertEquals(0, BigDecimal.valueOf(1000.0).compareTo(sorted.get(0).balance()));
     }
 
     @Test
@@ -324,6 +325,28 @@ public class BasicEconomyTest {
         assertFalse(service.hasAccount(secondary, target).join());
     }
 
+    @Test
+    public void missingAccountsAreRememberedUntilCreated() {
+        EconomyService service = Impactor.instance().services().provide(EconomyService.class);
+        Currency currency = service.currencies().primary();
+        UUID unknown = UUID.randomUUID();
+
+        assertFalse(service.hasAccount(currency, unknown).join());
+        assertFalse(service.hasAccount(currency, unknown).join());
+
+        service.account(currency, unknown).join();
+        assertTrue(service.hasAccount(currency, unknown).join());
+    }
+
+    @Test
+    public void storageOperationsAreMeasured() {
+        ImpactorEconomyService service = (ImpactorEconomyService) Impactor.instance().services().provide(EconomyService.class);
+        long before = service.storage().metrics().latencies().get(StorageMetrics.Operation.HAS_ACCOUNT).count();
+
+        service.hasAccount(service.currencies().primary(), UUID.randomUUID()).join();
+        assertTrue(service.storage().metrics().latencies().get(StorageMetrics.Operation.HAS_ACCOUNT).count() > before);
+    }
+
     @Test
     public void virtualAccounts() {
         EconomyService service = Impactor.instance().services().provide(EconomyService.class);
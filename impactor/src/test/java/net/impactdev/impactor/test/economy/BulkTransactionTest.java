@@ -0,0 +1,181 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package net.impactdev.impactor.test.economy;
+
+import com.google.common.collect.ImmutableMap;
+import net.impactdev.impactor.api.Impactor;
+import net.impactdev.impactor.api.economy.EconomyService;
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.impactdev.impactor.api.economy.currency.Currency;
+import net.impactdev.impactor.api.economy.transactions.EconomyTransaction;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyResultType;
+import net.impactdev.impactor.api.storage.StorageCredentials;
+import net.impactdev.impactor.core.economy.ImpactorEconomyService;
+import net.impactdev.impactor.core.economy.accounts.BulkAdjustments;
+import net.impactdev.impactor.core.economy.accounts.ImpactorAccount;
+import net.impactdev.impactor.core.economy.storage.EconomyStorage;
+import net.impactdev.impactor.core.economy.storage.EconomyStorageImplementation;
+import net.impactdev.impactor.core.economy.storage.implementations.SQLProvider;
+import net.impactdev.impactor.core.economy.storage.invalidation.InvalidationChannel;
+import net.impactdev.impactor.core.economy.storage.metrics.StorageMetrics;
+import net.impactdev.impactor.core.economy.transactions.bulk.BulkOperation;
+import net.impactdev.impactor.core.storage.sql.H2ConnectionImpl;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BulkTransactionTest {
+
+    @TempDir
+    public Path directory;
+
+    @AfterAll
+    public static void clean() {
+        EconomyService service = Impactor.instance().services().provide(EconomyService.class);
+        ((ImpactorEconomyService) service).storage().purge().join();
+
+        try {
+            Path config = Paths.get("config");
+            if(Files.exists(config)) {
+                FileUtils.cleanDirectory(config.toFile());
+                Files.delete(config);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void resultsFollowInputOrder() {
+        ImpactorEconomyService service = (ImpactorEconomyService) Impactor.instance().services().provide(EconomyService.class);
+        Currency currency = service.currencies().primary();
+        Account first = service.account(currency, UUID.randomUUID()).join();
+        Account second = service.account(currency, UUID.randomUUID()).join();
+        first.set(BigDecimal.ZERO);
+        second.set(BigDecimal.TEN);
+
+        List<EconomyTransaction> results = service.bulk(List.of(
+                BulkOperation.withdraw(first, BigDecimal.ONE),
+                BulkOperation.deposit(second, BigDecimal.TEN),
+                BulkOperation.deposit(first, BigDecimal.TEN)
+        ));
+
+        assertEquals(3, results.size());
+        assertEquals(EconomyResultType.NOT_ENOUGH_FUNDS, results.get(0).result());
+        assertEquals(EconomyResultType.SUCCESS, results.get(1).result());
+        assertEquals(EconomyResultType.SUCCESS, results.get(2).result());
+        assertEquals(0, BigDecimal.TEN.compareTo(first.balance()));
+        assertEquals(0, BigDecimal.valueOf(20).compareTo(second.balance()));
+    }
+
+    @Test
+    public void groupsApplyAllOrNothing() throws Exception {
+        ImpactorEconomyService service = (ImpactorEconomyService) Impactor.instance().services().provide(EconomyService.class);
+        Currency currency = service.currencies().primary();
+        Account buyer = service.account(currency, UUID.randomUUID()).join();
+        Account seller = service.account(currency, UUID.randomUUID()).join();
+        Account fees = service.account(currency, UUID.randomUUID()).join();
+        buyer.set(BigDecimal.TEN);
+        seller.set(BigDecimal.ZERO);
+        fees.set(BigDecimal.ZERO);
+
+        EconomyResultType rejected = service.group()
+                .deposit(seller, BigDecimal.valueOf(9))
+                .deposit(fees, BigDecimal.ONE)
+                .withdraw(buyer, BigDecimal.valueOf(11))
+                .commit();
+
+        assertEquals(EconomyResultType.NOT_ENOUGH_FUNDS, rejected);
+        assertEquals(0, BigDecimal.TEN.compareTo(buyer.balance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(seller.balance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(fees.balance()));
+
+        EconomyResultType applied = service.group()
+                .withdraw(buyer, BigDecimal.TEN)
+                .deposit(seller, BigDecimal.valueOf(9))
+                .deposit(fees, BigDecimal.ONE)
+                .commit();
+
+        assertEquals(EconomyResultType.SUCCESS, applied);
+        assertEquals(0, BigDecimal.ZERO.compareTo(buyer.balance()));
+        assertEquals(0, BigDecimal.valueOf(9).compareTo(seller.balance()));
+        assertEquals(0, BigDecimal.ONE.compareTo(fees.balance()));
+
+        service.storage().drain().join();
+        EconomyStorageImplementation storage = service.storage().implementation();
+        assertEquals(0, BigDecimal.ZERO.compareTo(storage.account(currency, buyer.owner(), builder -> builder).balance()));
+        assertEquals(0, BigDecimal.valueOf(9).compareTo(storage.account(currency, seller.owner(), builder -> builder).balance()));
+        assertEquals(0, BigDecimal.ONE.compareTo(storage.account(currency, fees.owner(), builder -> builder).balance()));
+    }
+
+    @Test
+    public void deltasAreAppliedAsOneBatch() throws Exception {
+        ImpactorEconomyService service = (ImpactorEconomyService) Impactor.instance().services().provide(EconomyService.class);
+        Currency currency = service.currencies().primary();
+        StorageCredentials credentials = new StorageCredentials("localhost", "minecraft", "root", "", 2, 2, 1800000, 0, 5000, ImmutableMap.of());
+        SQLProvider provider = new SQLProvider(new H2ConnectionImpl(credentials, this.directory.resolve("economy")), "economy_");
+        EconomyStorage storage = new EconomyStorage(provider, 0, 100, true, InvalidationChannel.none());
+        storage.init();
+
+        try {
+            List<ImpactorAccount> accounts = IntStream.range(0, 50)
+                    .mapToObj(i -> ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.ONE))
+                    .toList();
+            provider.save(List.<Account>copyOf(accounts));
+
+            EconomyResultType[] results = new EconomyResultType[accounts.size() + 1];
+            BulkAdjustments adjustments = new BulkAdjustments(storage, service.restrictions());
+            for(int i = 0; i < accounts.size(); i++) {
+                adjustments.add(i, accounts.get(i), BulkOperation.deposit(accounts.get(i), BigDecimal.TEN), results);
+            }
+            adjustments.add(accounts.size(), accounts.get(0), BulkOperation.withdraw(accounts.get(0), BigDecimal.valueOf(100)), results);
+            adjustments.apply(results);
+
+            for(int i = 0; i < accounts.size(); i++) {
+                assertEquals(EconomyResultType.SUCCESS, results[i]);
+                assertEquals(0, BigDecimal.valueOf(11).compareTo(accounts.get(i).balance()));
+                assertEquals(0, BigDecimal.valueOf(11).compareTo(provider.account(currency, accounts.get(i).owner(), builder -> builder).balance()));
+            }
+            assertEquals(EconomyResultType.NOT_ENOUGH_FUNDS, results[accounts.size()]);
+
+            // One round-trip rejecting the withdrawal, and another applying every deposit
+            assertEquals(2, storage.metrics().latencies().get(StorageMetrics.Operation.ADJUST).count());
+        } finally {
+            storage.shutdown();
+        }
+    }
+
+}
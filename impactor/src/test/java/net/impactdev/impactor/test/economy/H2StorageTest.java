@@ -0,0 +1,195 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.test.economy;
+
+import com.google.common.collect.ImmutableMap;
+import net.impactdev.impactor.api.Impactor;
+import net.impactdev.impactor.api.economy.EconomyService;
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.impactdev.impactor.api.economy.currency.Currency;
+import net.impactdev.impactor.api.storage.StorageCredentials;
+import net.impactdev.impactor.api.storage.StorageType;
+import net.impactdev.impactor.core.economy.accounts.ImpactorAccount;
+import net.impactdev.impactor.core.economy.storage.BalanceAdjustment;
+import net.impactdev.impactor.core.economy.storage.implementations.SQLProvider;
+import net.impactdev.impactor.core.economy.storage.migration.StorageBackend;
+import net.impactdev.impactor.core.economy.storage.migration.StorageMigration;
+import net.impactdev.impactor.core.storage.sql.H2ConnectionImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class H2StorageTest {
+
+    @TempDir
+    public Path directory;
+
+    @Test
+    public void storesAndStreamsAccounts() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        SQLProvider provider = this.provider();
+        provider.init();
+
+        try {
+            // Spans several pages to exercise the keyset cursor
+            List<Account> accounts = IntStream.range(0, 2500)
+                    .mapToObj(i -> (Account) ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.valueOf(i)))
+                    .toList();
+            provider.save(accounts);
+
+            Account first = accounts.get(0);
+            assertTrue(provider.hasAccount(currency, first.owner()));
+            assertEquals(0, first.balance().compareTo(provider.account(currency, first.owner(), builder -> builder).balance()));
+
+            try(Stream<Account> stored = provider.accounts(currency)) {
+                Set<UUID> owners = stored.map(Account::owner).collect(Collectors.toSet());
+                assertEquals(accounts.stream().map(Account::owner).collect(Collectors.toSet()), owners);
+            }
+        } finally {
+            provider.shutdown();
+        }
+    }
+
+    @Test
+    public void appliesBoundedDeltas() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        SQLProvider provider = this.provider();
+        provider.init();
+
+        try {
+            Account account = ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.TEN);
+            provider.save(account);
+
+            assertFalse(provider.adjust(account, BigDecimal.valueOf(-15), BigDecimal.ZERO, null));
+            assertTrue(provider.adjust(account, BigDecimal.valueOf(-5), BigDecimal.ZERO, null));
+            assertFalse(provider.adjust(account, BigDecimal.valueOf(100), null, BigDecimal.valueOf(50)));
+            assertTrue(provider.adjust(account, BigDecimal.valueOf(20), null, BigDecimal.valueOf(50)));
+
+            BigDecimal stored = provider.account(currency, account.owner(), builder -> builder).balance();
+            assertEquals(0, BigDecimal.valueOf(25).compareTo(stored));
+        } finally {
+            provider.shutdown();
+        }
+    }
+
+    @Test
+    public void appliesBatchedAdjustmentsAtomically() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        SQLProvider provider = this.provider();
+        provider.init();
+
+        try {
+            Account first = ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.TEN);
+            Account second = ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.TEN);
+            provider.save(List.of(first, second));
+
+            // Adjustments sharing the same bounds share a single prepared statement
+            assertEquals(-1, provider.adjust(List.of(
+                    new BalanceAdjustment(first, BigDecimal.valueOf(-5), BigDecimal.ZERO, null),
+                    new BalanceAdjustment(second, BigDecimal.valueOf(5), null, null),
+                    new BalanceAdjustment(second, BigDecimal.valueOf(-5), BigDecimal.ZERO, null)
+            )));
+            assertEquals(1, provider.adjust(List.of(
+                    new BalanceAdjustment(second, BigDecimal.ONE, null, null),
+                    new BalanceAdjustment(first, BigDecimal.valueOf(-6), BigDecimal.ZERO, null)
+            )));
+
+            assertEquals(0, BigDecimal.valueOf(5).compareTo(provider.account(currency, first.owner(), builder -> builder).balance()));
+            assertEquals(0, BigDecimal.TEN.compareTo(provider.account(currency, second.owner(), builder -> builder).balance()));
+        } finally {
+            provider.shutdown();
+        }
+    }
+
+    @Test
+    public void loadsOwnedAccountsTogether() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        SQLProvider provider = this.provider();
+        provider.init();
+
+        try {
+            UUID owner = UUID.randomUUID();
+            provider.save(ImpactorAccount.load(currency, owner, false, BigDecimal.TEN));
+            provider.save(ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.ONE));
+
+            Map<Currency, Account> accounts = provider.accounts(owner, List.of(currency));
+            assertEquals(1, accounts.size());
+            assertEquals(0, BigDecimal.TEN.compareTo(accounts.get(currency).balance()));
+            assertTrue(provider.accounts(UUID.randomUUID(), List.of(currency)).isEmpty());
+        } finally {
+            provider.shutdown();
+        }
+    }
+
+    @Test
+    public void migratesAndVerifiesAccounts() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        SQLProvider source = this.provider("source");
+        SQLProvider target = this.provider("target");
+        source.init();
+        target.init();
+
+        try {
+            source.save(IntStream.range(0, 1250)
+                    .mapToObj(i -> (Account) ImpactorAccount.load(currency, UUID.randomUUID(), i % 10 == 0, BigDecimal.valueOf(i)))
+                    .toList()
+            );
+
+            StorageMigration migration = new StorageMigration(StorageBackend.of(StorageType.H2), StorageBackend.of(StorageType.MYSQL), 100);
+            List<StorageMigration.Verification> results = migration.migrate(source, target, List.of(currency), progress -> {});
+
+            assertEquals(1, results.size());
+            assertTrue(results.get(0).valid());
+            assertEquals(1250, results.get(0).target());
+        } finally {
+            source.shutdown();
+            target.shutdown();
+        }
+    }
+
+    private SQLProvider provider() {
+        return this.provider("economy");
+    }
+
+    private SQLProvider provider(String name) {
+        StorageCredentials credentials = new StorageCredentials("localhost", "minecraft", "root", "", 2, 2, 1800000, 0, 5000, ImmutableMap.of());
+        return new SQLProvider(new H2ConnectionImpl(credentials, this.directory.resolve(name)), "economy_");
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.test.economy;
+
+import com.google.common.collect.ImmutableMap;
+import net.impactdev.impactor.api.Impactor;
+import net.impactdev.impactor.api.economy.EconomyService;
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.impactdev.impactor.api.economy.currency.Currency;
+import net.impactdev.impactor.api.storage.StorageCredentials;
+import net.impactdev.impactor.core.economy.accounts.ImpactorAccount;
+import net.impactdev.impactor.core.economy.storage.EconomyStorage;
+import net.impactdev.impactor.core.economy.storage.implementations.SQLProvider;
+import net.impactdev.impactor.core.economy.storage.invalidation.LocalInvalidationChannel;
+import net.impactdev.impactor.core.economy.storage.invalidation.PollingInvalidationChannel;
+import net.impactdev.impactor.core.storage.sql.H2ConnectionImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class InvalidationTest {
+
+    @TempDir
+    public Path directory;
+
+    @Test
+    public void publishedWritesRefreshOtherServers() throws Exception {
+        LocalInvalidationChannel.Bus bus = new LocalInvalidationChannel.Bus();
+        EconomyStorage first = new EconomyStorage(this.provider(), 0, 100, false, new LocalInvalidationChannel(bus));
+        EconomyStorage second = new EconomyStorage(this.provider(), 0, 100, false, new LocalInvalidationChannel(bus));
+        this.verify(first, second);
+    }
+
+    @Test
+    public void polledWritesRefreshOtherServers() throws Exception {
+        SQLProvider a = this.provider();
+        SQLProvider b = this.provider();
+        EconomyStorage first = new EconomyStorage(a, 0, 100, false, new PollingInvalidationChannel(a, 50));
+        EconomyStorage second = new EconomyStorage(b, 0, 100, false, new PollingInvalidationChannel(b, 50));
+        this.verify(first, second);
+    }
+
+    @Test
+    public void polledWritesIgnoreOwnChanges() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        SQLProvider provider = this.provider();
+        EconomyStorage storage = new EconomyStorage(provider, 0, 100, false, new PollingInvalidationChannel(provider, 50));
+        storage.init();
+
+        try {
+            UUID owner = UUID.randomUUID();
+            storage.save(ImpactorAccount.load(currency, owner, false, new BigDecimal("100"))).join();
+
+            // The polled change feed will report the write above back to the server which made it, which
+            // must not be mistaken for a change made elsewhere
+            ImpactorAccount account = (ImpactorAccount) storage.account(currency, owner, builder -> builder).join();
+            account.synchronize(new BigDecimal("250"));
+            Thread.sleep(300);
+
+            assertEquals(0, new BigDecimal("250").compareTo(account.balance()));
+        } finally {
+            storage.shutdown();
+        }
+    }
+
+    private void verify(EconomyStorage first, EconomyStorage second) throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        first.init();
+        second.init();
+
+        try {
+            UUID owner = UUID.randomUUID();
+            Account remote = second.account(currency, owner, builder -> builder).join();
+
+            BigDecimal expected = new BigDecimal("1234.5");
+            first.save(ImpactorAccount.load(currency, owner, false, expected)).join();
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while(expected.compareTo(remote.balance()) != 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(25);
+            }
+
+            assertEquals(0, expected.compareTo(remote.balance()));
+        } finally {
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+
+    private SQLProvider provider() {
+        StorageCredentials credentials = new StorageCredentials("localhost", "minecraft", "root", "", 2, 2, 1800000, 0, 5000, ImmutableMap.of());
+        return new SQLProvider(new H2ConnectionImpl(credentials, this.directory.resolve("economy")), "economy_");
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.test.economy;
+
+import net.impactdev.impactor.api.Impactor;
+import net.impactdev.impactor.api.economy.EconomyService;
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.impactdev.impactor.api.economy.currency.Currency;
+import net.impactdev.impactor.core.economy.accounts.ImpactorAccount;
+import net.impactdev.impactor.core.economy.storage.implementations.JournalProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JournalProviderTest {
+
+    @TempDir
+    public Path directory;
+
+    @Test
+    public void replaysLatestState() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        Path journal = this.directory.resolve("accounts.journal");
+        UUID kept = UUID.randomUUID();
+        UUID deleted = UUID.randomUUID();
+
+        JournalProvider provider = new JournalProvider(journal);
+        provider.init();
+        provider.save(ImpactorAccount.load(currency, kept, false, BigDecimal.ONE));
+        provider.save(ImpactorAccount.load(currency, deleted, false, BigDecimal.TEN));
+        provider.save(ImpactorAccount.load(currency, kept, false, new BigDecimal("123.45")));
+        provider.delete(currency, deleted);
+        provider.shutdown();
+
+        JournalProvider reopened = new JournalProvider(journal);
+        reopened.init();
+        assertTrue(reopened.hasAccount(currency, kept));
+        assertFalse(reopened.hasAccount(currency, deleted));
+        assertEquals(0, new BigDecimal("123.45").compareTo(reopened.account(currency, kept, builder -> builder).balance()));
+        reopened.shutdown();
+    }
+
+    @Test
+    public void discardsTornTrailingRecord() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        Path journal = this.directory.resolve("accounts.journal");
+        UUID owner = UUID.randomUUID();
+
+        JournalProvider provider = new JournalProvider(journal);
+        provider.init();
+        provider.save(ImpactorAccount.load(currency, owner, false, BigDecimal.TEN));
+        provider.shutdown();
+
+        long valid = Files.size(journal);
+        Files.write(journal, new byte[] { 0, 0, 0, 40, 1, 0, 12 }, StandardOpenOption.APPEND);
+
+        JournalProvider reopened = new JournalProvider(journal);
+        reopened.init();
+        assertEquals(valid, Files.size(journal));
+
+        reopened.save(ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.ONE));
+        try(var accounts = reopened.accounts(currency)) {
+            List<Account> results = accounts.toList();
+            assertEquals(2, results.size());
+        }
+        reopened.shutdown();
+    }
+
+    @Test
+    public void discardsTornGroupEntirely() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        Path journal = this.directory.resolve("accounts.journal");
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        JournalProvider provider = new JournalProvider(journal);
+        provider.init();
+        provider.save(ImpactorAccount.load(currency, first, false, BigDecimal.TEN));
+        provider.saveAtomically(List.of(
+                ImpactorAccount.load(currency, first, false, BigDecimal.ONE),
+                ImpactorAccount.load(currency, second, false, BigDecimal.ONE)
+        ));
+        provider.shutdown();
+
+        try(FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 8);
+        }
+
+        JournalProvider reopened = new JournalProvider(journal);
+        reopened.init();
+        assertFalse(reopened.hasAccount(currency, second));
+        assertEquals(0, BigDecimal.TEN.compareTo(reopened.account(currency, first, builder -> builder).balance()));
+        reopened.shutdown();
+    }
+
+    @Test
+    public void compactsWithoutLosingLaterWrites() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        Path journal = this.directory.resolve("accounts.journal");
+        List<UUID> owners = IntStream.range(0, 1000).mapToObj(i -> UUID.randomUUID()).toList();
+
+        JournalProvider provider = new JournalProvider(journal);
+        provider.init();
+        for(int round = 0; round <= 12; round++) {
+            BigDecimal balance = BigDecimal.valueOf(round);
+            provider.save(owners.stream().map(owner -> (Account) ImpactorAccount.load(currency, owner, false, balance)).toList());
+        }
+
+        // Written while the compaction triggered above may still be in progress
+        UUID late = UUID.randomUUID();
+        provider.save(ImpactorAccount.load(currency, late, false, new BigDecimal("99.5")));
+        provider.shutdown();
+
+        JournalProvider reopened = new JournalProvider(journal);
+        reopened.init();
+        try(var accounts = reopened.accounts(currency)) {
+            assertEquals(1001, accounts.count());
+        }
+        assertEquals(0, BigDecimal.valueOf(12).compareTo(reopened.account(currency, owners.get(0), builder -> builder).balance()));
+        assertEquals(0, new BigDecimal("99.5").compareTo(reopened.account(currency, late, builder -> builder).balance()));
+        assertFalse(Files.exists(journal.resolveSibling(journal.getFileName() + ".compact")));
+        reopened.shutdown();
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.test.economy;
+
+import net.impactdev.impactor.api.Impactor;
+import net.impactdev.impactor.api.economy.EconomyService;
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.impactdev.impactor.api.economy.currency.Currency;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyResultType;
+import net.impactdev.impactor.api.economy.transactions.details.EconomyTransactionType;
+import net.impactdev.impactor.core.economy.accounts.ImpactorAccount;
+import net.impactdev.impactor.core.economy.ledger.EconomyLedger;
+import net.impactdev.impactor.core.economy.ledger.FileLedgerStorage;
+import net.impactdev.impactor.core.economy.ledger.LedgerEntry;
+import net.impactdev.impactor.core.economy.ledger.LedgerStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LedgerTest {
+
+    @TempDir
+    public Path directory;
+
+    @Test
+    public void pagesHistoryNewestFirst() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        Account account = ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.ZERO);
+
+        EconomyLedger ledger = new EconomyLedger(new FileLedgerStorage(this.directory), 1024);
+        ledger.start();
+        for(int i = 0; i < 25; i++) {
+            ledger.record(account, EconomyTransactionType.DEPOSIT, BigDecimal.ONE, BigDecimal.valueOf(i), BigDecimal.valueOf(i + 1), EconomyResultType.SUCCESS);
+        }
+
+        List<LedgerEntry> first = ledger.history(currency, account.owner(), Long.MAX_VALUE, 10).join();
+        assertEquals(10, first.size());
+        assertEquals(0, BigDecimal.valueOf(25).compareTo(first.get(0).after()));
+
+        List<LedgerEntry> second = ledger.history(currency, account.owner(), first.get(first.size() - 1).id(), 10).join();
+        assertEquals(10, second.size());
+        assertEquals(0, BigDecimal.valueOf(15).compareTo(second.get(0).after()));
+        assertTrue(second.get(0).id() < first.get(first.size() - 1).id());
+        ledger.shutdown();
+    }
+
+    @Test
+    public void replaysLatestSuccessfulBalance() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        Account first = ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.ZERO);
+        Account second = ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.ZERO);
+
+        EconomyLedger ledger = new EconomyLedger(new FileLedgerStorage(this.directory), 1024);
+        ledger.start();
+        ledger.record(first, EconomyTransactionType.SET, BigDecimal.TEN, BigDecimal.ZERO, BigDecimal.TEN, EconomyResultType.SUCCESS);
+        ledger.record(first, EconomyTransactionType.WITHDRAW, BigDecimal.TEN, BigDecimal.TEN, BigDecimal.ZERO, EconomyResultType.SUCCESS, second.owner());
+        ledger.record(second, EconomyTransactionType.DEPOSIT, BigDecimal.TEN, BigDecimal.ZERO, BigDecimal.TEN, EconomyResultType.SUCCESS, first.owner());
+        ledger.record(second, EconomyTransactionType.WITHDRAW, BigDecimal.valueOf(50), BigDecimal.TEN, BigDecimal.TEN, EconomyResultType.NOT_ENOUGH_FUNDS);
+        ledger.shutdown();
+
+        EconomyLedger reopened = new EconomyLedger(new FileLedgerStorage(this.directory), 1024);
+        Map<UUID, BigDecimal> balances = reopened.replay(currency).join();
+        assertEquals(2, balances.size());
+        assertEquals(0, BigDecimal.ZERO.compareTo(balances.get(first.owner())));
+        assertEquals(0, BigDecimal.TEN.compareTo(balances.get(second.owner())));
+    }
+
+    @Test
+    public void retriesBatchesStorageRejected() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        Account account = ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.ZERO);
+
+        FileLedgerStorage delegate = new FileLedgerStorage(this.directory);
+        AtomicInteger failures = new AtomicInteger(2);
+        LedgerStorage storage = new LedgerStorage() {
+            @Override
+            public void append(List<LedgerEntry> entries) throws Exception {
+                if(failures.getAndDecrement() > 0) {
+                    throw new IOException("Storage unavailable");
+                }
+
+                delegate.append(entries);
+            }
+
+            @Override
+            public List<LedgerEntry> history(Currency currency, UUID owner, long before, int limit) throws Exception {
+                return delegate.history(currency, owner, before, limit);
+            }
+
+            @Override
+            public Map<UUID, BigDecimal> replay(Currency currency) throws Exception {
+                return delegate.replay(currency);
+            }
+        };
+
+        EconomyLedger ledger = new EconomyLedger(storage, 1024);
+        ledger.start();
+        for(int i = 0; i < 5; i++) {
+            ledger.record(account, EconomyTransactionType.DEPOSIT, BigDecimal.ONE, BigDecimal.valueOf(i), BigDecimal.valueOf(i + 1), EconomyResultType.SUCCESS);
+        }
+
+        // Each read first attempts to write any outstanding entries, including those previously rejected
+        List<LedgerEntry> history;
+        long deadline = System.currentTimeMillis() + 5000;
+        do {
+            history = ledger.history(currency, account.owner(), Long.MAX_VALUE, 10).join();
+        } while(history.size() < 5 && System.currentTimeMillis() < deadline);
+        ledger.shutdown();
+
+        assertEquals(5, history.size());
+        assertEquals(0, BigDecimal.valueOf(5).compareTo(history.get(0).after()));
+    }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.test.economy;
+
+import com.google.common.collect.ImmutableMap;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.commands.MongodArguments;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.config.Storage;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import de.flapdoodle.reverse.transitions.Start;
+import net.impactdev.impactor.api.Impactor;
+import net.impactdev.impactor.api.economy.EconomyService;
+import net.impactdev.impactor.api.economy.accounts.Account;
+import net.impactdev.impactor.api.economy.currency.Currency;
+import net.impactdev.impactor.api.storage.StorageCredentials;
+import net.impactdev.impactor.core.economy.accounts.ImpactorAccount;
+import net.impactdev.impactor.core.economy.storage.BalanceAdjustment;
+import net.impactdev.impactor.core.economy.storage.implementations.MongoProvider;
+import net.impactdev.impactor.core.economy.storage.invalidation.Invalidation;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the MongoDB storage against an embedded server, configured as a single member replica set so
+ * transactions are available.
+ */
+public class MongoStorageTest {
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> server;
+    private static String address;
+
+    @BeforeAll
+    public static void start() throws Exception {
+        server = Mongod.instance()
+                .withMongodArguments(Start.to(MongodArguments.class).initializedWith(MongodArguments.defaults()
+                        .withUseNoJournal(false)
+                        .withReplication(Storage.of("impactor", 0))
+                ))
+                .start(Version.Main.V6_0);
+
+        ServerAddress running = server.current().getServerAddress();
+        address = running.getHost() + ":" + running.getPort();
+
+        try(MongoClient client = MongoClients.create("mongodb://" + address)) {
+            client.getDatabase("admin").runCommand(new Document("replSetInitiate", new Document()));
+
+            long deadline = System.currentTimeMillis() + 10000;
+            while(!client.getDatabase("admin").runCommand(new Document("isMaster", 1)).getBoolean("ismaster", false)) {
+                if(System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("Replica set never elected a primary");
+                }
+
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    @AfterAll
+    public static void stop() {
+        if(server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void storesAccountsAndAppliesBoundedDeltas() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        MongoProvider provider = this.provider();
+        provider.init();
+
+        try {
+            Account account = ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.TEN);
+            provider.save(account);
+            assertTrue(provider.hasAccount(currency, account.owner()));
+
+            assertFalse(provider.adjust(account, BigDecimal.valueOf(-15), BigDecimal.ZERO, null));
+            assertTrue(provider.adjust(account, BigDecimal.valueOf(-5), BigDecimal.ZERO, null));
+            assertFalse(provider.adjust(account, BigDecimal.valueOf(100), null, BigDecimal.valueOf(50)));
+            assertTrue(provider.adjust(account, new BigDecimal("20.25"), null, BigDecimal.valueOf(50)));
+
+            BigDecimal stored = provider.account(currency, account.owner(), builder -> builder).balance();
+            assertEquals(0, new BigDecimal("25.25").compareTo(stored));
+        } finally {
+            provider.shutdown();
+        }
+    }
+
+    @Test
+    public void savesAccountsAtomically() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        MongoProvider provider = this.provider();
+        provider.init();
+
+        try {
+            Account first = ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.valueOf(40));
+            Account second = ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.valueOf(60));
+            provider.saveAtomically(List.of(first, second));
+
+            assertEquals(0, BigDecimal.valueOf(40).compareTo(provider.account(currency, first.owner(), builder -> builder).balance()));
+            assertEquals(0, BigDecimal.valueOf(60).compareTo(provider.account(currency, second.owner(), builder -> builder).balance()));
+        } finally {
+            provider.shutdown();
+        }
+    }
+
+    @Test
+    public void adjustsGroupsWithinATransaction() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        MongoProvider provider = this.provider();
+        provider.init();
+
+        try {
+            Account first = ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.valueOf(40));
+            Account second = ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.valueOf(60));
+            provider.save(List.of(first, second));
+
+            assertEquals(1, provider.adjust(List.of(
+                    new BalanceAdjustment(first, BigDecimal.valueOf(-30), BigDecimal.ZERO, null),
+                    new BalanceAdjustment(second, BigDecimal.valueOf(-70), BigDecimal.ZERO, null)
+            )));
+            assertEquals(0, BigDecimal.valueOf(40).compareTo(provider.account(currency, first.owner(), builder -> builder).balance()));
+            assertEquals(0, BigDecimal.valueOf(60).compareTo(provider.account(currency, second.owner(), builder -> builder).balance()));
+
+            assertEquals(-1, provider.adjust(List.of(
+                    new BalanceAdjustment(first, BigDecimal.valueOf(-30), BigDecimal.ZERO, null),
+                    new BalanceAdjustment(second, BigDecimal.valueOf(30), null, null)
+            )));
+            assertEquals(0, BigDecimal.TEN.compareTo(provider.account(currency, first.owner(), builder -> builder).balance()));
+            assertEquals(0, BigDecimal.valueOf(90).compareTo(provider.account(currency, second.owner(), builder -> builder).balance()));
+        } finally {
+            provider.shutdown();
+        }
+    }
+
+    @Test
+    public void reportsChangesSinceTheirWrite() throws Exception {
+        Currency currency = Impactor.instance().services().provide(EconomyService.class).currencies().primary();
+        MongoProvider provider = this.provider();
+        provider.init();
+
+        try {
+            Account account = ImpactorAccount.load(currency, UUID.randomUUID(), false, BigDecimal.ONE);
+            provider.save(account);
+
+            long since = System.currentTimeMillis();
+            assertTrue(provider.changes(since + 1000).stream().noneMatch(change -> change.owner().equals(account.owner())));
+
+            provider.adjust(account, BigDecimal.ONE, null, null);
+            Invalidation change = provider.changes(since - 1).stream()
+                    .filter(invalidation -> invalidation.owner().equals(account.owner()))
+                    .findFirst()
+                    .orElseThrow();
+
+            assertEquals(currency.key(), change.currency());
+            assertEquals(0, BigDecimal.valueOf(2).compareTo(change.balance()));
+        } finally {
+            provider.shutdown();
+        }
+    }
+
+    private MongoProvider provider() {
+        StorageCredentials credentials = new StorageCredentials(address, "minecraft", "", "", 2, 2, 1800000, 0, 5000, ImmutableMap.of());
+        return new MongoProvider(credentials, "economy_" + UUID.randomUUID().toString().replace("-", "") + "_");
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.test.economy;
+
+import net.impactdev.impactor.core.economy.accounts.ScaledBalance;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScaledBalanceTest {
+
+    @Test
+    public void convertsWithoutLosingPrecision() {
+        assertEquals(1234, ScaledBalance.scale(new BigDecimal("12.34"), 2));
+        assertEquals(1200, ScaledBalance.scale(new BigDecimal("12"), 2));
+        assertEquals(1234, ScaledBalance.scale(new BigDecimal("12.345"), 2));
+        assertEquals(0, new BigDecimal("12.34").compareTo(ScaledBalance.decimal(1234, 2)));
+
+        BigDecimal precise = new BigDecimal("0.1").add(new BigDecimal("0.2"));
+        assertEquals(0, precise.compareTo(ScaledBalance.decimal(ScaledBalance.scale(precise, 2), 2)));
+    }
+
+    @Test
+    public void detectsOverflow() {
+        assertThrows(ArithmeticException.class, () -> ScaledBalance.scale(new BigDecimal("1e30"), 2));
+        assertEquals(Long.MAX_VALUE, ScaledBalance.bound(new BigDecimal("1e30"), 2));
+        assertEquals(Long.MIN_VALUE, ScaledBalance.bound(new BigDecimal("-1e30"), 2));
+
+        assertTrue(ScaledBalance.overflows(Long.MAX_VALUE - 5, 6));
+        assertTrue(ScaledBalance.overflows(Long.MIN_VALUE + 5, -6));
+        assertFalse(ScaledBalance.overflows(Long.MAX_VALUE - 5, 5));
+        assertFalse(ScaledBalance.overflows(-10, 20));
+    }
+
+}
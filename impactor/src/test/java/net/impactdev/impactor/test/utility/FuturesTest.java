@@ -0,0 +1,120 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.test.utility;
+
+import net.impactdev.impactor.core.utility.future.Futures;
+import net.impactdev.impactor.core.utility.future.TaskClass;
+import net.impactdev.impactor.core.utility.future.TaskExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FuturesTest {
+
+    @Test
+    public void timedFuturesCompleteWithTheirResult() {
+        assertEquals(5, Futures.timed(() -> 5, 10, TimeUnit.SECONDS).join());
+    }
+
+    @Test
+    public void timedFuturesFailOnceTheDurationElapses() {
+        CompletableFuture<Integer> timed = Futures.timed(() -> {
+            Thread.sleep(1000);
+            return 5;
+        }, 50, TimeUnit.MILLISECONDS);
+
+        CompletionException error = assertThrows(CompletionException.class, timed::join);
+        assertInstanceOf(TimeoutException.class, error.getCause());
+    }
+
+    @Test
+    public void taskClassesHonorTheirLimits() throws Exception {
+        ExecutorService platform = Executors.newCachedThreadPool();
+        TaskExecutor executor = new TaskExecutor(TaskClass.GENERAL, platform).configure(1, 1, false);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        Runnable task = () -> {
+            peak.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            concurrent.decrementAndGet();
+        };
+
+        executor.execute(task);
+        executor.execute(task);
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(task));
+
+        release.countDown();
+        assertTrue(executor.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(1, peak.get());
+        assertEquals(1, executor.statistics().rejected());
+        platform.shutdown();
+    }
+
+    @Test
+    public void tasksRunOnceThePlatformRejectsThem() {
+        ExecutorService platform = Executors.newCachedThreadPool();
+        platform.shutdown();
+
+        TaskExecutor executor = new TaskExecutor(TaskClass.GENERAL, platform);
+        AtomicBoolean invoked = new AtomicBoolean();
+        executor.execute(() -> invoked.set(true));
+
+        assertTrue(invoked.get());
+        assertEquals(0, executor.statistics().running());
+    }
+
+    @Test
+    public void delayedActionsAreDiscardedOnceCompleted() throws Exception {
+        AtomicBoolean invoked = new AtomicBoolean();
+        CompletableFuture<Boolean> delayed = Futures.makeFutureDelayed(() -> invoked.getAndSet(true), 100, TimeUnit.MILLISECONDS);
+        delayed.complete(false);
+
+        Thread.sleep(300);
+        assertFalse(invoked.get());
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * This file is part of Impactor, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2018-2022 NickImpact
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package net.impactdev.impactor.test.utility;
+
+import net.impactdev.impactor.core.utility.future.MainThreadExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MainThreadExecutorTest {
+
+    @Test
+    public void tasksFromTheMainThreadRunInline() {
+        MainThreadExecutor executor = new MainThreadExecutor(() -> true, 5, TimeUnit.MILLISECONDS);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        executor.execute(() -> ran.set(true));
+
+        assertTrue(ran.get());
+        assertEquals(1, executor.statistics().inline());
+        assertEquals(0, executor.statistics().queued());
+    }
+
+    @Test
+    public void tasksFromOtherThreadsWaitForATick() {
+        MainThreadExecutor executor = new MainThreadExecutor(() -> false, 5, TimeUnit.MILLISECONDS);
+        AtomicInteger ran = new AtomicInteger();
+
+        for(int i = 0; i < 10; i++) {
+            executor.execute(ran::incrementAndGet);
+        }
+
+        assertEquals(0, ran.get());
+        assertEquals(10, executor.statistics().queued());
+
+        executor.drain();
+        assertEquals(10, ran.get());
+        assertEquals(0, executor.statistics().queued());
+    }
+
+    @Test
+    public void exhaustedBudgetsCarryTasksOver() {
+        MainThreadExecutor executor = new MainThreadExecutor(() -> false, 0, TimeUnit.MILLISECONDS);
+        AtomicInteger ran = new AtomicInteger();
+
+        for(int i = 0; i < 3; i++) {
+            executor.execute(ran::incrementAndGet);
+        }
+
+        executor.drain();
+        assertEquals(1, ran.get());
+        assertEquals(1, executor.statistics().deferred());
+
+        executor.flush();
+        assertEquals(3, ran.get());
+    }
+
+    @Test
+    public void higherPrioritiesRunFirstWithoutStarvingLowerOnes() {
+        MainThreadExecutor executor = new MainThreadExecutor(() -> false, 0, TimeUnit.MILLISECONDS);
+        List<MainThreadExecutor.Priority> order = new ArrayList<>();
+
+        executor.execute(() -> order.add(MainThreadExecutor.Priority.LOW), MainThreadExecutor.Priority.LOW);
+        executor.execute(() -> order.add(MainThreadExecutor.Priority.NORMAL));
+        executor.priority(MainThreadExecutor.Priority.HIGH).execute(() -> order.add(MainThreadExecutor.Priority.HIGH));
+        executor.priority(MainThreadExecutor.Priority.HIGH).execute(() -> order.add(MainThreadExecutor.Priority.HIGH));
+
+        executor.drain();
+        assertEquals(List.of(MainThreadExecutor.Priority.HIGH, MainThreadExecutor.Priority.NORMAL, MainThreadExecutor.Priority.LOW), order);
+        assertEquals(1, executor.statistics().backlog().get(MainThreadExecutor.Priority.HIGH));
+    }
+
+    @Test
+    public void lowPriorityTasksAreQueuedFromTheMainThread() {
+        MainThreadExecutor executor = new MainThreadExecutor(() -> true, 5, TimeUnit.MILLISECONDS);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        executor.execute(() -> ran.set(true), MainThreadExecutor.Priority.LOW);
+        assertFalse(ran.get());
+
+        executor.drain();
+        assertTrue(ran.get());
+    }
+
+}
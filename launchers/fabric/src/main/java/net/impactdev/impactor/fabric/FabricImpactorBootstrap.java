@@ -28,6 +28,7 @@ package net.impactdev.impactor.fabric;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.impactdev.impactor.fabric.commands.FabricCommandManager;
+import net.impactdev.impactor.fabric.listeners.ConnectionListener;
 import net.impactdev.impactor.api.logging.Log4jLogger;
 import net.impactdev.impactor.core.plugin.BaseImpactorPlugin;
 import net.impactdev.impactor.core.plugin.ImpactorBootstrapper;
@@ -60,6 +61,7 @@ public final class FabricImpactorBootstrap extends ImpactorBootstrapper implemen
         this.construct();
         ServerLifecycleEvents.SERVER_STARTING.register(this::onServerStarting);
         ServerLifecycleEvents.SERVER_STOPPING.register(server -> this.shutdown());
+        ConnectionListener.register();
     }
 
     private void onServerStarting(MinecraftServer server) {
@@ -25,13 +25,20 @@
 
 package net.impactdev.impactor.fabric.mixins.core;
 
+import net.impactdev.impactor.api.Impactor;
 import net.impactdev.impactor.api.platform.performance.MemoryWatcher;
 import net.impactdev.impactor.api.platform.performance.PerformanceMonitor;
+import net.impactdev.impactor.core.utility.future.MainThreadExecutor;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.Mth;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.function.BooleanSupplier;
 
 @Mixin(MinecraftServer.class)
 public class MinecraftServerMixin implements PerformanceMonitor {
@@ -63,4 +70,11 @@ public class MinecraftServerMixin implements PerformanceMonitor {
         return new MemoryWatcher();
     }
 
+    @Inject(method = "tickServer", at = @At("TAIL"))
+    private void impactor$drainMainThreadTasks(BooleanSupplier hasTimeLeft, CallbackInfo ci) {
+        if(Impactor.instance().scheduler().sync() instanceof MainThreadExecutor executor) {
+            executor.drain();
+        }
+    }
+
 }
@@ -25,22 +25,47 @@
 
 package net.impactdev.impactor.fabric.scheduler;
 
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.impactdev.impactor.fabric.FabricImpactorBootstrap;
 import net.impactdev.impactor.api.scheduler.AbstractJavaScheduler;
+import net.impactdev.impactor.core.utility.future.AsyncTasks;
+import net.impactdev.impactor.core.utility.future.MainThreadExecutor;
+import net.impactdev.impactor.core.utility.future.SchedulerConfig;
+import net.impactdev.impactor.core.utility.future.TaskClass;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 public final class FabricSchedulerAdapter extends AbstractJavaScheduler {
 
-    private final Executor sync;
+    /** The phase in which queued main thread work is run as the server stops, ahead of Impactor's own shutdown */
+    private static final ResourceLocation FLUSH = new ResourceLocation("impactor", "flush");
+
+    private final MainThreadExecutor sync;
 
     public FabricSchedulerAdapter(FabricImpactorBootstrap bootstrap) {
         super(bootstrap.logger());
-        this.sync = r -> bootstrap.server().orElseThrow(() -> new IllegalStateException("Server not yet available")).submit(r).join();
+        this.sync = new MainThreadExecutor(
+                () -> bootstrap.server().map(MinecraftServer::isSameThread).orElse(false),
+                SchedulerConfig.load().get(SchedulerConfig.TICK_BUDGET),
+                TimeUnit.MILLISECONDS
+        );
+
+        ServerLifecycleEvents.SERVER_STOPPING.addPhaseOrdering(FLUSH, Event.DEFAULT_PHASE);
+        ServerLifecycleEvents.SERVER_STOPPING.register(FLUSH, server -> this.sync.flush());
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> this.sync.flush());
     }
 
     @Override
-    public Executor sync() {
+    public MainThreadExecutor sync() {
         return this.sync;
     }
+
+    @Override
+    public Executor async() {
+        return AsyncTasks.executor(TaskClass.GENERAL);
+    }
 }
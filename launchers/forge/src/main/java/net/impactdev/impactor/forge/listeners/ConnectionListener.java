@@ -25,11 +25,27 @@
 
 package net.impactdev.impactor.forge.listeners;
 
+import net.impactdev.impactor.api.economy.EconomyService;
+import net.impactdev.impactor.core.economy.ImpactorEconomyService;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 
 @Mod.EventBusSubscriber(bus = Mod.EventBusSubscriber.Bus.FORGE)
 public class ConnectionListener {
 
-    // TODO - Post connection join to our API
+    @SubscribeEvent
+    public static void onJoin(PlayerEvent.PlayerLoggedInEvent event) {
+        if(EconomyService.instance() instanceof ImpactorEconomyService service) {
+            service.preload(event.getEntity().getUUID());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onQuit(PlayerEvent.PlayerLoggedOutEvent event) {
+        if(EconomyService.instance() instanceof ImpactorEconomyService service) {
+            service.release(event.getEntity().getUUID());
+        }
+    }
 
 }
@@ -26,10 +26,20 @@
 package net.impactdev.impactor.forge.scheduler;
 
 import net.impactdev.impactor.api.scheduler.AbstractJavaScheduler;
+import net.impactdev.impactor.core.utility.future.AsyncTasks;
+import net.impactdev.impactor.core.utility.future.MainThreadExecutor;
+import net.impactdev.impactor.core.utility.future.SchedulerConfig;
+import net.impactdev.impactor.core.utility.future.TaskClass;
 import net.impactdev.impactor.forge.ForgeImpactorPlugin;
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.event.server.ServerStoppingEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
 import net.minecraftforge.server.ServerLifecycleHooks;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /*
  * This file is part of LuckPerms, licensed under the MIT License.
@@ -57,15 +67,35 @@ import java.util.concurrent.Executor;
  */
 
 public class ForgeSchedulerAdapter extends AbstractJavaScheduler {
-    private final Executor sync;
+    private final MainThreadExecutor sync;
 
     public ForgeSchedulerAdapter(ForgeImpactorPlugin plugin) {
         super(plugin.logger());
-        this.sync = r -> ServerLifecycleHooks.getCurrentServer().executeBlocking(r);
+        this.sync = new MainThreadExecutor(() -> {
+            MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+            return server != null && server.isSameThread();
+        }, SchedulerConfig.load().get(SchedulerConfig.TICK_BUDGET), TimeUnit.MILLISECONDS);
+
+        // Queued work must run before Impactor's own shutdown, which listens at the default priority
+        MinecraftForge.EVENT_BUS.addListener(EventPriority.HIGH, this::onServerStopping);
+        MinecraftForge.EVENT_BUS.addListener(this::onServerStopped);
     }
 
     @Override
-    public Executor sync() {
+    public MainThreadExecutor sync() {
         return this.sync;
     }
+
+    @Override
+    public Executor async() {
+        return AsyncTasks.executor(TaskClass.GENERAL);
+    }
+
+    private void onServerStopping(ServerStoppingEvent event) {
+        this.sync.flush();
+    }
+
+    private void onServerStopped(ServerStoppedEvent event) {
+        this.sync.flush();
+    }
 }